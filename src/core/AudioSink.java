@@ -0,0 +1,51 @@
+package core;
+
+/**
+ * This interface represents where the audio samples produced by the emulation go
+ * A real time sink (an audio device) consumes samples at its own pace and buffers them,
+ * the emulation then keeps its buffer at a steady level, other sinks take samples as fast as they come
+ */
+public interface AudioSink {
+
+    /**
+     * @return the number of samples per second the sink expects
+     */
+    int getSampleRate();
+
+    /**
+     * Does the sink consume samples in real time
+     * If not, the emulation must be paced by something else than the audio output
+     *
+     * @return is the sink a real time output
+     */
+    boolean isRealTime();
+
+    /**
+     * Return the fraction of the sink buffer filled with samples waiting to be played (0 - 1)
+     * Sinks without a buffer always report a half full one, so no adjustment is made
+     *
+     * @return the fill level of the buffer
+     */
+    default double getFillRatio() {
+        return 0.5;
+    }
+
+    /**
+     * Send samples to the sink, called from the emulation thread
+     *
+     * @param samples the array containing the samples
+     * @param offset  the index of the first sample
+     * @param count   the number of samples to send
+     */
+    void write(float[] samples, int offset, int count);
+
+    /**
+     * Start consuming samples
+     */
+    void start();
+
+    /**
+     * Stop consuming samples and release the resources of the sink
+     */
+    void stop();
+}
@@ -0,0 +1,191 @@
+package core;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * This class keeps the upcoming events of the console ordered by the tick at which they occur
+ * Each event is identified by a small integer and is pending at most once, scheduling it again moves it
+ * The events are stored in a binary min-heap of primitive arrays, nothing is allocated once created
+ */
+public class EventScheduler implements Snapshottable {
+
+    private final long[] ticks;    // Tick of each entry of the heap
+    private final int[] events;    // Event of each entry of the heap
+    private final int[] positions; // Index in the heap of each event, -1 if it isn't pending
+    private int size = 0;
+
+    /**
+     * Create a new scheduler
+     *
+     * @param event_count the number of different events (the events are 0 to event_count - 1)
+     */
+    public EventScheduler(int event_count) {
+        ticks = new long[event_count];
+        events = new int[event_count];
+        positions = new int[event_count];
+        Arrays.fill(positions, -1);
+    }
+
+    /**
+     * Schedule an event, if it is already pending it is moved to the new tick
+     *
+     * @param event the event to schedule
+     * @param tick  the tick at which the event occurs
+     */
+    public void schedule(int event, long tick) {
+        int index = positions[event];
+        if (index < 0) {
+            index = size++;
+            events[index] = event;
+            positions[event] = index;
+        } else if (tick > ticks[index]) {
+            ticks[index] = tick;
+            siftDown(index);
+            return;
+        }
+        ticks[index] = tick;
+        siftUp(index);
+    }
+
+    /**
+     * Remove an event if it is pending
+     *
+     * @param event the event to remove
+     */
+    public void cancel(int event) {
+        int index = positions[event];
+        if (index >= 0)
+            removeAt(index);
+    }
+
+    /**
+     * @return the tick of the earliest pending event, Long.MAX_VALUE if none is pending
+     */
+    public long nextDeadline() {
+        return size > 0 ? ticks[0] : Long.MAX_VALUE;
+    }
+
+    /**
+     * Remove and return the earliest pending event if it occurs at or before a given tick
+     *
+     * @param tick the current tick
+     * @return the event, -1 if none is due
+     */
+    public int poll(long tick) {
+        if (size == 0 || ticks[0] > tick)
+            return -1;
+        int event = events[0];
+        removeAt(0);
+        return event;
+    }
+
+    /**
+     * Remove all the pending events
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++)
+            positions[events[i]] = -1;
+        size = 0;
+    }
+
+    @Override
+    public int stateSize() {
+        return 8 * positions.length;
+    }
+
+    /**
+     * Write the tick of each event, Long.MIN_VALUE if it isn't pending
+     *
+     * @param buffer the buffer to write to
+     */
+    @Override
+    public void saveState(ByteBuffer buffer) {
+        for (int index : positions)
+            buffer.putLong(index >= 0 ? ticks[index] : Long.MIN_VALUE);
+    }
+
+    /**
+     * Replace the pending events by the ones written by saveState
+     *
+     * @param buffer the buffer to read from
+     */
+    @Override
+    public void loadState(ByteBuffer buffer) {
+        clear();
+        for (int event = 0; event < positions.length; event++) {
+            long tick = buffer.getLong();
+            if (tick != Long.MIN_VALUE)
+                schedule(event, tick);
+        }
+    }
+
+    /**
+     * Remove the entry at a given index of the heap
+     *
+     * @param index the index of the entry
+     */
+    private void removeAt(int index) {
+        positions[events[index]] = -1;
+        size--;
+        if (index == size)
+            return;
+        move(size, index);
+        siftDown(index);
+        siftUp(index);
+    }
+
+    /**
+     * Move an entry up the heap until its parent occurs before it
+     *
+     * @param index the index of the entry
+     */
+    private void siftUp(int index) {
+        long tick = ticks[index];
+        int event = events[index];
+        while (index > 0) {
+            int parent = (index - 1) >> 1;
+            if (ticks[parent] <= tick)
+                break;
+            move(parent, index);
+            index = parent;
+        }
+        ticks[index] = tick;
+        events[index] = event;
+        positions[event] = index;
+    }
+
+    /**
+     * Move an entry down the heap until its children occur after it
+     *
+     * @param index the index of the entry
+     */
+    private void siftDown(int index) {
+        long tick = ticks[index];
+        int event = events[index];
+        int child;
+        while ((child = 2 * index + 1) < size) {
+            if (child + 1 < size && ticks[child + 1] < ticks[child])
+                child++;
+            if (ticks[child] >= tick)
+                break;
+            move(child, index);
+            index = child;
+        }
+        ticks[index] = tick;
+        events[index] = event;
+        positions[event] = index;
+    }
+
+    /**
+     * Copy an entry to another index of the heap
+     *
+     * @param from the index of the entry
+     * @param to   the index to copy it to
+     */
+    private void move(int from, int to) {
+        ticks[to] = ticks[from];
+        events[to] = events[from];
+        positions[events[to]] = to;
+    }
+}
@@ -0,0 +1,129 @@
+package core;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+
+/**
+ * This class is an audio sink that records the samples to a file
+ * as 16 bit signed mono PCM, either in a WAV container or as raw little endian data
+ */
+public class FileAudioSink implements AudioSink {
+
+    private static final int HEADER_SIZE = 44;
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Path path;
+    private final int sample_rate;
+    private final boolean wav;
+    private final ByteBuffer buffer;
+
+    private RandomAccessFile file;
+    private long data_size = 0;
+
+    /**
+     * Create a new sink, the file is created when the sink is started
+     *
+     * @param path        the file to record to
+     * @param sample_rate the sample rate of the recording
+     * @param wav         should a WAV header be written, if not raw samples are written
+     */
+    public FileAudioSink(Path path, int sample_rate, boolean wav) {
+        this.path = path;
+        this.sample_rate = sample_rate;
+        this.wav = wav;
+        this.buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    @Override
+    public int getSampleRate() {
+        return sample_rate;
+    }
+
+    @Override
+    public boolean isRealTime() {
+        return false;
+    }
+
+    @Override
+    public void write(float[] samples, int offset, int count) {
+        if (file == null)
+            return;
+        try {
+            for (int i = offset; i < offset + count; i++) {
+                if (buffer.remaining() < 2)
+                    flush();
+                float sample = Math.max(-1f, Math.min(1f, samples[i]));
+                buffer.putShort((short) (sample * Short.MAX_VALUE));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void start() {
+        if (file != null)
+            return;
+        try {
+            file = new RandomAccessFile(path.toFile(), "rw");
+            file.setLength(0);
+            data_size = 0;
+            if (wav)
+                file.write(header());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (file == null)
+            return;
+        try {
+            flush();
+            //The sizes are only known once the recording is over
+            if (wav) {
+                file.seek(0);
+                file.write(header());
+            }
+            file.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            file = null;
+        }
+    }
+
+    /**
+     * Write the buffered samples to the file
+     */
+    private void flush() throws IOException {
+        file.write(buffer.array(), 0, buffer.position());
+        data_size += buffer.position();
+        buffer.clear();
+    }
+
+    /**
+     * Build the WAV header for the samples written so far
+     *
+     * @return the header bytes
+     */
+    private byte[] header() {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.put(new byte[]{'R', 'I', 'F', 'F'}).putInt((int) (36 + data_size));
+        header.put(new byte[]{'W', 'A', 'V', 'E'});
+        header.put(new byte[]{'f', 'm', 't', ' '}).putInt(16);
+        header.putShort((short) 1);                 // PCM
+        header.putShort((short) 1);                 // Mono
+        header.putInt(sample_rate);
+        header.putInt(sample_rate * 2);             // Byte rate
+        header.putShort((short) 2);                 // Block align
+        header.putShort((short) 16);                // Bits per sample
+        header.put(new byte[]{'d', 'a', 't', 'a'}).putInt((int) data_size);
+        return header.array();
+    }
+}
@@ -0,0 +1,69 @@
+package core;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This class paces the emulation at the frame rate of the NES using System.nanoTime()
+ * Each frame has a deadline, the governor waits until it is reached before the next frame starts
+ * Deadlines are absolute so small oversleeps don't accumulate into a drift,
+ * but when the emulation falls too far behind it doesn't try to catch up
+ */
+public class FrameGovernor {
+
+    public static final long NTSC_FRAME_TIME = 16_639_267L; // Duration of a NTSC frame in nanoseconds (60.0988 Hz)
+
+    private static final int MAX_LATE_FRAMES = 4; // Past this delay, the emulation stops trying to catch up
+
+    private final long frame_time;
+    private long deadline;
+    private volatile boolean throttled = true;
+
+    /**
+     * Create a new governor
+     *
+     * @param frame_time the duration of a frame in nanoseconds
+     */
+    public FrameGovernor(long frame_time) {
+        this.frame_time = frame_time;
+        reset();
+    }
+
+    /**
+     * Start counting frames from now, used when the emulation resumes
+     */
+    public void reset() {
+        deadline = System.nanoTime();
+    }
+
+    /**
+     * Enable or disable throttling, when disabled the emulation runs as fast as possible
+     *
+     * @param throttled should the emulation be paced
+     */
+    public void setThrottled(boolean throttled) {
+        this.throttled = throttled;
+    }
+
+    /**
+     * @return is the emulation paced
+     */
+    public boolean isThrottled() {
+        return throttled;
+    }
+
+    /**
+     * Wait for the start of the next frame
+     *
+     * @param skip should the wait be skipped (the frame will start immediately)
+     */
+    public void waitNextFrame(boolean skip) {
+        deadline += frame_time;
+        long now = System.nanoTime();
+        if (skip || !throttled || now - deadline > MAX_LATE_FRAMES * frame_time) {
+            deadline = now;
+            return;
+        }
+        while ((now = System.nanoTime()) < deadline && !Thread.currentThread().isInterrupted())
+            LockSupport.parkNanos(deadline - now);
+    }
+}
@@ -4,28 +4,39 @@ import core.apu.APU_2A03;
 import core.cartridge.Cartridge;
 import core.cpu.CPU_6502;
 import core.ppu.PPU_2C02;
-import utils.IntegerWrapper;
-import gui.inputs.NESInputs;
 
+import java.nio.ByteBuffer;
 
 /**
  * This class represents the Bus of the NES
  * it is the Core of the system and controls everything
  */
-public class NES {
+public class NES implements Snapshottable {
 
-    private static final long SAVE_INTERVAL = 20000; // Constant for the save interval
+    private static final int EVENT_SYNC = 0; // A register has been accessed or the execution mode changed
+    private static final int EVENT_VERTICAL_BLANK = 1; // The PPU raises the NMI
+    private static final int EVENT_FRAME_END = 2; // The PPU completes the frame
+    private static final int EVENT_MAPPER_IRQ = 3; // The Mapper scanline counter raises its IRQ
+    private static final int EVENT_APU = 4; // The APU frame IRQ or a DMC memory read
+    private static final int EVENT_IRQ_LINE = 5; // An IRQ is still asserted, it is polled again when the CPU clears its I flag or at the next PPU sync point
+    private static final int EVENT_COUNT = 6;
+
+    private static final int STATE_MAGIC = 0x4E455353; // "NESS", first bytes of a saved state
+    private static final int STATE_VERSION = 1; // Increased each time the layout of the saved state changes
 
     public final int[] controller; // State variable for controller input states
-    public double final_audio_sample = 0.0; // State variable for the final audio sample output
 
     private final byte[] ram; // Encapsulation: Memory for the system RAM
+    private final byte[][] read_pages; // Encapsulation: Memory backing each 256 bytes CPU page when read, null if handled by a component
+    private final int[] read_offsets; // Encapsulation: Offset of each CPU page in its backing memory when read
+    private final byte[][] write_pages; // Encapsulation: Memory backing each 256 bytes CPU page when written, null if handled by a component
+    private final int[] write_offsets; // Encapsulation: Offset of each CPU page in its backing memory when written
     private final CPU_6502 cpu; // Encapsulation: CPU component
     private final PPU_2C02 ppu; // Encapsulation: PPU component
     private final APU_2A03 apu; // Encapsulation: APU component
     private final int[] controller_state; // Encapsulation: Current state of controllers
+    private final EventScheduler scheduler; // Encapsulation: Ticks at which the PPU needs to catch up and the Interrupts must be polled
 
-    private long next_save = 0; // Encapsulation: Next time to save state
     private long system_ticks = 0; // Encapsulation: System tick counter
     private Cartridge cartridge; // Encapsulation: The currently inserted cartridge
     private int dma_page = 0x00; // Encapsulation: DMA page for transfer
@@ -33,12 +44,14 @@ public class NES {
     private int dma_data = 0x00; // Encapsulation: DMA data buffer
     private boolean dma_transfer = false; // Encapsulation: DMA transfer state
     private boolean dma_dummy = true; // Encapsulation: DMA dummy cycle state
-    private double audio_time = 0.0; // Encapsulation: Time accumulator for audio processing
-    private double time_per_NES_cycle = 0.0; // Encapsulation: Time per NES clock cycle
-    private double time_per_system_sample = 0.0; // Encapsulation: Time per audio sample
     private boolean sound_rendering = true; // Encapsulation: Sound rendering state
     private int dummy_cycle_left = 0; // Encapsulation: Dummy cycles left for the CPU
 
+    private boolean step_mode = false; // Encapsulation: Is the console run instruction by instruction (catch-up mode)
+    private boolean update_apu_visual = false; // Encapsulation: Should the APU visualizer be updated while catching up
+    private long cpu_time = 0; // Encapsulation: Tick at which the CPU will execute its next instruction
+    private long apu_cycle_offset = 0; // Encapsulation: APU cycle of the tick 0, the APU keeps counting across resets
+
     /**
      * Create a new Instance of Bus ready to be started
      */
@@ -46,17 +59,27 @@ public class NES {
         ram = new byte[2048]; // Initialize RAM with 2KB size
         for (int i = 0; i < 2048; i++)
             ram[i] = 0x0000;
+        read_pages = new byte[256][]; // Initialize the CPU page table
+        read_offsets = new int[256];
+        write_pages = new byte[256][];
+        write_offsets = new int[256];
+        for (int page = 0x00; page <= 0x1F; page++) { // The 2KB of RAM are mirrored up to 0x1FFF
+            read_pages[page] = ram;
+            read_offsets[page] = (page & 0x07) << 8;
+            write_pages[page] = ram;
+            write_offsets[page] = (page & 0x07) << 8;
+        }
         cpu = new CPU_6502(); // Initialize the CPU
         ppu = new PPU_2C02(); // Initialize the PPU
         apu = new APU_2A03(this); // Initialize the APU
         controller = new int[2]; // Initialize controller array
         controller_state = new int[2]; // Initialize controller state array
+        scheduler = new EventScheduler(EVENT_COUNT); // Initialize the event scheduler
         cpu.connectBus(this); // Mediator Pattern: Connect CPU with the NES bus
     }
 
     public void setSampleFreq(int sampleRate) {
-        time_per_system_sample = 1.0 / (double) sampleRate; // Calculate time per system sample
-        time_per_NES_cycle = 1.0 / 5369318.0; // Set time per NES cycle based on system clock rate
+        apu.setSampleRate(sampleRate); // The APU output is resampled to the host rate
     }
 
     /**
@@ -90,20 +113,28 @@ public class NES {
     public void cpuWrite(int addr, int data) {
         data &= 0xFF; // Ensure data is 8-bit
         addr &= 0xFFFF; // Ensure address is 16-bit
-        if (!cartridge.cpuWrite(addr, data)) { // Bridge Pattern: Cartridge handles its own CPU writes
-            if (addr <= 0x1FFF) { // Write to RAM
-                ram[addr & 0x07FF] = (byte) data; // RAM mirroring
-            } else if (addr <= 0x3FFF) { // Write to PPU Register
-                ppu.cpuWrite(addr & 0x0007, data); // PPU register write handling
-            } else if (addr <= 0x4013 || addr == 0x4015 || addr == 0x4017) { // Write to APU
-                apu.cpuWrite(addr, data); // APU register write handling
-            } else if (addr == 0x4014) { // DMA transfer initiation
-                dma_page = data; // Set DMA page
-                dma_addr = 0; // Reset DMA address
-                dma_transfer = true; // Start DMA transfer
-            } else if (addr == 0x4016) { // Controller state snapshot
-                controller_state[data & 0x1] = controller[data & 0x1]; // Update controller state
-            }
+        byte[] page = write_pages[addr >> 8]; // Page Table: RAM is written directly
+        if (page != null) {
+            page[write_offsets[addr >> 8] + (addr & 0xFF)] = (byte) data;
+            return;
+        }
+        if (addr >= 0x2000 && (addr <= 0x4017 || addr >= 0x8000))
+            synchronize(); // PPU, APU, DMA and Mapper registers need the PPU to be up to date
+        if (addr >= 0x4020) { // Bridge Pattern: Cartridge handles its own CPU writes
+            cartridge.cpuWrite(addr, data);
+            if (addr >= 0x8000)
+                mapCartridge(); // The Mapper may have switched banks
+        } else if (addr <= 0x3FFF) { // Write to PPU Register
+            ppu.cpuWrite(addr & 0x0007, data); // PPU register write handling
+        } else if (addr <= 0x4013 || addr == 0x4015 || addr == 0x4017) { // Write to APU
+            synchronizeApu(); // The APU is only brought up to date when it is accessed
+            apu.cpuWrite(addr, data); // APU register write handling
+        } else if (addr == 0x4014) { // DMA transfer initiation
+            dma_page = data; // Set DMA page
+            dma_addr = 0; // Reset DMA address
+            dma_transfer = true; // Start DMA transfer
+        } else if (addr == 0x4016) { // Controller state snapshot
+            controller_state[data & 0x1] = controller[data & 0x1]; // Update controller state
         }
     }
 
@@ -116,20 +147,46 @@ public class NES {
      */
     public int cpuRead(int addr, boolean readOnly) {
         addr &= 0xFFFF; // Ensure address is 16-bit
-        IntegerWrapper data = new IntegerWrapper(); // Wrapper for the read data
-        if (!cartridge.cpuRead(addr, data)) { // Bridge Pattern: Cartridge handles its own CPU reads
-            if (addr <= 0x1FFF) // Read from RAM
-                data.value = ram[addr & 0x07FF]; // RAM mirroring
-            else if (addr <= 0x3FFF) // Read from PPU Register
-                data.value = ppu.cpuRead(addr & 0x0007, readOnly); // PPU register read handling
-            else if (addr == 0x4015)
-                data.value = apu.cpuRead(addr, readOnly); // APU register read handling
-            else if (addr >= 0x4016 && addr <= 0x4017 && !readOnly) { // Read controllers
-                data.value = ((controller_state[addr & 0x0001] & 0x80) > 0) ? 0x1 : 0x0; // Serial controller read
-                controller_state[addr & 0x0001] <<= 1; // Shift controller state
-            }
+        byte[] page = read_pages[addr >> 8]; // Page Table: RAM and Program ROM are read directly
+        if (page != null)
+            return page[read_offsets[addr >> 8] + (addr & 0xFF)] & 0xFF;
+        if (!readOnly && addr >= 0x2000 && (addr <= 0x3FFF || addr == 0x4015))
+            synchronize(); // PPU and APU registers need the PPU to be up to date
+        int data = 0x00;
+        if (addr >= 0x4020) { // Bridge Pattern: Cartridge handles its own CPU reads
+            data = cartridge.cpuRead(addr);
+        } else if (addr <= 0x3FFF) // Read from PPU Register
+            data = ppu.cpuRead(addr & 0x0007, readOnly); // PPU register read handling
+        else if (addr == 0x4015) {
+            if (!readOnly)
+                synchronizeApu(); // The APU is only brought up to date when it is accessed
+            data = apu.cpuRead(addr, readOnly); // APU register read handling
+        }
+        else if (addr >= 0x4016 && addr <= 0x4017 && !readOnly) { // Read controllers
+            data = ((controller_state[addr & 0x0001] & 0x80) > 0) ? 0x1 : 0x0; // Serial controller read
+            controller_state[addr & 0x0001] <<= 1; // Shift controller state
         }
-        return data.value & 0xFF; // Return the read value
+        return data & 0xFF; // Return the read value
+    }
+
+    /**
+     * Update the Cartridge part of the CPU page table
+     * with the Cartridge RAM and the Program Memory pages currently selected by the Mapper
+     * and let the PPU follow the mirroring mode
+     */
+    private void mapCartridge() {
+        byte[] ram = cartridge.getMapper().getRAM();
+        for (int page = 0x60; page <= 0x7F; page++) {
+            read_pages[page] = ram; // Cartridge RAM is read directly, null if absent
+            read_offsets[page] = (page & 0x1F) << 8;
+            write_pages[page] = null; // Cartridge RAM writes go through the Cartridge to be saved
+        }
+        byte[] prgMemory = cartridge.getPRGMemory();
+        for (int page = 0x80; page <= 0xFF; page++) {
+            read_pages[page] = prgMemory; // Mapper registers writes still go through the Cartridge
+            read_offsets[page] = cartridge.getPRGPageOffset(page);
+        }
+        ppu.mapNametables(); // The Mapper may have switched the mirroring mode
     }
 
     /**
@@ -140,6 +197,7 @@ public class NES {
     public void insertCartridge(Cartridge cart) {
         this.cartridge = cart; // Set the cartridge
         ppu.connectCartridge(cartridge); // Bridge Pattern: Link cartridge to PPU
+        mapCartridge(); // Map the Program Memory into the CPU page table
     }
 
     /**
@@ -149,7 +207,13 @@ public class NES {
         cpu.reset(); // Reset the CPU
         ppu.reset(); // Reset the PPU
         cartridge.reset(); // Reset the cartridge
+        mapCartridge(); // The Mapper banks are back to their default state
+        synchronizeApu(); // The APU time goes on from where it is
         system_ticks = 0; // Reset system tick counter
+        cpu_time = 0; // Reset catch-up state
+        apu_cycle_offset = apu.getCycle(); // Reset catch-up state
+        scheduler.clear(); // Every event is posted again at the first tick
+        scheduler.schedule(EVENT_SYNC, 0);
         dma_page = 0x00; // Reset DMA state
         dma_addr = 0x00; // Reset DMA state
         dma_data = 0x00; // Reset DMA state
@@ -165,17 +229,25 @@ public class NES {
         apu.startup(); // Startup the APU
         ppu.reset(); // Reset the PPU
         cartridge.reset(); // Reset the cartridge
+        mapCartridge(); // The Mapper banks are back to their default state
         system_ticks = 0; // Reset system tick counter
+        cpu_time = 0; // Reset catch-up state
+        apu_cycle_offset = apu.getCycle(); // Reset catch-up state
+        scheduler.clear(); // Every event is posted again at the first tick
+        scheduler.schedule(EVENT_SYNC, 0);
     }
 
     /**
      * Compute one console tick
      * the PPU is clocked every times
      * the CPU is clocked one every 3 times
+     * This is the tick by tick mode, mostly used for debugging, see step() for the faster mode
      */
     public boolean clock(boolean update_apu_visual) {
-        ppu.clock(); // Clock the PPU every tick
-        apu.clock(sound_rendering, time_per_NES_cycle); // Clock the APU every tick
+        if (step_mode)
+            leaveStepMode(); // Let the PPU reach the CPU before going tick by tick
+        this.update_apu_visual = update_apu_visual;
+        ppu.clock(); // Clock the PPU every tick, the APU catches up when it is accessed
         if (system_ticks % 3 == 0) { // Clock the CPU every 3 ticks
             if (dma_transfer) {
                 if (dma_dummy) { // Handle DMA dummy cycle
@@ -185,16 +257,7 @@ public class NES {
                     if (system_ticks % 2 == 0) // Read from memory on even cycles
                         dma_data = cpuRead(dma_page << 8 | dma_addr, false);
                     else { // Write to PPU memory on odd cycles
-                        switch ((dma_addr) & 0x03) {
-                            case 0x0:
-                                ppu.getOams()[dma_addr >> 2].setY(dma_data);
-                            case 0x1:
-                                ppu.getOams()[dma_addr >> 2].setId(dma_data);
-                            case 0x2:
-                                ppu.getOams()[dma_addr >> 2].setAttribute(dma_data);
-                            case 0x3:
-                                ppu.getOams()[dma_addr >> 2].setX(dma_data);
-                        }
+                        ppu.writeOam(dma_addr, dma_data);
                         dma_addr++;
                         dma_addr &= 0xFF;
                         if (dma_addr == 0x00) { // End of DMA transfer
@@ -203,23 +266,219 @@ public class NES {
                         }
                     }
                 }
-            } else if (dummy_cycle_left == 0)
+            } else if (dummy_cycle_left == 0) {
                 cpu.clock(); // Clock the CPU
-            else
+                if (cpu.complete() && cpu.irqUnmasked())
+                    recheckIrqLine(system_ticks); // A held IRQ is taken once the Instruction is over
+            } else
                 dummy_cycle_left--;
         }
 
-        boolean audioSampleReady = false;
-        audio_time += time_per_NES_cycle; // Accumulate time for audio sampling
-        if (audio_time >= time_per_system_sample) { // Check if it's time for an audio sample
-            audio_time -= time_per_system_sample; // Reset audio time
-            if (sound_rendering)
-                final_audio_sample = apu.getSample(update_apu_visual); // Get audio sample from APU
-            else
-                final_audio_sample = 0;
-            audioSampleReady = true;
+        if (system_ticks >= scheduler.nextDeadline())
+            dispatchEvents(system_ticks); // Interrupts are only polled when an event has been reached
+        system_ticks++; // Increment system ticks
+
+        return apu.samplesAvailable() > 0; // Return whether an audio sample is ready
+    }
+
+    /**
+     * Execute one CPU Instruction (or a pending DMA transfer) and let the PPU
+     * catch up in a single batch once a synchronisation point is reached
+     * Synchronisation points are the events of the scheduler: the Vertical Blank NMI, the end of the frame,
+     * the Mapper IRQ, the APU frame IRQ and DMC reads, and every access to a PPU, APU, DMA or Mapper register
+     * Interrupts are polled at each synchronisation point, between two Instructions
+     *
+     * @param update_apu_visual should the APU visualizer be updated
+     * @return the number of CPU cycles used
+     */
+    public int step(boolean update_apu_visual) {
+        if (!step_mode)
+            enterStepMode();
+        this.update_apu_visual = update_apu_visual;
+
+        int cycles;
+        if (dma_transfer)
+            cycles = transferDMA(); // The CPU is suspended during the whole transfer
+        else if (dummy_cycle_left > 0) {
+            cycles = dummy_cycle_left; // The CPU is halted (DMC memory read)
+            dummy_cycle_left = 0;
+        } else
+            cycles = cpu.step(); // Execute a whole Instruction
+        cpu_time += 3L * cycles;
+        if (cpu.irqUnmasked())
+            recheckIrqLine(cpu_time); // A held IRQ is taken before the next Instruction
+
+        if (cpu_time >= scheduler.nextDeadline()) {
+            catchUp(cpu_time + 1);
+            dispatchEvents(system_ticks - 1);
+        }
+        return cycles;
+    }
+
+    /**
+     * Run the console Instruction by Instruction until the PPU completes a frame
+     * The APU is then brought up to date, the audio samples produced in the process are left in it
+     *
+     * @param update_apu_visual should the APU visualizer be updated
+     */
+    public void runFrame(boolean update_apu_visual) {
+        while (!ppu.frame_complete)
+            step(update_apu_visual);
+        ppu.frame_complete = false;
+        synchronizeApu();
+    }
+
+    /**
+     * Run the console Instruction by Instruction until a block of audio samples has been rendered
+     * The APU hands its samples over in batches, so the console runs for several samples between two reads
+     *
+     * @param out               the array to write the samples to
+     * @param offset            the index of the first sample to write
+     * @param count             the number of samples to render
+     * @param update_apu_visual should the APU visualizer be updated
+     */
+    public void renderAudio(float[] out, int offset, int count, boolean update_apu_visual) {
+        int end = offset + count;
+        while (offset < end) {
+            while (apu.samplesAvailable() == 0) {
+                step(update_apu_visual);
+                synchronizeApu();
+            }
+            offset += apu.renderSamples(out, offset, end - offset);
+        }
+    }
+
+    /**
+     * Clock the PPU until it reaches the requested tick
+     * Nothing can access the PPU or the Mapper before the target, so whole visible scanlines
+     * are rendered at once when possible
+     *
+     * @param target the tick to reach (excluded)
+     */
+    private void catchUp(long target) {
+        while (system_ticks < target) {
+            if (ppu.canRenderScanline(target - system_ticks))
+                system_ticks += ppu.renderScanline(); // Render the visible dots of the scanline in one go
+            else {
+                ppu.clock();
+                system_ticks++;
+            }
+        }
+    }
+
+    /**
+     * Bring the APU up to the current CPU cycle
+     * The APU runs lazily, only when a register is accessed, when it has an IRQ or a DMC read scheduled
+     * and when the audio samples are needed
+     */
+    private void synchronizeApu() {
+        long tick = step_mode ? cpu_time : system_ticks;
+        apu.runUntil(apu_cycle_offset + tick / 3 + 1, sound_rendering, update_apu_visual);
+    }
+
+    /**
+     * Bring the PPU to the current CPU time before a register access
+     * and make sure Interrupts are polled at the end of the current Instruction
+     */
+    private void synchronize() {
+        if (step_mode) {
+            catchUp(cpu_time + 1);
+            scheduler.schedule(EVENT_SYNC, cpu_time);
+        } else
+            scheduler.schedule(EVENT_SYNC, system_ticks);
+    }
+
+    /**
+     * Switch to the Instruction by Instruction mode, the CPU is aligned to the next CPU tick
+     */
+    private void enterStepMode() {
+        step_mode = true;
+        cpu_time = system_ticks + (3 - system_ticks % 3) % 3;
+        scheduler.schedule(EVENT_SYNC, cpu_time);
+    }
+
+    /**
+     * Switch to the tick by tick mode, the PPU catches up with the CPU first
+     */
+    private void leaveStepMode() {
+        step_mode = false;
+        catchUp(cpu_time);
+        scheduler.schedule(EVENT_SYNC, system_ticks);
+    }
+
+    /**
+     * Execute a whole DMA transfer at once
+     *
+     * @return the number of CPU cycles the transfer took
+     */
+    private int transferDMA() {
+        synchronize();
+        //The transfer takes 513 cycles, plus one if it starts on an odd CPU cycle
+        int cycles = 513 + (int) ((cpu_time / 3) & 0x1);
+        for (dma_addr = 0x00; dma_addr <= 0xFF; dma_addr++)
+            ppu.writeOam(dma_addr, cpuRead(dma_page << 8 | dma_addr, false));
+        dma_addr = 0x00;
+        dma_transfer = false;
+        dma_dummy = true;
+        return cycles;
+    }
+
+    /**
+     * Handle the events due at a given tick, poll the Interrupts and post the next events of every component
+     * A register access can move any of them, so they are all computed again
+     *
+     * @param tick the tick of the last dot rendered by the PPU
+     */
+    private void dispatchEvents(long tick) {
+        int event;
+        while ((event = scheduler.poll(tick)) >= 0) {
+            if (event == EVENT_APU)
+                synchronizeApu(); // The APU is brought to its event to make it visible
         }
+        pollInterrupts();
+        postEvents(tick);
+    }
+
+    /**
+     * Schedule the next event of the PPU, Mapper and APU
+     *
+     * @param tick the tick of the last dot rendered by the PPU
+     */
+    private void postEvents(long tick) {
+        scheduler.schedule(EVENT_VERTICAL_BLANK, tick + ppu.dotsUntilVerticalBlank());
+        scheduler.schedule(EVENT_FRAME_END, tick + ppu.dotsUntilFrameEnd());
+        int dots = ppu.dotsUntilMapperNotification(cartridge.getMapper().scanlinesUntilIrq());
+        if (dots >= 0)
+            scheduler.schedule(EVENT_MAPPER_IRQ, tick + dots);
+        else
+            scheduler.cancel(EVENT_MAPPER_IRQ); // Beyond the end of the frame, it will be posted again then
+        long apu_sync = apu.nextSyncCycle(); // The APU IRQ and DMC reads happen at a known cycle
+        if (apu_sync != Long.MAX_VALUE)
+            scheduler.schedule(EVENT_APU, 3 * (apu_sync - apu_cycle_offset));
+        else
+            scheduler.cancel(EVENT_APU);
+        if (apu.irq())
+            scheduler.schedule(EVENT_IRQ_LINE, tick + ppu.dotsUntilSync()); // The CPU may be ignoring it for now, see recheckIrqLine
+        else
+            scheduler.cancel(EVENT_IRQ_LINE);
+    }
+
+    /**
+     * Poll the Interrupts again after the CPU cleared its I flag (CLI, PLP or RTI) if the APU IRQ is still held
+     * The IRQ is then taken before the next Instruction (0 Instruction of latency, like when the line was checked
+     * every clock) instead of up to about 200 CPU cycles (2 scanlines) later at the next PPU sync point
+     *
+     * @param tick the tick at which the Interrupts must be polled
+     */
+    private void recheckIrqLine(long tick) {
+        if (apu.irq())
+            scheduler.schedule(EVENT_IRQ_LINE, tick);
+    }
 
+    /**
+     * Forward the pending Interrupts of the PPU, APU and Cartridge to the CPU
+     */
+    private void pollInterrupts() {
         if (ppu.nmi())
             cpu.nmi(); // Handle PPU NMI interrupt
         if (apu.irq())
@@ -228,14 +487,6 @@ public class NES {
             cartridge.getMapper().irqClear();
             cpu.irq(); // Handle Cartridge IRQ interrupt
         }
-
-        if (System.currentTimeMillis() >= next_save) { // Save the state if necessary
-            cartridge.save(); // Save the cartridge state
-            next_save = System.currentTimeMillis() + SAVE_INTERVAL; // Update the next save time
-        }
-        system_ticks++; // Increment system ticks
-
-        return audioSampleReady; // Return whether an audio sample is ready
     }
 
     /**
@@ -247,6 +498,87 @@ public class NES {
         return cartridge; // Accessor for the cartridge
     }
 
+    /**
+     * Return the size of a saved state of the console with the inserted Cartridge
+     *
+     * @return the number of bytes written by saveState
+     */
+    @Override
+    public int stateSize() {
+        return 3 * 4 + ram.length + 3 * 8 + 4 * 4 + 3 + 2 * 4 // Header, RAM, timing, DMA and controllers
+                + cpu.stateSize() + ppu.stateSize() + apu.stateSize() + cartridge.stateSize() + scheduler.stateSize();
+    }
+
+    /**
+     * Write the state of the whole console to a buffer, after a header identifying the layout and the game
+     * Nothing is allocated, the state can be saved every frame
+     * The controllers input and the rendering options aren't part of the state
+     *
+     * @param buffer the buffer to write to, with at least stateSize() bytes remaining
+     */
+    @Override
+    public void saveState(ByteBuffer buffer) {
+        buffer.putInt(STATE_MAGIC); // Header
+        buffer.putInt(STATE_VERSION); // Header
+        buffer.putInt(cartridge.getChecksum()); // Header: the game the state belongs to
+        buffer.put(ram); // System RAM
+        buffer.putLong(system_ticks); // Timing state
+        buffer.putLong(cpu_time); // Timing state
+        buffer.putLong(apu_cycle_offset); // Timing state
+        buffer.putInt(dma_page); // DMA state
+        buffer.putInt(dma_addr); // DMA state
+        buffer.putInt(dma_data); // DMA state
+        buffer.putInt(dummy_cycle_left); // DMC halt state
+        Snapshottable.putBoolean(buffer, dma_transfer); // DMA state
+        Snapshottable.putBoolean(buffer, dma_dummy); // DMA state
+        Snapshottable.putBoolean(buffer, step_mode); // Execution mode
+        buffer.putInt(controller_state[0]); // Controllers shift registers
+        buffer.putInt(controller_state[1]); // Controllers shift registers
+        cpu.saveState(buffer); // Composite Pattern: each component writes its own state
+        ppu.saveState(buffer);
+        apu.saveState(buffer);
+        cartridge.saveState(buffer);
+        scheduler.saveState(buffer);
+    }
+
+    /**
+     * Restore the state of the whole console from a buffer written by saveState
+     * The buffer is checked before anything is modified
+     *
+     * @param buffer the buffer to read from
+     * @throws IllegalArgumentException if the buffer doesn't contain a state of the inserted game in the current layout
+     */
+    @Override
+    public void loadState(ByteBuffer buffer) {
+        int start = buffer.position();
+        if (buffer.remaining() < stateSize() || buffer.getInt(start) != STATE_MAGIC)
+            throw new IllegalArgumentException("Not a saved state");
+        if (buffer.getInt(start + 4) != STATE_VERSION)
+            throw new IllegalArgumentException("Unsupported saved state version " + buffer.getInt(start + 4));
+        if (buffer.getInt(start + 8) != cartridge.getChecksum())
+            throw new IllegalArgumentException("The saved state belongs to another game");
+        buffer.position(start + 3 * 4); // Skip the header
+        buffer.get(ram); // System RAM
+        system_ticks = buffer.getLong(); // Timing state
+        cpu_time = buffer.getLong(); // Timing state
+        apu_cycle_offset = buffer.getLong(); // Timing state
+        dma_page = buffer.getInt(); // DMA state
+        dma_addr = buffer.getInt(); // DMA state
+        dma_data = buffer.getInt(); // DMA state
+        dummy_cycle_left = buffer.getInt(); // DMC halt state
+        dma_transfer = Snapshottable.getBoolean(buffer); // DMA state
+        dma_dummy = Snapshottable.getBoolean(buffer); // DMA state
+        step_mode = Snapshottable.getBoolean(buffer); // Execution mode
+        controller_state[0] = buffer.getInt(); // Controllers shift registers
+        controller_state[1] = buffer.getInt(); // Controllers shift registers
+        cpu.loadState(buffer); // Composite Pattern: each component reads its own state
+        ppu.loadState(buffer);
+        apu.loadState(buffer);
+        cartridge.loadState(buffer);
+        scheduler.loadState(buffer);
+        mapCartridge(); // The page tables and the nametables follow the restored Mapper banks
+    }
+
     /**
      * @param enabled should the audio rendering be enabled
      */
@@ -281,45 +613,19 @@ public class NES {
         return sound_rendering; // Accessor for sound rendering state
     }
 
-    public void updateControllerState(int player, NESInputs input, boolean pressed) {
+    /**
+     * Press or release buttons of a controller
+     *
+     * @param player  the player index (0 or 1)
+     * @param mask    the buttons, as the bits of the controller state (A = 0x80 ... Right = 0x01)
+     * @param pressed whether the buttons are pressed or released
+     */
+    public void updateControllerState(int player, int mask, boolean pressed) {
         if (player < 0 || player > 1) return; // Validate player index
         if (pressed) {
-            controller[player] |= getButtonMask(input); // Set the corresponding bit
+            controller[player] |= mask; // Set the corresponding bits
         } else {
-            controller[player] &= ~getButtonMask(input); // Clear the corresponding bit
-        }
-    }
-    
-    private int getButtonMask(NESInputs input) {
-        switch (input) {
-            case CONTROLLER_1_A:
-            case CONTROLLER_2_A:
-                return 0x80;
-            case CONTROLLER_1_B:
-            case CONTROLLER_2_B:
-                return 0x40;
-            case CONTROLLER_1_SELECT:
-            case CONTROLLER_2_SELECT:
-                return 0x20;
-            case CONTROLLER_1_START:
-            case CONTROLLER_2_START:
-                return 0x10;
-            case CONTROLLER_1_UP:
-            case CONTROLLER_2_UP:
-                return 0x08;
-            case CONTROLLER_1_DOWN:
-            case CONTROLLER_2_DOWN:
-                return 0x04;
-            case CONTROLLER_1_LEFT:
-            case CONTROLLER_2_LEFT:
-                return 0x02;
-            case CONTROLLER_1_RIGHT:
-            case CONTROLLER_2_RIGHT:
-                return 0x01;
-            default:
-                throw new IllegalArgumentException("Unknown NESInput: " + input);
+            controller[player] &= ~mask; // Clear the corresponding bits
         }
     }
-    
-    
 }
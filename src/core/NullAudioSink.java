@@ -0,0 +1,38 @@
+package core;
+
+/**
+ * This class is an audio sink that discards every sample
+ * Used when no audio device is available or when the audio isn't needed
+ */
+public class NullAudioSink implements AudioSink {
+
+    private final int sample_rate;
+
+    /**
+     * Create a new sink
+     *
+     * @param sample_rate the sample rate the emulation should produce
+     */
+    public NullAudioSink(int sample_rate) {
+        this.sample_rate = sample_rate;
+    }
+
+    @Override
+    public int getSampleRate() {
+        return sample_rate;
+    }
+
+    @Override
+    public boolean isRealTime() {
+        return false;
+    }
+
+    @Override
+    public void write(float[] samples, int offset, int count) {}
+
+    @Override
+    public void start() {}
+
+    @Override
+    public void stop() {}
+}
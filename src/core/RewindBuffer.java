@@ -0,0 +1,297 @@
+package core;
+
+import java.nio.ByteBuffer;
+
+/**
+ * This class keeps the recent states of the console so the emulation can go back in time
+ * A snapshot is taken every few frames and stored in a ring of bounded size, the oldest ones are dropped when it is full
+ * Most of the state doesn't change from one frame to the next, so a snapshot is stored as the XOR of the state
+ * with the last keyframe (a full snapshot taken periodically), where the runs of zero bytes are skipped:
+ * a list of (number of unchanged bytes, number of changed bytes, changed bytes XORed with the keyframe), as varints.
+ * Keyframes use the same encoding against a state of zeros.
+ * Restoring a snapshot decodes at most its keyframe and itself, so stepping back always takes the same time
+ * Nothing is allocated once the buffer is created
+ */
+public class RewindBuffer {
+
+    public static final int DEFAULT_BUDGET = 64 << 20; // 64MB, several minutes of snapshots at 60 fps
+
+    private static final int KEYFRAME_INTERVAL = 60; // Number of snapshots between 2 keyframes
+    private static final int MAX_SNAPSHOTS = 1 << 16; // Maximum number of snapshots, whatever their size
+    private static final int MIN_ZERO_RUN = 4; // Shorter runs of unchanged bytes are stored along with the changed ones
+
+    private final Snapshottable target;
+    private final int interval;
+    private final byte[] data; // Encoded snapshots, used as a circular buffer
+    private final int[] offsets; // Offset in data of each snapshot
+    private final int[] lengths; // Encoded length of each snapshot
+    private final long[] keyframes; // Index of the keyframe each snapshot is encoded against, its own index for a keyframe
+
+    private final byte[] state; // Raw state being saved or restored
+    private final ByteBuffer state_buffer;
+    private final byte[] reference; // Raw state of a keyframe
+    private final byte[] zeros; // Reference of the keyframes
+    private final byte[] encoded; // Snapshot being encoded
+
+    private long reference_index = -1; // Index of the keyframe held in reference, -1 if none
+    private long oldest = 0; // Index of the oldest snapshot
+    private long end = 0; // Index of the next snapshot
+    private int write_offset = 0; // Offset in data where the next snapshot will be written
+    private int countdown = 1; // Number of frames until the next snapshot
+    private int cursor; // Read position in data while decoding
+
+    /**
+     * Create a new rewind buffer, the size of the snapshots is set by the state of the target when it is created
+     *
+     * @param target   the component to take the snapshots of (usually the whole NES)
+     * @param budget   the number of bytes the encoded snapshots can use
+     * @param interval the number of frames between 2 snapshots
+     */
+    public RewindBuffer(Snapshottable target, int budget, int interval) {
+        this.target = target;
+        this.interval = interval;
+        int size = target.stateSize();
+        data = new byte[budget];
+        offsets = new int[MAX_SNAPSHOTS];
+        lengths = new int[MAX_SNAPSHOTS];
+        keyframes = new long[MAX_SNAPSHOTS];
+        state = new byte[size];
+        state_buffer = ByteBuffer.wrap(state);
+        reference = new byte[size];
+        zeros = new byte[size];
+        //In the worst case, each changed byte is followed by a short run of unchanged ones
+        encoded = new byte[size + 6 * (size / (MIN_ZERO_RUN + 1) + 2)];
+    }
+
+    /**
+     * Called before each frame, take a snapshot if enough frames have elapsed since the last one
+     */
+    public void capture() {
+        if (--countdown > 0)
+            return;
+        countdown = interval;
+        state_buffer.clear();
+        target.saveState(state_buffer);
+
+        boolean keyframe = end == oldest || end - keyframes[slot(end - 1)] >= KEYFRAME_INTERVAL;
+        long key = keyframe ? end : keyframes[slot(end - 1)];
+        if (!keyframe)
+            loadReference(key);
+        int length = encode(keyframe ? zeros : reference);
+        int offset = allocate(length, key);
+        //If the keyframe would have to be dropped to make room for the snapshot, it becomes a keyframe itself
+        if (offset < 0 && !keyframe) {
+            keyframe = true;
+            key = end;
+            length = encode(zeros);
+            offset = allocate(length, key);
+        }
+        if (offset < 0)
+            return; // The snapshot is larger than the whole budget
+        System.arraycopy(encoded, 0, data, offset, length);
+        int slot = slot(end);
+        offsets[slot] = offset;
+        lengths[slot] = length;
+        keyframes[slot] = key;
+        if (keyframe) {
+            System.arraycopy(state, 0, reference, 0, state.length);
+            reference_index = key;
+        }
+        write_offset = offset + length;
+        end++;
+    }
+
+    /**
+     * Restore the most recent snapshot and remove it, the next call restores the one before
+     *
+     * @return false if there is no snapshot left
+     */
+    public boolean rewind() {
+        if (end == oldest)
+            return false;
+        end--;
+        int slot = slot(end);
+        if (keyframes[slot] == end) {
+            decode(offsets[slot], lengths[slot], zeros, state);
+            if (reference_index == end)
+                reference_index = -1; // The index will be reused by the next snapshot
+        } else {
+            loadReference(keyframes[slot]);
+            decode(offsets[slot], lengths[slot], reference, state);
+        }
+        write_offset = offsets[slot];
+        countdown = 1;
+        state_buffer.clear();
+        target.loadState(state_buffer);
+        return true;
+    }
+
+    /**
+     * Remove all the snapshots
+     */
+    public void clear() {
+        oldest = 0;
+        end = 0;
+        write_offset = 0;
+        reference_index = -1;
+        countdown = 1;
+    }
+
+    /**
+     * Return the number of snapshots that can be restored
+     *
+     * @return the number of snapshots in the buffer
+     */
+    public int size() {
+        return (int) (end - oldest);
+    }
+
+    /**
+     * Return the number of bytes used by the encoded snapshots
+     *
+     * @return the number of bytes used, at most the budget
+     */
+    public int bytesUsed() {
+        if (end == oldest)
+            return 0;
+        int tail = offsets[slot(oldest)];
+        return write_offset > tail ? write_offset - tail : data.length - tail + write_offset;
+    }
+
+    /**
+     * Return the position of a snapshot in the metadata arrays
+     *
+     * @param index the index of the snapshot
+     * @return the slot of the snapshot
+     */
+    private static int slot(long index) {
+        return (int) (index & (MAX_SNAPSHOTS - 1));
+    }
+
+    /**
+     * Decode a keyframe into the reference, if it isn't already there
+     *
+     * @param key the index of the keyframe
+     */
+    private void loadReference(long key) {
+        if (reference_index == key)
+            return;
+        int slot = slot(key);
+        decode(offsets[slot], lengths[slot], zeros, reference);
+        reference_index = key;
+    }
+
+    /**
+     * Find room in the circular buffer for a snapshot, dropping the oldest keyframes and their snapshots if needed
+     *
+     * @param length the encoded length of the snapshot
+     * @param key    the index of the keyframe of the snapshot, that must not be dropped
+     * @return the offset to write the snapshot at, -1 if it doesn't fit
+     */
+    private int allocate(int length, long key) {
+        while (end != oldest) {
+            if (end - oldest < MAX_SNAPSHOTS) {
+                int tail = offsets[slot(oldest)];
+                if (write_offset > tail) {
+                    if (write_offset + length <= data.length)
+                        return write_offset;
+                    if (length <= tail)
+                        return 0; // The end of the buffer is left unused
+                } else if (write_offset + length <= tail) {
+                    return write_offset;
+                }
+            }
+            if (oldest == key)
+                return -1;
+            //A keyframe is dropped along with all the snapshots encoded against it
+            do {
+                oldest++;
+            } while (oldest != end && keyframes[slot(oldest)] != oldest);
+        }
+        return length <= data.length ? 0 : -1;
+    }
+
+    /**
+     * Encode the current state against a reference into the encoded array
+     *
+     * @param base the state to compute the differences with
+     * @return the encoded length
+     */
+    private int encode(byte[] base) {
+        int size = state.length;
+        int length = 0;
+        int pos = 0;
+        while (pos < size) {
+            int start = pos;
+            while (pos < size && state[pos] == base[pos])
+                pos++;
+            length = putVarint(length, pos - start);
+            //The changed bytes run until MIN_ZERO_RUN unchanged bytes in a row
+            start = pos;
+            int unchanged = 0;
+            while (pos < size && unchanged < MIN_ZERO_RUN) {
+                unchanged = state[pos] == base[pos] ? unchanged + 1 : 0;
+                pos++;
+            }
+            pos -= unchanged;
+            length = putVarint(length, pos - start);
+            for (int i = start; i < pos; i++)
+                encoded[length++] = (byte) (state[i] ^ base[i]);
+        }
+        return length;
+    }
+
+    /**
+     * Decode a snapshot
+     *
+     * @param offset the offset of the snapshot in data
+     * @param length the encoded length of the snapshot
+     * @param base   the state the snapshot has been encoded against
+     * @param out    the array to write the decoded state to
+     */
+    private void decode(int offset, int length, byte[] base, byte[] out) {
+        System.arraycopy(base, 0, out, 0, out.length);
+        int limit = offset + length;
+        int pos = 0;
+        cursor = offset;
+        while (cursor < limit) {
+            pos += getVarint();
+            int count = getVarint();
+            for (int i = 0; i < count; i++)
+                out[pos++] ^= data[cursor++];
+        }
+    }
+
+    /**
+     * Write a positive number to the encoded array, 7 bits per byte, the high bit set if more bytes follow
+     *
+     * @param length the current encoded length
+     * @param value  the number to write
+     * @return the new encoded length
+     */
+    private int putVarint(int length, int value) {
+        while (value >= 0x80) {
+            encoded[length++] = (byte) (value | 0x80);
+            value >>>= 7;
+        }
+        encoded[length++] = (byte) value;
+        return length;
+    }
+
+    /**
+     * Read a number written by putVarint at the cursor
+     *
+     * @return the number read
+     */
+    private int getVarint() {
+        int value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = data[cursor++];
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
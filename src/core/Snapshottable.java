@@ -0,0 +1,52 @@
+package core;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A component of the console whose state can be saved to a binary snapshot and restored from it
+ * The state is written at the position of a caller-provided buffer in a fixed order without any tag,
+ * and read back in the same order, nothing is allocated so a snapshot can be taken every frame
+ */
+public interface Snapshottable {
+
+    /**
+     * Return the number of bytes written by saveState, it doesn't change once the component is created
+     *
+     * @return the size of the state in bytes
+     */
+    int stateSize();
+
+    /**
+     * Write the state to a buffer, the position of the buffer is moved past it
+     *
+     * @param buffer the buffer to write to
+     */
+    void saveState(ByteBuffer buffer);
+
+    /**
+     * Restore the state from a buffer written by saveState, the position of the buffer is moved past it
+     *
+     * @param buffer the buffer to read from
+     */
+    void loadState(ByteBuffer buffer);
+
+    /**
+     * Write a boolean as a single byte
+     *
+     * @param buffer the buffer to write to
+     * @param value  the value to write
+     */
+    static void putBoolean(ByteBuffer buffer, boolean value) {
+        buffer.put((byte) (value ? 1 : 0));
+    }
+
+    /**
+     * Read a boolean written by putBoolean
+     *
+     * @param buffer the buffer to read from
+     * @return the value read
+     */
+    static boolean getBoolean(ByteBuffer buffer) {
+        return buffer.get() != 0;
+    }
+}
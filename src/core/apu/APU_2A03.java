@@ -1,25 +1,38 @@
 package core.apu;
 
 import core.NES;
+import core.Snapshottable;
 import core.apu.channels.DMCChannel;
 import core.apu.channels.NoiseChannel;
 import core.apu.channels.PulseChannel;
 import core.apu.channels.TriangleChannel;
-import utils.AudioSampleCollection;
+import utils.AudioSampleRing;
 
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.nio.ByteBuffer;
 
 /**
  * Here we make the APU (Audio Processing Unit) This will handle all of the sounds made by the NES games.
  */
-public class APU_2A03 {
+public class APU_2A03 implements Snapshottable {
 
-    private static final int VISUALIZER_SAMPLE_SIZE = 256;
-    private static final double CLOCK_TIME = .333333333 / 1789773.0;
+    private static final int VISUALIZER_SAMPLE_SIZE = 512; // Twice what the visualizer displays, so it can read while the APU writes
+    private static final int VISUALIZER_PERIOD = 203; // CPU cycles between 2 visualizer samples (about 5 output samples)
+    private static final double CPU_CLOCK_RATE = 1789773.0;
+    private static final int AMPLITUDE_SCALE = 1 << 14; // Integer amplitude of a mixer output of 1.0
+    private static final int AUDIO_FRAME_CYCLES = 512; // CPU cycles after which the resampled samples are made available
+    private static final int AUDIO_BUFFER_SIZE = 4096;
+
+    //Mixer output for each sum of the pulse levels (p1 + p2) and each tnd index (3 * t + 2 * n + d)
+    private static final int[] pulse_table = buildMixerTable(31, 95.52, 8128.0);
+    private static final int[] tnd_table = buildMixerTable(203, 163.67, 24329.0);
+    private static final int[] pulse_linear_table = buildLinearTable(31, 0.00752 * 1.5);
+    private static final int[] tnd_linear_table = buildLinearTable(203, 0.00335 * 1.5);
+
+    //Frame counter values of the quarter frame steps, the half frame steps are the 2nd and the 4th, the counter wraps after the 4th
+    private static final int[] four_step_sequence = {3729, 7457, 11186, 14916};
+    private static final int[] five_step_sequence = {3729, 7457, 11186, 18641};
 
     private static double volume = 1;
-    private static int skip_audio_sample = 2;
 
     public static final int[] length_table = {
             10, 254, 20, 2, 40, 4, 80, 6, 160, 8, 60,
@@ -31,12 +44,13 @@ public class APU_2A03 {
     private final TriangleChannel triangle;
     private final NoiseChannel noise;
     private final DMCChannel dmc;
-    private final Queue<AudioSampleCollection> audio_visualizer_queue;
+    private final AudioSampleRing visualizer_ring;
+    private final BlipBuffer blip_buffer;
 
-    private int clock_counter = 0;
-    private double total_time = 0.0;
-    private int frame_counter = 0;
-    private int cycle_remaining_since_4017_write = -1;
+    private long cycle = 0; // CPU cycle the APU has been brought up to (excluded)
+    private long frame_origin = -1; // APU cycle at which the frame counter was 0
+    private long frame_reset = -1; // APU cycle at which the frame counter restarts after a write to 0x4017, -1 if none
+    private long frame_event; // CPU cycle of the next step of the frame counter
 
     private boolean frame_IRQ = false;
     private boolean flag_IRQ_inhibit = false;
@@ -50,8 +64,16 @@ public class APU_2A03 {
     private boolean dmc_rendered = true;
     private boolean linear_out = false;
 
-    private int cycles_until_visualizer_sample = 0;
-    private int audio_sample_until_skip = 0;
+    private boolean enable_sampling = true;
+    private long next_visualizer_sample = 0;
+
+    private long audio_frame_start = 0;
+    private int sample_rate = 44100;
+    private double rate_ratio = 1.0;
+    private boolean rate_changed = false;
+    private int mixer_amplitude = 0;
+    private int output_amplitude = 0;
+    private int last_p1 = 0, last_p2 = 0, last_t = 0, last_n = 0, last_d = 0;
 
     /**
      * Create a new instance of an APU
@@ -62,7 +84,34 @@ public class APU_2A03 {
         triangle = new TriangleChannel();
         noise = new NoiseChannel();
         dmc = new DMCChannel(nes);
-        audio_visualizer_queue = new ConcurrentLinkedQueue<>();
+        visualizer_ring = new AudioSampleRing(VISUALIZER_SAMPLE_SIZE);
+        blip_buffer = new BlipBuffer(AUDIO_BUFFER_SIZE);
+        frame_event = nextFrameEvent(0);
+    }
+
+    /**
+     * Set the host sample rate the output is resampled to
+     *
+     * @param sample_rate the number of samples per second
+     */
+    public void setSampleRate(int sample_rate) {
+        this.sample_rate = sample_rate;
+        rate_ratio = 1.0;
+        rate_changed = false;
+        blip_buffer.setRates(CPU_CLOCK_RATE, sample_rate);
+        blip_buffer.clear();
+        audio_frame_start = cycle;
+    }
+
+    /**
+     * Slightly speed up or slow down the production of samples relative to the host sample rate
+     * Used to keep the audio output buffer at a steady level, the change takes effect at the end of the current audio frame
+     *
+     * @param ratio the number of samples produced for each host sample (close to 1)
+     */
+    public void setRateRatio(double ratio) {
+        rate_ratio = ratio;
+        rate_changed = true;
     }
 
     /**
@@ -83,53 +132,121 @@ public class APU_2A03 {
         return volume;
     }
 
-    public static void setSampleSkip(int sampleSkip) {
-        skip_audio_sample = sampleSkip;
+    /**
+     * Return the number of resampled audio samples ready to be read
+     *
+     * @return the number of samples that can be read
+     */
+    public int samplesAvailable() {
+        return blip_buffer.samplesAvailable();
+    }
+
+    /**
+     * Render all the audio samples produced since the last call in one go, scaled by the master volume
+     * The samples of a whole slice of emulation are handed over at once, the Mixer isn't run per sample
+     *
+     * @param out    the array to write the samples to
+     * @param offset the index of the first sample to write
+     * @param count  the maximum number of samples to render
+     * @return the number of samples rendered
+     */
+    public int renderSamples(float[] out, int offset, int count) {
+        return blip_buffer.readSamples(out, offset, count, (float) (volume / AMPLITUDE_SCALE));
+    }
+
+    /**
+     * Build a lookup table of the non linear Mixer output, entry n is scale / (divisor / n + 100)
+     *
+     * @param size    the number of input levels
+     * @param scale   the numerator of the Mixer formula
+     * @param divisor the divisor of the input level in the Mixer formula
+     * @return the table of Mixer outputs, in integer amplitude units
+     */
+    private static int[] buildMixerTable(int size, double scale, double divisor) {
+        int[] table = new int[size];
+        for (int n = 1; n < size; n++)
+            table[n] = (int) Math.round(scale / (divisor / n + 100) * AMPLITUDE_SCALE);
+        return table;
     }
 
     /**
-     * Return the current audio sample as a value between -1 and 1
+     * Build a lookup table of a linear Mixer output, entry n is n * slope
      *
-     * @return the current audio sample as a value between -1 and 1
+     * @param size  the number of input levels
+     * @param slope the output for an input level of 1
+     * @return the table of Mixer outputs, in integer amplitude units
      */
-    public double getSample(boolean update_visual) {
-        double sample;
-        double p1 = pulse_1_rendered ? pulse_1.sample * 15 : 0;
-        double p2 = pulse_2_rendered ? pulse_2.sample * 15 : 0;
-        double t = triangle_rendered ? triangle.sample * 15 : 0;
-        double n = noise_rendered ? noise.sample * 15 : 0;
-        double d = dmc_rendered ? dmc.output * 128 : 0;
-        if (linear_out)
-            sample = (0.00752 * (p1 + p2) + 0.00851 * t + 0.00494 * n + 0.00335 * d) * 1.5;
-        else {
-            double pulse = (p1 + p2 == 0) ? 0 : 95.88 / ((8128.0 / (p1 + p2)) + 100);
-            double tnd = (t == 0 && n == 0 && d == 0) ? 0 : 159.79 / (1.0 / (t / 8227.0 + n / 12241.0 + d / 22638.0) + 100);
-            sample = pulse + tnd;
+    private static int[] buildLinearTable(int size, double slope) {
+        int[] table = new int[size];
+        for (int n = 1; n < size; n++)
+            table[n] = (int) Math.round(n * slope * AMPLITUDE_SCALE);
+        return table;
+    }
+
+    /**
+     * Compute the output of the Mixer and send it to the resampler if it has changed
+     * The Mixer only runs when one of the channels has changed, the integer DAC levels directly index the lookup tables
+     */
+    private void mixOutput() {
+        int p1 = pulse_1_rendered ? pulse_1.output : 0;
+        int p2 = pulse_2_rendered ? pulse_2.output : 0;
+        int t = triangle_rendered ? triangle.output : 0;
+        int n = noise_rendered ? noise.output : 0;
+        int d = dmc_rendered ? dmc.output : 0;
+        if (p1 != last_p1 || p2 != last_p2 || t != last_t || n != last_n || d != last_d) {
+            if (linear_out)
+                mixer_amplitude = pulse_linear_table[p1 + p2] + tnd_linear_table[3 * t + 2 * n + d];
+            else
+                mixer_amplitude = pulse_table[p1 + p2] + tnd_table[3 * t + 2 * n + d];
+            last_p1 = p1;
+            last_p2 = p2;
+            last_t = t;
+            last_n = n;
+            last_d = d;
         }
+        int amplitude = enable_sampling ? mixer_amplitude : 0;
+        if (amplitude != output_amplitude) {
+            while (cycle >= audio_frame_start + AUDIO_FRAME_CYCLES)
+                endAudioFrame();
+            blip_buffer.addDelta((int) (cycle - audio_frame_start), amplitude - output_amplitude);
+            output_amplitude = amplitude;
+        }
+    }
 
-        if (update_visual) {
-            if (cycles_until_visualizer_sample == 0) {
-                if (audio_visualizer_queue.size() >= VISUALIZER_SAMPLE_SIZE)
-                    audio_visualizer_queue.poll();
-
-                AudioSampleCollection sampleCollection = new AudioSampleCollection();
-                sampleCollection.pulse1 = pulse_1_rendered ? pulse_1.sample : 0;
-                sampleCollection.pulse2 = pulse_2_rendered ? pulse_2.sample : 0;
-                sampleCollection.triangle = triangle_rendered ? triangle.sample : 0;
-                sampleCollection.noise = noise_rendered ? noise.sample : 0;
-                sampleCollection.dmc = dmc_rendered ? dmc.output : 0;
-                sampleCollection.mixer = sample * 1.5;
-                audio_visualizer_queue.offer(sampleCollection);
-
-                cycles_until_visualizer_sample = 1280 / VISUALIZER_SAMPLE_SIZE;
-            }
-            cycles_until_visualizer_sample--;
+    /**
+     * Make the resampled output of the current audio frame available and start the next one
+     * A pending change of the resampling ratio is applied between the 2 frames
+     */
+    private void endAudioFrame() {
+        blip_buffer.endFrame(AUDIO_FRAME_CYCLES, AUDIO_FRAME_CYCLES);
+        audio_frame_start += AUDIO_FRAME_CYCLES;
+        if (rate_changed) {
+            blip_buffer.setRates(CPU_CLOCK_RATE, sample_rate * rate_ratio);
+            rate_changed = false;
         }
-        return sample * 2 * volume;
     }
 
-    public Queue<AudioSampleCollection> getAudioVisualizerQueue() {
-        return audio_visualizer_queue;
+    /**
+     * Push the current output of the channels and of the Mixer to the visualizer
+     */
+    private void pushVisualizerSample() {
+        visualizer_ring.push(
+                pulse_1_rendered ? pulse_1.output / 30f : 0,
+                pulse_2_rendered ? pulse_2.output / 30f : 0,
+                triangle_rendered ? triangle.output / 30f : 0,
+                noise_rendered ? noise.output / 30f : 0,
+                dmc_rendered ? dmc.output / 254f : 0,
+                (float) mixer_amplitude / AMPLITUDE_SCALE
+        );
+    }
+
+    /**
+     * Return the ring the visualizer samples are pushed to
+     *
+     * @return the visualizer ring
+     */
+    public AudioSampleRing getVisualizerRing() {
+        return visualizer_ring;
     }
 
     /**
@@ -198,7 +315,8 @@ public class APU_2A03 {
         for (int i = 0x4010; i < 0x4013; i++)
             cpuWrite(i, 0x00);
         noise.setSequence(0xDBDB);
-        frame_counter = 15;
+        frame_origin = ((cycle + 1) >> 1) - 16; // The frame counter is at 15
+        frame_event = nextFrameEvent((cycle + 1) >> 1);
         cpuWrite(0x4015, 0x00);
     }
 
@@ -208,6 +326,7 @@ public class APU_2A03 {
      * @param addr the address to write to
      */
     public void cpuWrite(int addr, int data) {
+        syncChannels();
         //If bit 7 is set quarter and half frame signals ar triggered
         switch (addr) {
             case 0x4000 -> pulse_1.writeDutyCycle(data);
@@ -268,7 +387,9 @@ public class APU_2A03 {
                 flag_5_step_mode = (data & 0x80) == 0x80;
                 flag_IRQ_inhibit = (data & 0x40) == 0x40;
                 if (flag_IRQ_inhibit) frame_IRQ = false;
-                cycle_remaining_since_4017_write = 4;
+                //The frame counter is reset after 4 CPU cycles (2 APU cycles), on the 3rd APU cycle
+                frame_reset = ((cycle + 1) >> 1) + 2;
+                frame_event = nextFrameEvent((cycle + 1) >> 1);
                 if (flag_5_step_mode) {
                     pulse_1.clockLengthCounter();
                     pulse_1.clockEnvelope();
@@ -286,6 +407,9 @@ public class APU_2A03 {
                 }
             }
         }
+        //The new state of the channels is taken into account right away
+        syncChannels();
+        mixOutput();
     }
 
     /**
@@ -312,86 +436,255 @@ public class APU_2A03 {
     }
 
     /**
-     * A system clock of the APU, sampling can be deactivated for better performance
+     * Bring the APU up to a CPU cycle, sampling can be deactivated for better performance
      * but there will be no sound
-     * when sampling is disabled we only update what is susceptible to be read (the length counters)
+     * when sampling is disabled we only update what is susceptible to be read (the length counters, the IRQs and the DMC)
+     * Nothing is done cycle by cycle, the APU jumps from one event to the next: a step of the frame counter,
+     * a change of the output of a channel, the end of an audio frame or a visualizer sample.
+     * Silent or disabled channels are skipped and only brought up to date in closed form when their state is modified
      *
+     * @param target          the CPU cycle to reach (excluded)
      * @param enable_sampling if sampling is enabled
+     * @param update_visual   should the visualizer be updated
      */
-    public void clock(boolean enable_sampling, double timePerClock) {
-        boolean quarter_frame = false;
-        boolean half_frame = false;
+    public void runUntil(long target, boolean enable_sampling, boolean update_visual) {
+        if (enable_sampling != this.enable_sampling) {
+            syncChannels();
+            this.enable_sampling = enable_sampling;
+            syncChannels();
+            mixOutput();
+        }
+        if (update_visual && next_visualizer_sample < cycle)
+            next_visualizer_sample = cycle;
+
+        while (cycle < target) {
+            long next = Math.min(target, Math.min(frame_event, audio_frame_start + AUDIO_FRAME_CYCLES));
+            if (update_visual)
+                next = Math.min(next, next_visualizer_sample);
+            next = Math.min(next, dmc.nextChange());
+            if (enable_sampling) {
+                next = Math.min(next, Math.min(pulse_1.nextChange(), pulse_2.nextChange()));
+                next = Math.min(next, Math.min(triangle.nextChange(), noise.nextChange()));
+            }
+            cycle = next;
+            if (cycle == target)
+                break;
+
+            //Events of the same cycle are handled in the order of the hardware
+            if (cycle == audio_frame_start + AUDIO_FRAME_CYCLES)
+                endAudioFrame();
+            if (cycle == frame_event)
+                clockFrameCounter();
+            if (enable_sampling) {
+                if (pulse_1.nextChange() == cycle)
+                    pulse_1.catchUp(cycle + 1);
+                if (pulse_2.nextChange() == cycle)
+                    pulse_2.catchUp(cycle + 1);
+                if (triangle.nextChange() == cycle)
+                    triangle.catchUp(cycle + 1);
+                if (noise.nextChange() == cycle)
+                    noise.catchUp(cycle + 1);
+            }
+            if (dmc.nextChange() == cycle)
+                dmc.catchUp(cycle + 1);
+            mixOutput();
+            if (update_visual && cycle == next_visualizer_sample) {
+                pushVisualizerSample();
+                next_visualizer_sample += VISUALIZER_PERIOD;
+            }
+        }
+    }
 
-        total_time += CLOCK_TIME;
-        if (clock_counter % 3 == 0) {
-            dmc.clock();
-            if (enable_sampling)
-                triangle.computeSample(timePerClock / 3, raw_audio);
-            if (clock_counter % 6 == 0) {
-                //A write to 0x4017 will cause the frame counter to be reset after 4 CPU cycles (2 APU cycles)
-                if (cycle_remaining_since_4017_write == 0) {
-                    frame_counter = 0;
-                    cycle_remaining_since_4017_write = -1;
-                }
-                if (cycle_remaining_since_4017_write >= 0)
-                    cycle_remaining_since_4017_write -= 2;
+    /**
+     * Return the CPU cycle the APU has been brought up to
+     *
+     * @return the CPU cycle the APU will run next
+     */
+    public long getCycle() {
+        return cycle;
+    }
 
-                frame_counter++;
-                if (flag_5_step_mode) {
-                    quarter_frame = frame_counter == 3729 || frame_counter == 7457 || frame_counter == 11186 || frame_counter == 18641;
-                    half_frame = frame_counter == 7457 || frame_counter == 18641;
-                    if (frame_counter == 18641)
-                        frame_counter = 0;
-                } else {
-                    quarter_frame = frame_counter == 3729 || frame_counter == 7457 || frame_counter == 11186 || frame_counter == 14916;
-                    half_frame = frame_counter == 7457 || frame_counter == 14916;
-                    if (frame_counter == 14916) {
-                        frame_counter = 0;
-                        if (!flag_IRQ_inhibit)
-                            frame_IRQ = true;
-                    }
-                }
-                if (quarter_frame) {
-                    triangle.clockLinearCounter();
-                    if (enable_sampling) {
-                        pulse_1.clockEnvelope();
-                        pulse_2.clockEnvelope();
-                        noise.clockEnvelope();
-                    }
-                }
-                if (half_frame) {
-                    pulse_1.clockLengthCounter();
-                    pulse_2.clockLengthCounter();
-                    triangle.clockLengthCounter();
-                    noise.clockLengthCounter();
-                    pulse_1.clockSweeper(0);
-                    pulse_2.clockSweeper(1);
-                }
-                if (enable_sampling) {
-                    if (audio_sample_until_skip >= skip_audio_sample) {
-                        pulse_1.computeSample(total_time, raw_audio);
-                        pulse_2.computeSample(total_time, raw_audio);
-                        noise.computeSample();
-                        dmc.computeSample();
-                        audio_sample_until_skip = 0;
-                    }
-                    audio_sample_until_skip++;
-                }
+    /**
+     * Return the next CPU cycle at which the APU will change a state the CPU sees without reading a register:
+     * the frame IRQ or a DMC memory read (that halts the CPU and can trigger an IRQ)
+     * The APU must be brought up to that cycle for its effect to be visible on time
+     *
+     * @return the CPU cycle of the next event visible to the CPU, Long.MAX_VALUE if none is scheduled
+     */
+    public long nextSyncCycle() {
+        long sync = dmc.nextFetch();
+        if (!flag_5_step_mode && !flag_IRQ_inhibit && !frame_IRQ) {
+            long irq = frame_origin + four_step_sequence[3];
+            if (frame_reset >= 0 && irq >= frame_reset)
+                irq = frame_reset - 1 + four_step_sequence[3];
+            if (irq >= (cycle + 1) >> 1)
+                sync = Math.min(sync, irq << 1);
+        }
+        return sync;
+    }
+
+    @Override
+    public int stateSize() {
+        return 4 * 8 + 3 + pulse_1.stateSize() + pulse_2.stateSize() + triangle.stateSize() + noise.stateSize() + dmc.stateSize();
+    }
+
+    /**
+     * Write the frame counter and the channels state
+     * The resampler and the rendering options are part of the host output and aren't saved
+     *
+     * @param buffer the buffer to write to
+     */
+    @Override
+    public void saveState(ByteBuffer buffer) {
+        buffer.putLong(cycle);
+        buffer.putLong(frame_origin);
+        buffer.putLong(frame_reset);
+        buffer.putLong(frame_event);
+        Snapshottable.putBoolean(buffer, frame_IRQ);
+        Snapshottable.putBoolean(buffer, flag_IRQ_inhibit);
+        Snapshottable.putBoolean(buffer, flag_5_step_mode);
+        pulse_1.saveState(buffer);
+        pulse_2.saveState(buffer);
+        triangle.saveState(buffer);
+        noise.saveState(buffer);
+        dmc.saveState(buffer);
+    }
+
+    /**
+     * Restore the frame counter and the channels state
+     * The audio frame keeps its position relative to the current cycle, so the output continues without a gap
+     * and only steps to the level of the restored channels
+     *
+     * @param buffer the buffer to read from
+     */
+    @Override
+    public void loadState(ByteBuffer buffer) {
+        long audio_frame_position = cycle - audio_frame_start;
+        long visualizer_delay = next_visualizer_sample - cycle;
+        cycle = buffer.getLong();
+        frame_origin = buffer.getLong();
+        frame_reset = buffer.getLong();
+        frame_event = buffer.getLong();
+        frame_IRQ = Snapshottable.getBoolean(buffer);
+        flag_IRQ_inhibit = Snapshottable.getBoolean(buffer);
+        flag_5_step_mode = Snapshottable.getBoolean(buffer);
+        pulse_1.loadState(buffer);
+        pulse_2.loadState(buffer);
+        triangle.loadState(buffer);
+        noise.loadState(buffer);
+        dmc.loadState(buffer);
+        audio_frame_start = cycle - audio_frame_position;
+        next_visualizer_sample = cycle + visualizer_delay;
+        last_p1 = -1; // The Mixer output needs to be recomputed
+        mixOutput();
+    }
+
+    /**
+     * Bring all the channels up to the current cycle
+     * When sampling is disabled, only the DMC is clocked
+     */
+    private void syncChannels() {
+        if (enable_sampling) {
+            pulse_1.catchUp(cycle);
+            pulse_2.catchUp(cycle);
+            triangle.catchUp(cycle);
+            noise.catchUp(cycle);
+        } else {
+            pulse_1.skip(cycle);
+            pulse_2.skip(cycle);
+            triangle.skip(cycle);
+            noise.skip(cycle);
+        }
+        dmc.catchUp(cycle);
+    }
+
+    /**
+     * Compute the step of the frame counter happening on the current cycle
+     * and send the quarter frame and half frame signals to the channels
+     */
+    private void clockFrameCounter() {
+        long apu_cycle = cycle >> 1;
+        if (apu_cycle == frame_reset) {
+            frame_origin = apu_cycle - 1; // The frame counter restarts at 1
+            frame_reset = -1;
+        } else {
+            int[] sequence = flag_5_step_mode ? five_step_sequence : four_step_sequence;
+            int step = 0;
+            while (frame_origin + sequence[step] != apu_cycle)
+                step++;
+            //The triangle is clocked by the CPU clock, before the frame counter
+            if (enable_sampling)
+                triangle.catchUp(cycle + 1);
+            syncChannels();
+            triangle.clockLinearCounter();
+            if (enable_sampling) {
+                pulse_1.clockEnvelope();
+                pulse_2.clockEnvelope();
+                noise.clockEnvelope();
+            }
+            if (step == 1 || step == 3) {
+                pulse_1.clockLengthCounter();
+                pulse_2.clockLengthCounter();
+                triangle.clockLengthCounter();
+                noise.clockLengthCounter();
+                pulse_1.clockSweeper(0);
+                pulse_2.clockSweeper(1);
             }
+            if (step == 3) {
+                frame_origin = apu_cycle;
+                if (!flag_5_step_mode && !flag_IRQ_inhibit)
+                    frame_IRQ = true;
+            }
+            syncChannels();
         }
-        pulse_1.trackSweeper();
-        pulse_2.trackSweeper();
+        frame_event = nextFrameEvent(apu_cycle + 1);
+    }
 
-        clock_counter++;
+    /**
+     * Compute the CPU cycle of the next step of the frame counter (or of its restart after a write to 0x4017)
+     *
+     * @param from the first APU cycle to consider
+     * @return the CPU cycle of the next step, Long.MAX_VALUE if the frame counter is past its last step
+     */
+    private long nextFrameEvent(long from) {
+        for (int value : flag_5_step_mode ? five_step_sequence : four_step_sequence) {
+            long apu_cycle = frame_origin + value;
+            if (apu_cycle >= from && (frame_reset < 0 || apu_cycle < frame_reset))
+                return apu_cycle << 1;
+        }
+        return frame_reset >= 0 ? frame_reset << 1 : Long.MAX_VALUE;
+    }
+
+    /**
+     * Return the number of APU cycles (even CPU cycles) in a range of CPU cycles
+     *
+     * @param from the first CPU cycle of the range
+     * @param to   the end of the range (excluded)
+     * @return the number of APU cycles in the range
+     */
+    public static int apuCycles(long from, long to) {
+        return (int) (((to + 1) >> 1) - ((from + 1) >> 1));
+    }
+
+    /**
+     * Return the CPU cycle of an APU cycle
+     *
+     * @param from the CPU cycle to count from
+     * @param n    the number of APU cycles to skip (0 for the first APU cycle at or after from)
+     * @return the CPU cycle of the APU cycle
+     */
+    public static long apuCycleTime(long from, int n) {
+        return ((from + 1) & ~1L) + 2L * n;
     }
 
     /**
-     * Enable or Disable RAW Audio mode
+     * Enable or Disable RAW Audio mode, the output is resampled without band-limiting
      *
      * @param raw should RAW Audio be triggered or not
      */
     public void enabledRawMode(boolean raw) {
         raw_audio = raw;
+        blip_buffer.setRaw(raw);
     }
 
     /**
@@ -469,5 +762,6 @@ public class APU_2A03 {
 
     public void setLinear(boolean linear) {
         linear_out = linear;
+        last_p1 = -1; // The Mixer output needs to be recomputed
     }
 }
@@ -0,0 +1,188 @@
+package core.apu;
+
+import java.util.Arrays;
+
+/**
+ * This class resamples the APU output from the CPU clock rate to the host sample rate
+ * The APU gives it amplitude deltas timestamped in CPU cycles, each delta is added to the buffer
+ * as a band-limited step (a windowed sinc impulse, integrated when the samples are read)
+ * Time is kept in fixed point (32 fractional bits of an output sample), no floating point work is done per delta
+ */
+public class BlipBuffer {
+
+    private static final int TIME_BITS = 32;
+    private static final int PHASE_BITS = 5;
+    private static final int PHASES = 1 << PHASE_BITS;
+    private static final int WIDTH = 16;        // Number of output samples affected by a delta
+    private static final int KERNEL_BITS = 15;  // A kernel sums to 1 << KERNEL_BITS
+
+    private static final int[][] kernel = buildKernel();
+
+    private final int[] buffer;
+    private long factor = 0;   // Output samples per CPU cycle, fixed point
+    private long offset = 0;   // Position of the start of the current frame, fixed point
+    private long integrator = 0;
+    private int used = WIDTH;  // End of the part of the buffer touched by the deltas
+    private boolean raw = false;
+
+    /**
+     * Create a new buffer
+     *
+     * @param size the maximum number of output samples waiting to be read
+     */
+    public BlipBuffer(int size) {
+        buffer = new int[size + WIDTH];
+    }
+
+    /**
+     * Set the input and output rates
+     * The rates must only be changed between 2 frames
+     *
+     * @param clock_rate  the number of CPU cycles per second
+     * @param sample_rate the number of output samples per second
+     */
+    public void setRates(double clock_rate, double sample_rate) {
+        factor = Math.round(sample_rate / clock_rate * (1L << TIME_BITS));
+    }
+
+    /**
+     * Enable or disable the raw mode, where the deltas are added as plain steps, without band-limiting
+     *
+     * @param raw should the deltas be added as plain steps
+     */
+    public void setRaw(boolean raw) {
+        this.raw = raw;
+    }
+
+    /**
+     * Clear the buffer and the pending samples
+     */
+    public void clear() {
+        offset = 0;
+        integrator = 0;
+        used = WIDTH;
+        Arrays.fill(buffer, 0);
+    }
+
+    /**
+     * Add an amplitude change at a given time of the current frame
+     *
+     * @param time  the time of the change, in CPU cycles since the start of the frame
+     * @param delta the amplitude change
+     */
+    public void addDelta(int time, int delta) {
+        long position = offset + time * factor;
+        int index = (int) (position >>> TIME_BITS);
+        if (raw) {
+            //Aligned on the central tap to keep the same latency as a band-limited step
+            buffer[index + WIDTH / 2 - 1] += delta << KERNEL_BITS;
+            if (index + WIDTH > used)
+                used = index + WIDTH;
+            return;
+        }
+        int[] taps = kernel[(int) (position >>> (TIME_BITS - PHASE_BITS)) & (PHASES - 1)];
+        for (int i = 0; i < WIDTH; i++)
+            buffer[index + i] += taps[i] * delta;
+        if (index + WIDTH > used)
+            used = index + WIDTH;
+    }
+
+    /**
+     * End the current frame, the samples before its end become available
+     * If the reader is too late, the oldest samples are dropped to make room for the next frame
+     *
+     * @param duration the duration of the frame in CPU cycles
+     * @param next_duration the maximum duration of the next frame in CPU cycles
+     */
+    public void endFrame(int duration, int next_duration) {
+        offset += duration * factor;
+        int excess = samplesAvailable() + (int) ((next_duration * factor) >>> TIME_BITS) + 1 + WIDTH - buffer.length;
+        if (excess > 0)
+            skipSamples(excess);
+    }
+
+    /**
+     * @return the number of samples that can be read
+     */
+    public int samplesAvailable() {
+        return (int) (offset >>> TIME_BITS);
+    }
+
+    /**
+     * Read samples from the buffer and remove them
+     *
+     * @param out    the array to write the samples to
+     * @param start  the index of the first sample to write
+     * @param count  the maximum number of samples to read
+     * @param gain   the factor applied to the amplitude
+     * @return the number of samples read
+     */
+    public int readSamples(float[] out, int start, int count, float gain) {
+        count = Math.min(count, samplesAvailable());
+        float scale = gain / (1 << KERNEL_BITS);
+        long sum = integrator;
+        for (int i = 0; i < count; i++) {
+            sum += buffer[i];
+            out[start + i] = sum * scale;
+        }
+        integrator = sum;
+        removeSamples(count);
+        return count;
+    }
+
+    /**
+     * Drop samples without reading them, the amplitude is kept
+     *
+     * @param count the number of samples to drop
+     */
+    private void skipSamples(int count) {
+        long sum = integrator;
+        for (int i = 0; i < count; i++)
+            sum += buffer[i];
+        integrator = sum;
+        removeSamples(count);
+    }
+
+    /**
+     * Shift the remaining samples and the deltas of the current frame to the start of the buffer
+     *
+     * @param count the number of samples removed
+     */
+    private void removeSamples(int count) {
+        int remaining = Math.max(used, samplesAvailable() + WIDTH) - count;
+        System.arraycopy(buffer, count, buffer, 0, remaining);
+        Arrays.fill(buffer, remaining, remaining + count, 0);
+        used = remaining;
+        offset -= (long) count << TIME_BITS;
+    }
+
+    /**
+     * Build the impulse of a band-limited step for each sub-sample phase
+     * A Blackman windowed sinc with a cutoff slightly below half the output rate, normalized so each phase sums to 1 << KERNEL_BITS
+     *
+     * @return the kernel taps indexed by phase
+     */
+    private static int[][] buildKernel() {
+        double cutoff = 0.9;
+        int[][] taps = new int[PHASES][WIDTH];
+        for (int phase = 0; phase < PHASES; phase++) {
+            double[] impulse = new double[WIDTH];
+            double total = 0;
+            for (int i = 0; i < WIDTH; i++) {
+                double x = i - (WIDTH / 2 - 1) - (double) phase / PHASES;
+                double sinc = x == 0 ? 1 : Math.sin(Math.PI * cutoff * x) / (Math.PI * cutoff * x);
+                double window = 0.42 + 0.5 * Math.cos(Math.PI * x / (WIDTH / 2)) + 0.08 * Math.cos(2 * Math.PI * x / (WIDTH / 2));
+                impulse[i] = sinc * window;
+                total += impulse[i];
+            }
+            int sum = 0;
+            for (int i = 0; i < WIDTH; i++) {
+                taps[phase][i] = (int) Math.round(impulse[i] / total * (1 << KERNEL_BITS));
+                sum += taps[phase][i];
+            }
+            //The rounding error goes to the central tap so a step always reaches its exact amplitude
+            taps[phase][WIDTH / 2 - 1] += (1 << KERNEL_BITS) - sum;
+        }
+        return taps;
+    }
+}
@@ -1,12 +1,15 @@
 package core.apu.channels;
 
 import core.NES;
+import core.Snapshottable;
 import core.apu.channels.components.dmc.MemoryReader;
 
+import java.nio.ByteBuffer;
+
 /**
  * This class represents a DMC Channel of the APU
  */
-public class DMCChannel {
+public class DMCChannel implements Snapshottable {
 
     private static final int[] rate_table = {428, 380, 340, 320, 286, 254, 226, 214, 190, 160, 142, 128, 106, 84, 72, 54};
 
@@ -14,7 +17,9 @@ public class DMCChannel {
     private final MemoryReader memoryReader;
     private final OutputUnit outputUnit;
 
-    public double output = 0;
+    public int output = 0; // DAC level (0 - 127)
+
+    private long last_cycle = 0; // CPU cycle the channel has been brought up to (excluded)
 
     private boolean interrupt = false;
     private boolean irqEnabled = false;
@@ -83,16 +88,63 @@ public class DMCChannel {
     }
 
     /**
-     * Clock the channel and decrement its timer
+     * Bring the channel up to a CPU cycle
+     * The timer is decremented every CPU cycle and checked every APU cycle (even CPU cycles),
+     * the channel is only updated at the cycles where its timer expires or a sample byte has to be fetched
+     *
+     * @param cycle the CPU cycle to reach (excluded), nothing is run if the channel is already past it
      */
-    public void clock() {
-        counter--;
+    public void catchUp(long cycle) {
+        long next;
+        while ((next = nextUpdate()) < cycle) {
+            counter -= (int) (next + 1 - last_cycle);
+            last_cycle = next + 1;
+            computeSample();
+        }
+        if (cycle > last_cycle) {
+            counter -= (int) (cycle - last_cycle);
+            last_cycle = cycle;
+        }
+        output = outputUnit.output;
     }
 
     /**
-     * Compute the sample of the channel
+     * Return the CPU cycle at which the output of the channel may change next, if its state isn't modified before
+     *
+     * @return the CPU cycle of the next update, Long.MAX_VALUE if the channel is silent
      */
-    public void computeSample() {
+    public long nextChange() {
+        if (outputUnit.silence && sample_buffer == 0x00 && memoryReader.getBytesRemaining() == 0)
+            return Long.MAX_VALUE;
+        return nextUpdate();
+    }
+
+    /**
+     * Return the CPU cycle at which the channel will read the memory next, if its state isn't modified before
+     * The CPU is halted during a read, and the end of a sample can trigger an IRQ
+     *
+     * @return the CPU cycle of the next update, Long.MAX_VALUE if no sample is playing
+     */
+    public long nextFetch() {
+        return memoryReader.getBytesRemaining() > 0 ? nextUpdate() : Long.MAX_VALUE;
+    }
+
+    /**
+     * Return the next APU cycle (as a CPU cycle) at which the channel has to be updated
+     *
+     * @return the CPU cycle of the next update
+     */
+    private long nextUpdate() {
+        long apu_cycle = (last_cycle + 1) & ~1L;
+        if (outputUnit.bits_remaining == 0 || (sample_buffer == 0x00 && memoryReader.getBytesRemaining() > 0))
+            return apu_cycle;
+        return Math.max(apu_cycle, (last_cycle + counter) & ~1L);
+    }
+
+    /**
+     * Update the channel on an APU cycle
+     */
+    private void computeSample() {
         // If the sub-sample is finished but the sample isn't we fetch the next one
         if (sample_buffer == 0x00 && memoryReader.getBytesRemaining() > 0) {
             // The CPU is halted for 4 cycles
@@ -134,8 +186,6 @@ public class DMCChannel {
                 sample_buffer = 0x00;
             }
         }
-        // The output is pushed to the DAC
-        output = (output + (outputUnit.output / 64.0)) / 4;
     }
 
     /**
@@ -169,6 +219,51 @@ public class DMCChannel {
     public boolean hasInterruptTriggered() {
         return interrupt;
     }
+
+    @Override
+    public int stateSize() {
+        return 4 + 8 + 3 + 5 * 4 + 2 * 4 + 3 * 4 + 1;
+    }
+
+    @Override
+    public void saveState(ByteBuffer buffer) {
+        buffer.putInt(output);
+        buffer.putLong(last_cycle);
+        Snapshottable.putBoolean(buffer, interrupt);
+        Snapshottable.putBoolean(buffer, irqEnabled);
+        Snapshottable.putBoolean(buffer, loop);
+        buffer.putInt(sample_address);
+        buffer.putInt(sample_length);
+        buffer.putInt(sample_buffer);
+        buffer.putInt(rate);
+        buffer.putInt(counter);
+        buffer.putInt(memoryReader.getCurrentAddress());
+        buffer.putInt(memoryReader.getBytesRemaining());
+        buffer.putInt(outputUnit.shift_register);
+        buffer.putInt(outputUnit.bits_remaining);
+        buffer.putInt(outputUnit.output);
+        Snapshottable.putBoolean(buffer, outputUnit.silence);
+    }
+
+    @Override
+    public void loadState(ByteBuffer buffer) {
+        output = buffer.getInt();
+        last_cycle = buffer.getLong();
+        interrupt = Snapshottable.getBoolean(buffer);
+        irqEnabled = Snapshottable.getBoolean(buffer);
+        loop = Snapshottable.getBoolean(buffer);
+        sample_address = buffer.getInt();
+        sample_length = buffer.getInt();
+        sample_buffer = buffer.getInt();
+        rate = buffer.getInt();
+        counter = buffer.getInt();
+        memoryReader.setCurrentAddress(buffer.getInt());
+        memoryReader.setBytesRemaining(buffer.getInt());
+        outputUnit.shift_register = buffer.getInt();
+        outputUnit.bits_remaining = buffer.getInt();
+        outputUnit.output = buffer.getInt();
+        outputUnit.silence = Snapshottable.getBoolean(buffer);
+    }
 }
 
 /**
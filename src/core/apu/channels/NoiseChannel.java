@@ -1,20 +1,27 @@
 package core.apu.channels;
 
+import core.Snapshottable;
 import core.apu.APU_2A03;
 import core.apu.channels.components.Envelope;
 import core.apu.channels.components.LengthCounter;
 import core.apu.channels.components.Sequencer;
 
+import java.nio.ByteBuffer;
+import java.util.function.IntUnaryOperator;
+
 /**
  * This class represent a Noise Channel of the APU
  */
-public class NoiseChannel {
+public class NoiseChannel implements Snapshottable {
+
+    public int output = 0; // DAC level (0 - 15)
 
-    public double sample = 0;
+    private long last_cycle = 0; // CPU cycle the channel has been brought up to (excluded)
 
     private final Envelope envelope;
     private final LengthCounter length_counter;
     private final Sequencer sequencer;
+    private final IntUnaryOperator feedback;
 
     private boolean enabled = false;
     private boolean halted = false;
@@ -27,6 +34,8 @@ public class NoiseChannel {
         envelope = new Envelope();
         length_counter = new LengthCounter();
         sequencer = new Sequencer();
+        //The 15 bit shift register is fed back from bit 1, or bit 6 in short mode
+        feedback = s -> (((s & 0x0001) ^ ((s >> (mode ? 6 : 1)) & 0x0001)) << 14) | ((s & 0x7FFF) >> 1);
     }
 
     /**
@@ -82,16 +91,42 @@ public class NoiseChannel {
     }
 
     /**
-     * Compute the sample of the channel
+     * Bring the channel up to a CPU cycle and compute its DAC level
+     * The timer is clocked once per APU cycle (every even CPU cycle), the shift register is run in a tight loop
+     *
+     * @param cycle the CPU cycle to reach (excluded), nothing is run if the channel is already past it
      */
-    public void computeSample() {
-        sequencer.clock(enabled, s -> (((s & 0x0001) ^ ((s & (mode ? 0x0040 : 0x0002)) >> 1)) << 14) | ((s & 0x7FFF) >> 1));
-        sample = 0;
+    public void catchUp(long cycle) {
+        if (cycle > last_cycle) {
+            if (enabled)
+                sequencer.advance(APU_2A03.apuCycles(last_cycle, cycle), feedback, 0);
+            last_cycle = cycle;
+        }
+        //The channel is muted while bit 0 of the shift register is set
+        if (enabled && length_counter.counter > 0 && (sequencer.sequence & 0x01) == 0)
+            output = envelope.output;
+        else
+            output = 0;
+    }
 
-        if (length_counter.counter > 0 && (sequencer.sequence & 0x01) != 0)
-            sample = (double) sequencer.output * ((double) (envelope.output - 1) / 16.0) * 0.5;
-        if (!enabled)
-            sample = 0;
+    /**
+     * Move the channel to a CPU cycle without clocking its timer (when sampling is disabled)
+     *
+     * @param cycle the CPU cycle to reach (excluded)
+     */
+    public void skip(long cycle) {
+        last_cycle = cycle;
+    }
+
+    /**
+     * Return the CPU cycle at which the output of the channel may change next, if its state isn't modified before
+     *
+     * @return the CPU cycle of the next shift of the register, Long.MAX_VALUE if the channel is silent
+     */
+    public long nextChange() {
+        if (!enabled || length_counter.counter == 0 || envelope.output == 0)
+            return Long.MAX_VALUE;
+        return APU_2A03.apuCycleTime(last_cycle, sequencer.timer);
     }
 
     /**
@@ -142,4 +177,33 @@ public class NoiseChannel {
         sequencer.sequence = seq;
     }
 
+    @Override
+    public int stateSize() {
+        return 4 + 8 + 3 + envelope.stateSize() + length_counter.stateSize() + sequencer.stateSize();
+    }
+
+    @Override
+    public void saveState(ByteBuffer buffer) {
+        buffer.putInt(output);
+        buffer.putLong(last_cycle);
+        Snapshottable.putBoolean(buffer, enabled);
+        Snapshottable.putBoolean(buffer, halted);
+        Snapshottable.putBoolean(buffer, mode);
+        envelope.saveState(buffer);
+        length_counter.saveState(buffer);
+        sequencer.saveState(buffer);
+    }
+
+    @Override
+    public void loadState(ByteBuffer buffer) {
+        output = buffer.getInt();
+        last_cycle = buffer.getLong();
+        enabled = Snapshottable.getBoolean(buffer);
+        halted = Snapshottable.getBoolean(buffer);
+        mode = Snapshottable.getBoolean(buffer);
+        envelope.loadState(buffer);
+        length_counter.loadState(buffer);
+        sequencer.loadState(buffer);
+    }
+
 }
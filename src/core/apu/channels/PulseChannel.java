@@ -1,24 +1,31 @@
 package core.apu.channels;
 
+import core.Snapshottable;
 import core.apu.APU_2A03;
 import core.apu.channels.components.Envelope;
 import core.apu.channels.components.LengthCounter;
 import core.apu.channels.components.Sequencer;
-import core.apu.channels.components.pulse.Oscillator;
 import core.apu.channels.components.pulse.Sweeper;
 
+import java.nio.ByteBuffer;
+import java.util.function.IntUnaryOperator;
+
 /**
  * This class represent a Pulse Channel of the APU
  */
-public class PulseChannel {
+public class PulseChannel implements Snapshottable {
+
+    // The duty cycle sequence is rotated by one step each time the timer expires
+    private static final IntUnaryOperator ROTATE = s -> ((s & 0x01) << 7) | ((s & 0xFE) >> 1);
 
     private final Sequencer sequencer;
     private final Envelope envelope;
     private final LengthCounter length_counter;
     private final Sweeper sweeper;
-    private final Oscillator oscillator;
 
-    public double sample = 0.0;
+    public int output = 0; // DAC level (0 - 15)
+
+    private long last_cycle = 0; // CPU cycle the channel has been brought up to (excluded)
 
     private boolean enabled = false;
     private boolean halted = false;
@@ -28,7 +35,6 @@ public class PulseChannel {
      */
     public PulseChannel() {
         sequencer = new Sequencer();
-        oscillator = new Oscillator();
         envelope = new Envelope();
         length_counter = new LengthCounter();
         sweeper = new Sweeper();
@@ -41,22 +47,10 @@ public class PulseChannel {
      */
     public void writeDutyCycle(int data) {
         switch ((data & 0xC0) >> 6) {
-            case 0x00 -> {
-                sequencer.sequence = 0b00000001;
-                oscillator.duty_cycle = 0.125f;
-            }
-            case 0x01 -> {
-                sequencer.sequence = 0b00000011;
-                oscillator.duty_cycle = 0.250f;
-            }
-            case 0x02 -> {
-                sequencer.sequence = 0b00001111;
-                oscillator.duty_cycle = 0.500f;
-            }
-            case 0x03 -> {
-                sequencer.sequence = 0b11111100;
-                oscillator.duty_cycle = 0.750f;
-            }
+            case 0x00 -> sequencer.sequence = 0b00000001;
+            case 0x01 -> sequencer.sequence = 0b00000011;
+            case 0x02 -> sequencer.sequence = 0b00001111;
+            case 0x03 -> sequencer.sequence = 0b11111100;
         }
         halted = (data & 0x20) == 0x20;
         envelope.volume = (data & 0x0F);
@@ -74,6 +68,7 @@ public class PulseChannel {
         sweeper.down = (data & 0x08) == 0x08;
         sweeper.shift = data & 0x07;
         sweeper.reload = true;
+        sweeper.track(sequencer.reload);
     }
 
     /**
@@ -83,6 +78,7 @@ public class PulseChannel {
      */
     public void writeTimerLow(int data) {
         sequencer.reload = (sequencer.reload & 0xFF00) | data;
+        sweeper.track(sequencer.reload);
     }
 
     /**
@@ -94,6 +90,7 @@ public class PulseChannel {
     public void writeTimerHigh(int data) {
         sequencer.reload = (sequencer.reload & 0x00FF) | ((data & 0x7) << 8);
         sequencer.timer = sequencer.reload;
+        sweeper.track(sequencer.reload);
     }
 
     /**
@@ -109,22 +106,55 @@ public class PulseChannel {
     }
 
     /**
-     * Compute the sample of the channel
+     * Bring the channel up to a CPU cycle and compute its DAC level
+     * The timer is clocked once per APU cycle (every even CPU cycle), all the elapsed cycles are run in closed form
+     * The output is a plain step wave, it is band-limited by the resampler
+     *
+     * @param cycle the CPU cycle to reach (excluded), nothing is run if the channel is already past it
+     */
+    public void catchUp(long cycle) {
+        if (cycle > last_cycle) {
+            if (isSounding())
+                sequencer.advance(APU_2A03.apuCycles(last_cycle, cycle), ROTATE, 8);
+            last_cycle = cycle;
+        }
+        output = isSounding() ? sequencer.output * envelope.output : 0;
+    }
+
+    /**
+     * Move the channel to a CPU cycle without clocking its timer (when sampling is disabled)
+     *
+     * @param cycle the CPU cycle to reach (excluded)
      */
-    public void computeSample(double time, boolean raw) {
-        if (enabled && length_counter.counter > 0 && !sweeper.muted && envelope.output > 2) {
-            sequencer.clock(true, s -> (((s & 0x01) << 7) | ((s & 0xFE) >> 1)));
-            if (sequencer.timer >= 8) {
-                if (raw) {
-                    sample = sequencer.output * ((envelope.output - 1) / 22.0);
-                } else {
-                    oscillator.frequency = 1789773.0f / (16.0f * (sequencer.reload + 1));
-                    oscillator.amplitude = (envelope.output - 1) / 16.0f;
-                    sample = oscillator.sample(time) / 2;
-                }
-            }
-        } else
-            sample = 0;
+    public void skip(long cycle) {
+        last_cycle = cycle;
+    }
+
+    /**
+     * Return the CPU cycle at which the output of the channel will change next, if its state isn't modified before
+     *
+     * @return the CPU cycle of the next output change, Long.MAX_VALUE if the output is constant
+     */
+    public long nextChange() {
+        if (!isSounding() || envelope.output == 0)
+            return Long.MAX_VALUE;
+        //Find the first step of the sequence with a different output bit
+        int step = 1;
+        while (step <= 8 && ((sequencer.sequence >> (step & 0x7)) & 0x1) == sequencer.output)
+            step++;
+        if (step > 8)
+            return Long.MAX_VALUE;
+        return APU_2A03.apuCycleTime(last_cycle, sequencer.timer + (step - 1) * (sequencer.reload + 1));
+    }
+
+    /**
+     * Return whether the timer of the channel is running
+     * Periods under 8 would be ultrasonic, the channel is muted
+     *
+     * @return is the channel producing a sound
+     */
+    private boolean isSounding() {
+        return enabled && length_counter.counter > 0 && !sweeper.muted && sequencer.reload >= 8;
     }
 
     /**
@@ -171,12 +201,35 @@ public class PulseChannel {
      */
     public void clockSweeper(int channel) {
         sequencer.reload = sweeper.clock(sequencer.reload, channel);
+        sweeper.track(sequencer.reload);
     }
 
-    /**
-     * Update the state of the Frequency Sweeper
-     */
-    public void trackSweeper() {
-        sweeper.track(sequencer.reload);
+    @Override
+    public int stateSize() {
+        return 4 + 8 + 2 + sequencer.stateSize() + envelope.stateSize() + length_counter.stateSize() + sweeper.stateSize();
+    }
+
+    @Override
+    public void saveState(ByteBuffer buffer) {
+        buffer.putInt(output);
+        buffer.putLong(last_cycle);
+        Snapshottable.putBoolean(buffer, enabled);
+        Snapshottable.putBoolean(buffer, halted);
+        sequencer.saveState(buffer);
+        envelope.saveState(buffer);
+        length_counter.saveState(buffer);
+        sweeper.saveState(buffer);
+    }
+
+    @Override
+    public void loadState(ByteBuffer buffer) {
+        output = buffer.getInt();
+        last_cycle = buffer.getLong();
+        enabled = Snapshottable.getBoolean(buffer);
+        halted = Snapshottable.getBoolean(buffer);
+        sequencer.loadState(buffer);
+        envelope.loadState(buffer);
+        length_counter.loadState(buffer);
+        sweeper.loadState(buffer);
     }
-}
\ No newline at end of file
+}
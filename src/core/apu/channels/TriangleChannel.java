@@ -1,27 +1,29 @@
 package core.apu.channels;
 
+import core.Snapshottable;
 import core.apu.APU_2A03;
 import core.apu.channels.components.LengthCounter;
 import core.apu.channels.components.triangle.LinearCounter;
 import core.apu.channels.components.triangle.TriangleSequencer;
 
+import java.nio.ByteBuffer;
+
 /**
  * This class represent the Triangle Channel of the APU
  */
-public class TriangleChannel {
+public class TriangleChannel implements Snapshottable {
 
     private final TriangleSequencer sequencer;
     private final LinearCounter linear_counter;
     private final LengthCounter length_counter;
 
-    public double sample = 0.0;
+    public int output = 0; // DAC level (0 - 15)
+
+    private long last_cycle = 0; // CPU cycle the channel has been brought up to (excluded)
 
     private boolean enabled = false;
     private boolean halted = false;
 
-    private double last_period = 0;
-    private double last_sequencer_output = 0;
-
     /**
      * Create a new TriangleChannel
      */
@@ -74,63 +76,47 @@ public class TriangleChannel {
     }
 
     /**
-     * Compute the sample of the channel
+     * Bring the channel up to a CPU cycle and compute its DAC level
+     * The timer is clocked once per CPU cycle, all the elapsed cycles are run in closed form
+     * When the channel is silenced the sequencer stops and its last level is held, like on the real hardware
+     *
+     * @param cycle the CPU cycle to reach (excluded), nothing is run if the channel is already past it
      */
-    public void computeSample(double timePerCycle, boolean raw) {
-        last_period += timePerCycle;
-        double period = (sequencer.reload + 1) * timePerCycle;
-        double lastSample = sample;
-        if (enabled && length_counter.counter > 0 && linear_counter.counter > 0) {
-            sequencer.clock(true);
-            if (sequencer.timer > 2) {
-                last_sequencer_output = sequencer.output == 0 ? last_sequencer_output : sequencer.output;
-                if (raw) {
-                    sample = sequencer.output / 30.0;
-                } else {
-                    int lower = sequencer.output;
-                    int higher = sequencer.sequence[(sequencer.sequenceIndex + 1) & 0x1F];
-                    double percent = last_period / period;
-                    if (lower == 15 && higher == 15) {
-                        if (percent <= 0.5)
-                            sample = ((16 - 15) * percent + 15) / 30.0;
-                        else if (percent <= 1)
-                            sample = ((15 - 16) * percent + 16) / 30.0;
-                        else
-                            sample = higher / 30.0;
-                    } else if (lower == 0 && higher == 0) {
-                        if (percent <= 0.5)
-                            sample = (-percent) / 30.0;
-                        else if (percent <= 1)
-                            sample = (percent - 1) / 30.0;
-                        else
-                            sample = higher / 30.0;
-                    } else
-                    if (percent <= 1)
-                        sample = ((higher - lower) * percent + lower) / 30.0;
-                    else
-                        sample = higher / 30.0;
-                }
-            }
-        } else
-            sample = 0;
-
-        //We smooth the output to avoid artifacts
-        //if the channel is started we mute the sample until the cycle reaches a 0
-        if (!raw && lastSample == 0 && (sample - lastSample > 0.02 || sample - lastSample < -0.02))
-            sample = lastSample * 0.5;
-        //if the channel is disabled when the sample isn't 0, we smooth the sound by finishing the cycle
-        if (sample == 0 && (sample - lastSample > 0.02 || sample - lastSample < -0.02)) {
-            double timeRem = period * Math.abs(last_sequencer_output);
-            int nbStep = (int) (timeRem / timePerCycle);
-            double smoothing_step = last_sequencer_output / 30.0 / nbStep;
-            sample = lastSample - smoothing_step;
-            if (sample < 0.05 && sample >= -0.05)
-                sample *= 0.9;
-            if (Math.signum(last_sequencer_output) != Math.signum(sample))
-                sample *= 0.9;
+    public void catchUp(long cycle) {
+        if (cycle > last_cycle) {
+            if (isSounding())
+                sequencer.advance((int) (cycle - last_cycle));
+            last_cycle = cycle;
         }
-        if (sequencer.timer == 0)
-            last_period = 0;
+        output = sequencer.output;
+    }
+
+    /**
+     * Move the channel to a CPU cycle without clocking its timer (when sampling is disabled)
+     *
+     * @param cycle the CPU cycle to reach (excluded)
+     */
+    public void skip(long cycle) {
+        last_cycle = cycle;
+    }
+
+    /**
+     * Return the CPU cycle at which the output of the channel will change next, if its state isn't modified before
+     *
+     * @return the CPU cycle of the next step of the sequence, Long.MAX_VALUE if the sequencer is stopped
+     */
+    public long nextChange() {
+        return isSounding() ? last_cycle + sequencer.timer : Long.MAX_VALUE;
+    }
+
+    /**
+     * Return whether the sequencer of the channel is running
+     * Periods under 2 would be ultrasonic, the sequencer is stopped
+     *
+     * @return is the channel producing a sound
+     */
+    private boolean isSounding() {
+        return enabled && length_counter.counter > 0 && linear_counter.counter > 0 && sequencer.reload >= 2;
     }
 
     /**
@@ -178,4 +164,31 @@ public class TriangleChannel {
     public int getLengthCounter() {
         return length_counter.counter;
     }
+
+    @Override
+    public int stateSize() {
+        return 4 + 8 + 2 + sequencer.stateSize() + linear_counter.stateSize() + length_counter.stateSize();
+    }
+
+    @Override
+    public void saveState(ByteBuffer buffer) {
+        buffer.putInt(output);
+        buffer.putLong(last_cycle);
+        Snapshottable.putBoolean(buffer, enabled);
+        Snapshottable.putBoolean(buffer, halted);
+        sequencer.saveState(buffer);
+        linear_counter.saveState(buffer);
+        length_counter.saveState(buffer);
+    }
+
+    @Override
+    public void loadState(ByteBuffer buffer) {
+        output = buffer.getInt();
+        last_cycle = buffer.getLong();
+        enabled = Snapshottable.getBoolean(buffer);
+        halted = Snapshottable.getBoolean(buffer);
+        sequencer.loadState(buffer);
+        linear_counter.loadState(buffer);
+        length_counter.loadState(buffer);
+    }
 }
\ No newline at end of file
@@ -1,9 +1,13 @@
 package core.apu.channels.components;
 
+import core.Snapshottable;
+
+import java.nio.ByteBuffer;
+
 /**
  * This class represents an Envelope that can be used to control the volume of an Audio Channel
  */
-public class Envelope {
+public class Envelope implements Snapshottable {
 
     public boolean started = false;
     public boolean disabled = false;
@@ -41,4 +45,29 @@ public class Envelope {
         else
             output = decay_count;
     }
+
+    @Override
+    public int stateSize() {
+        return 4 * 4 + 2;
+    }
+
+    @Override
+    public void saveState(ByteBuffer buffer) {
+        Snapshottable.putBoolean(buffer, started);
+        Snapshottable.putBoolean(buffer, disabled);
+        buffer.putInt(volume);
+        buffer.putInt(output);
+        buffer.putInt(divider_count);
+        buffer.putInt(decay_count);
+    }
+
+    @Override
+    public void loadState(ByteBuffer buffer) {
+        started = Snapshottable.getBoolean(buffer);
+        disabled = Snapshottable.getBoolean(buffer);
+        volume = buffer.getInt();
+        output = buffer.getInt();
+        divider_count = buffer.getInt();
+        decay_count = buffer.getInt();
+    }
 }
@@ -1,9 +1,13 @@
 package core.apu.channels.components;
 
+import core.Snapshottable;
+
+import java.nio.ByteBuffer;
+
 /**
  * This class represents a Length Counter that will be used to count the number of steps left for a note
  */
-public class LengthCounter {
+public class LengthCounter implements Snapshottable {
 
     public int counter = 0x00;
 
@@ -21,4 +25,19 @@ public class LengthCounter {
                 counter--;
         }
     }
+
+    @Override
+    public int stateSize() {
+        return 4;
+    }
+
+    @Override
+    public void saveState(ByteBuffer buffer) {
+        buffer.putInt(counter);
+    }
+
+    @Override
+    public void loadState(ByteBuffer buffer) {
+        counter = buffer.getInt();
+    }
 }
@@ -1,11 +1,14 @@
 package core.apu.channels.components;
 
-import java.util.function.Function;
+import core.Snapshottable;
+
+import java.nio.ByteBuffer;
+import java.util.function.IntUnaryOperator;
 
 /**
  * This class represents a sequencer used to store information about the Audio Channel and how it should behave
  */
-public class Sequencer {
+public class Sequencer implements Snapshottable {
 
     public int sequence = 0;
     public int timer = 0;
@@ -13,19 +16,48 @@ public class Sequencer {
     public int reload = 0;
 
     /**
-     * Update the sequencer
+     * Clock the timer of the sequencer for several cycles at once
+     * Each time the timer expires the sequence is updated, the number of updates is computed in closed form
+     * The timer counts down from reload to 0 and expires on the next clock, so a step lasts reload + 1 clocks
      *
-     * @param enabled is the sequencer enabled
-     * @param func    the operation that the sequencer should execute
+     * @param cycles the number of timer clocks
+     * @param func   the operation that the sequencer should execute
+     * @param length the number of operations after which the sequence repeats itself (0 if it never does)
      */
-    public void clock(boolean enabled, Function<Integer, Integer> func) {
-        if (enabled) {
-            timer--;
-            if (timer == -1) {
-                timer = reload + 1;
-                sequence = func.apply(sequence);
-                output = sequence & 0x1;
-            }
+    public void advance(int cycles, IntUnaryOperator func, int length) {
+        if (cycles <= timer) {
+            timer -= cycles;
+            return;
         }
+        cycles -= timer + 1;
+        int period = reload + 1;
+        timer = reload - cycles % period;
+        int steps = 1 + cycles / period;
+        if (length > 0)
+            steps %= length;
+        for (int i = 0; i < steps; i++)
+            sequence = func.applyAsInt(sequence);
+        output = sequence & 0x1;
+    }
+
+    @Override
+    public int stateSize() {
+        return 4 * 4;
+    }
+
+    @Override
+    public void saveState(ByteBuffer buffer) {
+        buffer.putInt(sequence);
+        buffer.putInt(timer);
+        buffer.putInt(output);
+        buffer.putInt(reload);
+    }
+
+    @Override
+    public void loadState(ByteBuffer buffer) {
+        sequence = buffer.getInt();
+        timer = buffer.getInt();
+        output = buffer.getInt();
+        reload = buffer.getInt();
     }
 }
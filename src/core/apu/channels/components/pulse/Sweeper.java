@@ -1,9 +1,13 @@
 package core.apu.channels.components.pulse;
 
+import core.Snapshottable;
+
+import java.nio.ByteBuffer;
+
 /**
  * This class represents a sweeper used to change the frequency of the audio signal
  */
-public class Sweeper {
+public class Sweeper implements Snapshottable {
 
     public boolean enabled = false;
     public boolean down = false;
@@ -53,4 +57,33 @@ public class Sweeper {
         }
         return reload;
     }
+
+    @Override
+    public int stateSize() {
+        return 4 * 4 + 4;
+    }
+
+    @Override
+    public void saveState(ByteBuffer buffer) {
+        Snapshottable.putBoolean(buffer, enabled);
+        Snapshottable.putBoolean(buffer, down);
+        Snapshottable.putBoolean(buffer, reload);
+        Snapshottable.putBoolean(buffer, muted);
+        buffer.putInt(shift);
+        buffer.putInt(period);
+        buffer.putInt(change);
+        buffer.putInt(timer);
+    }
+
+    @Override
+    public void loadState(ByteBuffer buffer) {
+        enabled = Snapshottable.getBoolean(buffer);
+        down = Snapshottable.getBoolean(buffer);
+        reload = Snapshottable.getBoolean(buffer);
+        muted = Snapshottable.getBoolean(buffer);
+        shift = buffer.getInt();
+        period = buffer.getInt();
+        change = buffer.getInt();
+        timer = buffer.getInt();
+    }
 }
@@ -1,10 +1,14 @@
 package core.apu.channels.components.triangle;
 
+import core.Snapshottable;
+
+import java.nio.ByteBuffer;
+
 /**
  * This class represents a Linear Counter that will be used to count the number of steps left for a note
  * It is similar to a Length Counter but is clock twice as frequently
  */
-public class LinearCounter {
+public class LinearCounter implements Snapshottable {
 
     public int counter = 0x00;
     public boolean reload = false;
@@ -28,4 +32,23 @@ public class LinearCounter {
                 reload = false;
         }
     }
+
+    @Override
+    public int stateSize() {
+        return 2 * 4 + 1;
+    }
+
+    @Override
+    public void saveState(ByteBuffer buffer) {
+        buffer.putInt(counter);
+        Snapshottable.putBoolean(buffer, reload);
+        buffer.putInt(reloadValue);
+    }
+
+    @Override
+    public void loadState(ByteBuffer buffer) {
+        counter = buffer.getInt();
+        reload = Snapshottable.getBoolean(buffer);
+        reloadValue = buffer.getInt();
+    }
 }
@@ -1,9 +1,13 @@
 package core.apu.channels.components.triangle;
 
+import core.Snapshottable;
+
+import java.nio.ByteBuffer;
+
 /**
  * This class represents a sequencer used to store information about the Audio Channel and how it should behave
  */
-public class TriangleSequencer {
+public class TriangleSequencer implements Snapshottable {
 
     public final int[] sequence = {15, 14, 13, 12, 11, 10, 9, 8, 7, 6, 5, 4, 3, 2, 1, 0, 0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15};
 
@@ -13,18 +17,42 @@ public class TriangleSequencer {
     public int reload = 0;
 
     /**
-     * Update the sequencer
+     * Clock the timer of the sequencer for several cycles at once
+     * The number of steps made through the sequence is computed in closed form
+     * The timer counts down from reload to 0 and expires on the next clock, so a step lasts reload + 1 clocks
      *
-     * @param enabled is the sequencer enabled
+     * @param cycles the number of timer clocks
      */
-    public void clock(boolean enabled) {
-        if (enabled) {
-            timer--;
-            if (timer == -1) {
-                timer = reload + 1;
-                sequenceIndex = (sequenceIndex + 1) & 0x1F;
-                output = sequence[sequenceIndex];
-            }
+    public void advance(int cycles) {
+        if (cycles <= timer) {
+            timer -= cycles;
+            return;
         }
+        cycles -= timer + 1;
+        int period = reload + 1;
+        timer = reload - cycles % period;
+        sequenceIndex = (sequenceIndex + 1 + cycles / period) & 0x1F;
+        output = sequence[sequenceIndex];
+    }
+
+    @Override
+    public int stateSize() {
+        return 4 * 4;
+    }
+
+    @Override
+    public void saveState(ByteBuffer buffer) {
+        buffer.putInt(sequenceIndex);
+        buffer.putInt(timer);
+        buffer.putInt(output);
+        buffer.putInt(reload);
+    }
+
+    @Override
+    public void loadState(ByteBuffer buffer) {
+        sequenceIndex = buffer.getInt();
+        timer = buffer.getInt();
+        output = buffer.getInt();
+        reload = buffer.getInt();
     }
 }
@@ -0,0 +1,126 @@
+package core.cartridge;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * This class writes the battery backed RAM of a Cartridge to its save file from a background thread
+ * The emulation only flags the RAM as modified, the saver wakes up periodically and writes it if needed
+ * The file is written to a temporary file first, flushed to the disk and then renamed,
+ * so an interrupted save, a crash or a power loss never corrupts it
+ */
+class BatterySaver extends Thread {
+
+    private static final long SAVE_INTERVAL = TimeUnit.SECONDS.toNanos(20);
+
+    private final byte[] ram;
+    private final Path file;
+    private final Path temp_file;
+    private final AtomicBoolean dirty = new AtomicBoolean(false);
+
+    private volatile boolean running = true;
+    private volatile Consumer<IOException> error_handler = e -> System.err.println("Unable to save " + e.getMessage());
+
+    /**
+     * Create a new saver
+     *
+     * @param ram  the RAM to save
+     * @param file the save file
+     */
+    BatterySaver(byte[] ram, Path file) {
+        super("Battery Saver");
+        this.ram = ram;
+        this.file = file;
+        this.temp_file = file.resolveSibling(file.getFileName() + ".tmp");
+        setDaemon(true);
+    }
+
+    /**
+     * Flag the RAM as modified, called by the emulation after each write
+     * No memory barrier is needed, the flag only has to be seen after the data
+     */
+    void markDirty() {
+        dirty.lazySet(true);
+    }
+
+    /**
+     * Set what is done when the save file can't be written, the handler is called from the saver thread
+     *
+     * @param error_handler the handler receiving the error
+     */
+    void setErrorHandler(Consumer<IOException> error_handler) {
+        this.error_handler = error_handler;
+    }
+
+    /**
+     * Stop the saver and wait for the pending changes to be written
+     */
+    void close() {
+        running = false;
+        LockSupport.unpark(this);
+        try {
+            join();
+        } catch (InterruptedException ignored) {}
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            LockSupport.parkNanos(this, SAVE_INTERVAL);
+            flush();
+        }
+        flush();
+    }
+
+    /**
+     * Write the RAM to the save file if it has been modified since the last save
+     * The flag is cleared before the copy, a write made during the copy will be saved next time
+     * If the file can't be written, the flag is set again so the save is retried
+     */
+    private void flush() {
+        if (!dirty.getAndSet(false))
+            return;
+        byte[] snapshot = ram.clone();
+        try {
+            //The data must reach the disk before the rename, or a crash could leave an empty save file
+            try (FileChannel channel = FileChannel.open(temp_file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.wrap(snapshot);
+                while (buffer.hasRemaining())
+                    channel.write(buffer);
+                channel.force(true);
+            }
+            try {
+                Files.move(temp_file, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp_file, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            syncDirectory();
+        } catch (IOException e) {
+            dirty.set(true); // Retried at the next interval or when the saver is closed
+            error_handler.accept(e);
+        }
+    }
+
+    /**
+     * Flush the directory of the save file to the disk, so the rename itself survives a crash
+     * Not every platform can open a directory (Windows can't), the rename is then left to the OS
+     */
+    private void syncDirectory() {
+        Path directory = file.toAbsolutePath().getParent();
+        if (directory == null)
+            return;
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException ignored) {}
+    }
+}
@@ -1,33 +1,34 @@
 package core.cartridge;
 
+import core.Snapshottable;
 import core.cartridge.mappers.*;
 import core.ppu.Mirror;
 import exceptions.InvalidFileException;
 import exceptions.UnsupportedMapperException;
-import javafx.application.Platform;
-import utils.Dialogs;
 import utils.FileReader;
-import utils.IntegerWrapper;
 
-import javax.swing.*;
 import java.io.EOFException;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.nio.ByteBuffer;
 import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
 
 /**
  * Here we make a class that will represent the "cartridge" of the NES
  */
-public class Cartridge {
+public class Cartridge implements Snapshottable {
 
-    private final String filename;
     private final int nbPRGBanks;
     private final int nbCHRBanks;
     private final byte[] prgMemory;
     private final byte[] chrMemory;
     private final Mapper mapper;
     private final Mirror mirror;
+    private final byte[][] vram;
+    private final TileCache tileCache;
+    private final BatterySaver saver;
+    private final int checksum;
 
     /**
      * Create a Cartridge and load a ROM into the emulator
@@ -35,7 +36,6 @@ public class Cartridge {
      * @param filename the path to the ROM
      */
     public Cartridge(String filename) throws InvalidFileException, UnsupportedMapperException, EOFException {
-        this.filename = filename;
         int fileType = 1;
 
         // Initialize the file reader
@@ -46,6 +46,8 @@ public class Cartridge {
         // Extract the Mapper ID and Mirroring mode
         int mapperId = ((header.flag_7 >> 4) << 4) | (header.flag_6 >> 4);
         mirror = (header.flag_6 & 0x01) == 0x01 ? Mirror.VERTICAL : Mirror.HORIZONTAL;
+        // Four screen boards carry 2KB of extra VRAM for the 2 nametables the console doesn't have
+        vram = (header.flag_6 & 0x08) == 0x08 ? new byte[2][1024] : null;
 
         // Discard padding if necessary
         if ((header.flag_6 & 0x04) == 0x04) {
@@ -83,6 +85,13 @@ public class Cartridge {
 
         this.prgMemory = prgMem;
         this.chrMemory = chrMem;
+        this.tileCache = new TileCache(chrMem);
+
+        // The checksum of the ROM identifies the game a saved state belongs to
+        CRC32 crc = new CRC32();
+        crc.update(prgMem);
+        crc.update(chrMem);
+        this.checksum = (int) crc.getValue();
 
         // Initialize the correct Mapper
         this.mapper = switch (mapperId) {
@@ -95,75 +104,131 @@ public class Cartridge {
             case 66 -> new Mapper066(nbPRGBanks, nbCHRBanks);
             default -> throw new UnsupportedMapperException("Mapper " + (mapperId & 0xFF) + " not implemented yet");
         };
+
+        // The Cartridge RAM is saved in the background when modified
+        if (mapper.hasRAM()) {
+            saver = new BatterySaver(mapper.getRAM(), Paths.get(filename + ".sav"));
+            saver.start();
+        } else {
+            saver = null;
+        }
     }
 
     /**
-     * Will read a value from Program Memory if the Mapper allows it
+     * Read a value from Program Memory or from the Cartridge RAM
      *
      * @param addr the address to read from
-     * @param data the Wrapper where to store the read data
-     * @return was the data searched in the Cartridge
+     * @return the read value, 0 if nothing is mapped at this address
      */
-    public boolean cpuRead(int addr, IntegerWrapper data) {
-        IntegerWrapper mapped = new IntegerWrapper();
-        if (mapper.cpuMapRead(addr, mapped, data)) {
-            if (mapped.value == -1) return true;
-            data.value = prgMemory[mapped.value] & 0xFF;
-            return true;
-        }
-        return false;
+    public int cpuRead(int addr) {
+        if (addr >= 0x8000)
+            return prgMemory[mapper.getPRGBanks()[(addr >> 13) & 0x3] + (addr & 0x1FFF)] & 0xFF;
+        if (addr >= 0x6000 && mapper.hasRAM())
+            return mapper.getRAM()[addr & 0x1FFF] & 0xFF;
+        return 0x00;
     }
 
     /**
-     * Will write the data into Program Memory if the Mapper allows it
-     * and return whether or not the data was for the Cartridge
+     * Write a value to the Mapper registers or to the Cartridge RAM
      *
      * @param addr the address to write
      * @param data the data to write
-     * @return was the data for the Cartridge
      */
-    public boolean cpuWrite(int addr, int data) {
-        IntegerWrapper mapped = new IntegerWrapper();
-        if (mapper.cpuMapWrite(addr, mapped, data)) {
-            if (mapped.value == -1) return true;
-            prgMemory[mapped.value] = (byte) data;
-            return true;
+    public void cpuWrite(int addr, int data) {
+        if (addr >= 0x8000)
+            mapper.cpuWrite(addr, data);
+        else if (addr >= 0x6000 && mapper.hasRAM()) {
+            mapper.getRAM()[addr & 0x1FFF] = (byte) data;
+            saver.markDirty();
         }
-        return false;
     }
 
     /**
-     * Will read a value from Character Memory if the Mapper allows it
+     * Read a value from Character Memory
      *
-     * @param addr the address to read from
-     * @param data the Wrapper where to store the read data
-     * @return was the data searched in the Cartridge
+     * @param addr the address to read from (0x0000 - 0x1FFF)
+     * @return the read value
      */
-    public boolean ppuRead(int addr, IntegerWrapper data) {
-        addr &= 0xFFFF;
-        IntegerWrapper mapped = new IntegerWrapper();
-        if (mapper.ppuMapRead(addr, mapped, data)) {
-            data.value = chrMemory[mapped.value] & 0xFF;
-            return true;
-        }
-        return false;
+    public int ppuRead(int addr) {
+        return chrMemory[mapper.getCHRBanks()[(addr >> 10) & 0x7] + (addr & 0x03FF)] & 0xFF;
     }
 
     /**
-     * Will write the data into Character Memory if the Mapper allows it
-     * and return whether or not the data was for the Cartridge
+     * Write a value to Character Memory if it is RAM
      *
-     * @param addr the address to write
+     * @param addr the address to write (0x0000 - 0x1FFF)
      * @param data the data to write
-     * @return was the data for the Cartridge
      */
-    public boolean ppuWrite(int addr, int data) {
-        IntegerWrapper mapped = new IntegerWrapper();
-        if (mapper.ppuMapWrite(addr, mapped, data)) {
-            chrMemory[mapped.value] = (byte) data;
-            return true;
+    public void ppuWrite(int addr, int data) {
+        if (mapper.isCHRWritable()) {
+            int offset = mapper.getCHRBanks()[(addr >> 10) & 0x7] + (addr & 0x03FF);
+            chrMemory[offset] = (byte) data;
+            tileCache.invalidate(offset);
         }
-        return false;
+    }
+
+    /**
+     * Return the decoded pixel indices of the tile currently mapped at a PPU address
+     *
+     * @param addr the address of the tile in the pattern tables (0x0000 - 0x1FF0)
+     * @return the 64 pixel indices of the tile, row by row
+     */
+    public byte[] getTile(int addr) {
+        return tileCache.getTile((mapper.getCHRBanks()[(addr >> 10) & 0x7] + (addr & 0x03F0)) >> 4);
+    }
+
+    /**
+     * Return the decoded pixel indices of the tile currently mapped at a PPU address, flipped horizontally
+     *
+     * @param addr the address of the tile in the pattern tables (0x0000 - 0x1FF0)
+     * @return the 64 pixel indices of the flipped tile, row by row
+     */
+    public byte[] getFlippedTile(int addr) {
+        return tileCache.getFlippedTile((mapper.getCHRBanks()[(addr >> 10) & 0x7] + (addr & 0x03F0)) >> 4);
+    }
+
+    /**
+     * Decode the tile currently mapped at a PPU address into a caller-owned array, without using the tile cache
+     * Used by the debug views, which run on another thread than the emulation
+     *
+     * @param addr    the address of the tile in the pattern tables (0x0000 - 0x1FF0)
+     * @param flipped should the tile be flipped horizontally
+     * @param dest    the array receiving the 64 pixel indices of the tile, row by row
+     * @return dest
+     */
+    public byte[] decodeTile(int addr, boolean flipped, byte[] dest) {
+        tileCache.decodeInto((mapper.getCHRBanks()[(addr >> 10) & 0x7] + (addr & 0x03F0)) >> 4, flipped, dest);
+        return dest;
+    }
+
+    /**
+     * Return the offset in Program Memory of a 256 bytes CPU page, as currently mapped by the Mapper
+     *
+     * @param page the CPU page (address >> 8)
+     * @return the offset of the page in Program Memory, -1 if the page isn't mapped to Program Memory
+     */
+    public int getPRGPageOffset(int page) {
+        if (page < 0x80)
+            return -1;
+        return mapper.getPRGBanks()[(page >> 5) & 0x3] + ((page & 0x1F) << 8);
+    }
+
+    /**
+     * Return the Program Memory of the Cartridge
+     *
+     * @return the Program Memory
+     */
+    public byte[] getPRGMemory() {
+        return prgMemory;
+    }
+
+    /**
+     * Return the Character Memory of the Cartridge
+     *
+     * @return the Character Memory
+     */
+    public byte[] getCHRMemory() {
+        return chrMemory;
     }
 
     /**
@@ -172,6 +237,9 @@ public class Cartridge {
      * @return the game's mirroring mode
      */
     public Mirror getMirror() {
+        if (vram != null) {
+            return Mirror.FOUR_SCREEN;
+        }
         Mirror mirroringMode = mapper.mirror();
         if (mirroringMode == Mirror.HARDWARE) {
             return mirror;
@@ -179,6 +247,15 @@ public class Cartridge {
         return mirroringMode;
     }
 
+    /**
+     * Return the extra nametables of a four screen Cartridge
+     *
+     * @return the 2 extra 1KB nametables, null if the Cartridge doesn't have any
+     */
+    public byte[][] getVRAM() {
+        return vram;
+    }
+
     /**
      * Reset the Mapper if it has processing capabilities
      */
@@ -198,19 +275,75 @@ public class Cartridge {
     }
 
     /**
-     * Save the current Cartridge RAM to a file (filename.sav)
+     * Return the checksum of the Program and Character Memory as loaded from the ROM
+     *
+     * @return the CRC32 of the ROM
      */
-    public void save() {
-        if (mapper.hasRAM()) {
-            try {
-                Files.write(Paths.get(filename + ".sav"), mapper.getRAM(), StandardOpenOption.CREATE);
-            } catch (IOException e) {
-                if (Platform.isAccessibilityActive()) {
-                    Dialogs.showException("ROM Save Error", "An error occurred during ROM Saving", e);
-                } else {
-                    JOptionPane.showMessageDialog(null, "An Error occurred while saving\n" + e.getMessage(), "ROM Save Error", JOptionPane.ERROR_MESSAGE);
-                }
-            }
+    public int getChecksum() {
+        return checksum;
+    }
+
+    @Override
+    public int stateSize() {
+        return mapper.stateSize() + (mapper.isCHRWritable() ? chrMemory.length : 0) + (vram != null ? 2 * 1024 : 0);
+    }
+
+    /**
+     * Write the Mapper state, the Character RAM and the extra VRAM if the Cartridge has them
+     *
+     * @param buffer the buffer to write to
+     */
+    @Override
+    public void saveState(ByteBuffer buffer) {
+        mapper.saveState(buffer);
+        if (mapper.isCHRWritable())
+            buffer.put(chrMemory);
+        if (vram != null) {
+            buffer.put(vram[0]);
+            buffer.put(vram[1]);
+        }
+    }
+
+    /**
+     * Restore the Mapper state, the Character RAM and the extra VRAM if the Cartridge has them
+     * The restored Cartridge RAM will be written to the save file
+     *
+     * @param buffer the buffer to read from
+     */
+    @Override
+    public void loadState(ByteBuffer buffer) {
+        mapper.loadState(buffer);
+        if (mapper.isCHRWritable()) {
+            buffer.get(chrMemory);
+            tileCache.invalidateAll();
+        }
+        if (vram != null) {
+            buffer.get(vram[0]);
+            buffer.get(vram[1]);
+        }
+        if (saver != null)
+            saver.markDirty();
+    }
+
+    /**
+     * Set what is done when the Cartridge RAM can't be saved, by default the error is printed
+     * The handler is called from the background saver thread
+     *
+     * @param handler the handler receiving the error
+     */
+    public void setSaveErrorHandler(Consumer<IOException> handler) {
+        if (saver != null) {
+            saver.setErrorHandler(handler);
+        }
+    }
+
+    /**
+     * Write the pending changes of the Cartridge RAM to its save file (filename.sav) and stop saving it
+     * Must be called once the Cartridge is no longer used
+     */
+    public void close() {
+        if (saver != null) {
+            saver.close();
         }
     }
 }
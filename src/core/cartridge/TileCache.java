@@ -0,0 +1,114 @@
+package core.cartridge;
+
+import java.util.Arrays;
+
+/**
+ * This class keeps the tiles of the Character Memory decoded as 8x8 pixel indices (0 - 3)
+ * Tiles are identified by their physical offset in Character Memory (offset >> 4),
+ * so switching banks doesn't affect the cache, only writes to Character RAM do
+ */
+public class TileCache {
+
+    private final byte[] chr_memory;
+    private final byte[][] tiles;
+    private final byte[][] flipped_tiles;
+    private final boolean[] decoded;
+
+    /**
+     * @param chr_memory the Character Memory to decode the tiles from
+     */
+    TileCache(byte[] chr_memory) {
+        this.chr_memory = chr_memory;
+        this.tiles = new byte[chr_memory.length >> 4][];
+        this.flipped_tiles = new byte[chr_memory.length >> 4][];
+        this.decoded = new boolean[chr_memory.length >> 4];
+    }
+
+    /**
+     * Return the pixel indices of a tile, row by row
+     *
+     * @param tile the physical tile index (offset in Character Memory >> 4)
+     * @return the 64 pixel indices of the tile
+     */
+    public byte[] getTile(int tile) {
+        if (!decoded[tile])
+            decode(tile);
+        return tiles[tile];
+    }
+
+    /**
+     * Return the pixel indices of a tile flipped horizontally, row by row
+     *
+     * @param tile the physical tile index (offset in Character Memory >> 4)
+     * @return the 64 pixel indices of the flipped tile
+     */
+    public byte[] getFlippedTile(int tile) {
+        if (!decoded[tile])
+            decode(tile);
+        return flipped_tiles[tile];
+    }
+
+    /**
+     * Mark the tile containing a byte of Character Memory as stale
+     *
+     * @param offset the offset of the byte that has been written
+     */
+    void invalidate(int offset) {
+        decoded[offset >> 4] = false;
+    }
+
+    /**
+     * Mark every tile as stale, when the whole Character Memory has been replaced
+     */
+    void invalidateAll() {
+        Arrays.fill(decoded, false);
+    }
+
+    /**
+     * Decode a tile into a caller-owned array without using the cache
+     * The cache belongs to the emulation thread, this is what the debug views use from other threads
+     *
+     * @param tile    the physical tile index (offset in Character Memory >> 4)
+     * @param flipped should the tile be flipped horizontally
+     * @param dest    the array receiving the 64 pixel indices of the tile
+     */
+    public void decodeInto(int tile, boolean flipped, byte[] dest) {
+        decode(tile, flipped ? null : dest, flipped ? dest : null);
+    }
+
+    /**
+     * Decode a tile from its 2 bit planes into the cache
+     *
+     * @param tile the physical tile index
+     */
+    private void decode(int tile) {
+        if (tiles[tile] == null) {
+            tiles[tile] = new byte[64];
+            flipped_tiles[tile] = new byte[64];
+        }
+        decode(tile, tiles[tile], flipped_tiles[tile]);
+        decoded[tile] = true;
+    }
+
+    /**
+     * Decode a tile from its 2 bit planes
+     *
+     * @param tile    the physical tile index
+     * @param pixels  the array receiving the pixel indices, null if not needed
+     * @param flipped the array receiving the pixel indices flipped horizontally, null if not needed
+     */
+    private void decode(int tile, byte[] pixels, byte[] flipped) {
+        int offset = tile << 4;
+        for (int row = 0; row < 8; row++) {
+            int lsb = chr_memory[offset + row] & 0xFF;
+            int msb = chr_memory[offset + row + 8] & 0xFF;
+            for (int col = 0; col < 8; col++) {
+                byte pixel = (byte) ((((msb << col) & 0x80) >> 6) | (((lsb << col) & 0x80) >> 7));
+                if (pixels != null)
+                    pixels[(row << 3) | col] = pixel;
+                if (flipped != null)
+                    flipped[(row << 3) | (7 - col)] = pixel;
+            }
+        }
+    }
+}
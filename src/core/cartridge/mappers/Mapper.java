@@ -1,12 +1,25 @@
 package core.cartridge.mappers;
 
+import core.Snapshottable;
 import core.ppu.Mirror;
-import utils.IntegerWrapper;
 
-public abstract class Mapper {
+import java.nio.ByteBuffer;
+
+/**
+ * A Mapper exposes the currently selected banks as offsets into the Cartridge memories
+ * The Program Memory is split into four 8KB slots (0x8000, 0xA000, 0xC000, 0xE000)
+ * and the Character Memory into eight 1KB slots (0x0000 - 0x1FFF)
+ * The offsets only change when the CPU writes to the Mapper registers
+ * The state of a Mapper is the bank offsets and its RAM, Mappers with registers add them to it
+ */
+public abstract class Mapper implements Snapshottable {
+
+    private static final Mirror[] mirror_modes = Mirror.values();
 
     final int nb_PRG_banks;  // Number of Program ROM Banks
     final int nb_CHR_banks;  // Number of Character ROM Banks
+    final int[] prg_banks;   // Offset in Program Memory of each 8KB slot
+    final int[] chr_banks;   // Offset in Character Memory of each 1KB slot
 
     /**
      * @param nPRGBanks number of Program ROM Banks
@@ -15,39 +28,88 @@ public abstract class Mapper {
     Mapper(int nPRGBanks, int nCHRBanks) {
         this.nb_PRG_banks = nPRGBanks;
         this.nb_CHR_banks = nCHRBanks;
+        this.prg_banks = new int[4];
+        this.chr_banks = new int[8];
+    }
+
+    /**
+     * Called when the CPU writes to the Mapper registers (0x8000 - 0xFFFF)
+     *
+     * @param addr the CPU Address written to
+     * @param data the data to write
+     */
+    public abstract void cpuWrite(int addr, int data);
+
+    /**
+     * @return the offsets in Program Memory of the four 8KB slots mapped from 0x8000
+     */
+    public final int[] getPRGBanks() {
+        return prg_banks;
+    }
+
+    /**
+     * @return the offsets in Character Memory of the eight 1KB slots mapped from 0x0000
+     */
+    public final int[] getCHRBanks() {
+        return chr_banks;
+    }
+
+    /**
+     * @return can the PPU write to the Character Memory, true if it is RAM (no CHR bank in the ROM)
+     */
+    public boolean isCHRWritable() {
+        return nb_CHR_banks == 0;
     }
 
     /**
-     * @param addr   the CPU Address to map
-     * @param mapped the Wrapper where to store the Mapped Address
-     * @param data   the data read from the mapped address
-     * @return Whether or not the Address was mapped
+     * @param slot the 8KB slot to map (0 - 3)
+     * @param bank the 8KB bank to map, wrapped around the Program Memory size
      */
-    public abstract boolean cpuMapRead(int addr, IntegerWrapper mapped, IntegerWrapper data);
+    void mapPRG8K(int slot, int bank) {
+        prg_banks[slot] = Math.floorMod(bank, Math.max(nb_PRG_banks * 2, 1)) * 0x2000;
+    }
 
     /**
-     * @param addr   the CPU Address to map
-     * @param mapped the Wrapper where to store the Mapped Address
-     * @param data   the data to write
-     * @return Whether or not the Address was mapped
+     * @param slot the 16KB slot to map (0 - 1)
+     * @param bank the 16KB bank to map, wrapped around the Program Memory size
      */
-    public abstract boolean cpuMapWrite(int addr, IntegerWrapper mapped, int data);
+    void mapPRG16K(int slot, int bank) {
+        mapPRG8K(slot * 2, bank * 2);
+        mapPRG8K(slot * 2 + 1, bank * 2 + 1);
+    }
 
     /**
-     * @param addr   the PPU Address to map
-     * @param mapped the Wrapper where to store the Mapped Address
-     * @param data   the data read from the mapped address
-     * @return Whether or not the Address was mapped
+     * @param bank the 32KB bank to map, wrapped around the Program Memory size
      */
-    public abstract boolean ppuMapRead(int addr, IntegerWrapper mapped, IntegerWrapper data);
+    void mapPRG32K(int bank) {
+        for (int i = 0; i < 4; i++)
+            mapPRG8K(i, bank * 4 + i);
+    }
 
     /**
-     * @param addr   the PPU Address to map
-     * @param mapped the Wrapper where to store the Mapped Address
-     * @param data   the data to write
-     * @return if the Address was mapped
+     * @param slot the 1KB slot to map (0 - 7)
+     * @param bank the 1KB bank to map, wrapped around the Character Memory size
      */
-    public abstract boolean ppuMapWrite(int addr, IntegerWrapper mapped, int data);
+    void mapCHR1K(int slot, int bank) {
+        chr_banks[slot] = Math.floorMod(bank, Math.max(nb_CHR_banks, 1) * 8) * 0x0400;
+    }
+
+    /**
+     * @param slot the 4KB slot to map (0 - 1)
+     * @param bank the 4KB bank to map, wrapped around the Character Memory size
+     */
+    void mapCHR4K(int slot, int bank) {
+        for (int i = 0; i < 4; i++)
+            mapCHR1K(slot * 4 + i, bank * 4 + i);
+    }
+
+    /**
+     * @param bank the 8KB bank to map, wrapped around the Character Memory size
+     */
+    void mapCHR8K(int bank) {
+        for (int i = 0; i < 8; i++)
+            mapCHR1K(i, bank * 8 + i);
+    }
 
     /**
      * @return the current mirroring mode
@@ -64,6 +126,16 @@ public abstract class Mapper {
 
     public void irqClear() {}
 
+    /**
+     * Return the number of scanline notifications after which the Mapper will raise an IRQ
+     * if its registers aren't written to in the meantime
+     *
+     * @return the number of notifications, -1 if no IRQ will occur or if not overridden
+     */
+    public int scanlinesUntilIrq() {
+        return -1;
+    }
+
 
     public void notifyScanline() {}
 
@@ -88,4 +160,45 @@ public abstract class Mapper {
     public byte[] getRAM() {
         return null;
     }
+
+    @Override
+    public int stateSize() {
+        return 4 * (prg_banks.length + chr_banks.length) + (hasRAM() ? getRAM().length : 0);
+    }
+
+    @Override
+    public void saveState(ByteBuffer buffer) {
+        for (int bank : prg_banks)
+            buffer.putInt(bank);
+        for (int bank : chr_banks)
+            buffer.putInt(bank);
+        if (hasRAM())
+            buffer.put(getRAM());
+    }
+
+    @Override
+    public void loadState(ByteBuffer buffer) {
+        for (int i = 0; i < prg_banks.length; i++)
+            prg_banks[i] = buffer.getInt();
+        for (int i = 0; i < chr_banks.length; i++)
+            chr_banks[i] = buffer.getInt();
+        if (hasRAM())
+            buffer.get(getRAM());
+    }
+
+    /**
+     * @param buffer the buffer to write to
+     * @param mode   the mirroring mode to write
+     */
+    static void putMirror(ByteBuffer buffer, Mirror mode) {
+        buffer.put((byte) mode.ordinal());
+    }
+
+    /**
+     * @param buffer the buffer to read from
+     * @return the mirroring mode written by putMirror
+     */
+    static Mirror getMirror(ByteBuffer buffer) {
+        return mirror_modes[buffer.get()];
+    }
 }
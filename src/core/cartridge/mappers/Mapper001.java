@@ -3,9 +3,9 @@ package core.cartridge.mappers;
 import core.ppu.Mirror;
 import exceptions.InvalidFileException;
 import utils.FileReader;
-import utils.IntegerWrapper;
 
 import java.io.EOFException;
+import java.nio.ByteBuffer;
 
 
 public class Mapper001 extends Mapper {
@@ -44,50 +44,11 @@ public class Mapper001 extends Mapper {
     }
 
     /**
-     * @param addr   the PPU Address to map
-     * @param mapped the Wrapper where to store the Mapped Address
-     * @param data   if there is data to be read, it will be written there
-     * @return Whether or not the Address was mapped
+     * @param addr the CPU Address written to
+     * @param data the data to write
      */
     @Override
-    public boolean cpuMapRead(int addr, IntegerWrapper mapped, IntegerWrapper data) {
-        //The CPU try to read from internal RAM
-        if (addr >= 0x6000 && addr <= 0x7FFF) {
-            mapped.value = -1;
-            data.value = internal_ram[addr & 0x1FFF] & 0xFF;
-            return true;
-        }
-        //The CPU load from PRG Memory
-        if (addr >= 0x8000) {
-            //We select the right Bank by reading the control register
-            if ((control_register & 0b01000) == 0b01000) {
-                if (addr <= 0xBFFF) {
-                    mapped.value = (selected_PRG_bank_low_16K * 0x4000) + (addr & 0x3FFF);
-                    return true;
-                }
-                mapped.value = (selected_PRG_bank_high_16K * 0x4000) + (addr & 0x3FFF);
-            } else {
-                mapped.value = (selected_PRG_bank_32K * 0x8000) + (addr & 0x7FFF);
-            }
-            return true;
-        }
-        return false;
-    }
-
-    /**
-     * @param addr   the PPU Address to map
-     * @param mapped the Wrapper where to store the Mapped Address
-     * @param data   the data to write
-     * @return Whether or not the Address was mapped
-     */
-    @Override
-    public boolean cpuMapWrite(int addr, IntegerWrapper mapped, int data) {
-        //The CPU try to write to internal RAM
-        if (addr >= 0x6000 && addr <= 0x7FFF) {
-            mapped.value = -1;
-            internal_ram[addr & 0x1FFF] = (byte) data;
-            return true;
-        }
+    public void cpuWrite(int addr, int data) {
         //The CPU try to configure the Mapper circuit
         if (addr >= 0x8000) {
             //If the data has LSB set, the shift register is cleared
@@ -142,54 +103,29 @@ public class Mapper001 extends Mapper {
                 }
             }
         }
-        return false;
+        updateBanks();
     }
 
     /**
-     * @param addr   the PPU Address to map
-     * @param mapped the Wrapper where to store the Mapped Address
-     * @param data   if there is data to be read, it will be written there
-     * @return Whether or not the Address was mapped
+     * Update the bank tables according to the selected banks and the control register
      */
-    @Override
-    public boolean ppuMapRead(int addr, IntegerWrapper mapped, IntegerWrapper data) {
-        if (addr <= 0x1FFF) {
-            //If their is not banks we simply return the provided address
-            if (nb_CHR_banks == 0) {
-                mapped.value = addr;
-            } else {
-                //We select the right Bank by reading the control register
-                if ((control_register & 0b10000) == 0b10000) {
-                    if (addr <= 0x0FFF) {
-                        mapped.value = (selected_CHR_bank_low_4K * 0x1000) + (addr & 0x0FFF);
-                        return true;
-                    }
-                    mapped.value = (selected_CHR_bank_high_4K * 0x1000) + (addr & 0x0FFF);
-                } else {
-                    mapped.value = (selected_CHR_bank_8K * 0x2000) + (addr & 0x1FFF);
-                }
-            }
-            return true;
+    private void updateBanks() {
+        //We select the PRG banks by reading the control register
+        if ((control_register & 0b01000) == 0b01000) {
+            mapPRG16K(0, selected_PRG_bank_low_16K);
+            mapPRG16K(1, selected_PRG_bank_high_16K);
+        } else {
+            mapPRG32K(selected_PRG_bank_32K);
         }
-        return false;
-    }
-
-    /**
-     * @param addr   the PPU Address to map
-     * @param mapped the Wrapper where to store the Mapped Address
-     * @param data   the data to write
-     * @return Whether or not the Address was mapped
-     */
-    @Override
-    public boolean ppuMapWrite(int addr, IntegerWrapper mapped, int data) {
-        if (addr <= 0x1FFF) {
-            if (nb_CHR_banks == 0) {
-                mapped.value = addr;
-                return true;
-            }
-            return true;
+        //If their is no CHR banks the CHR RAM is directly mapped
+        if (nb_CHR_banks == 0) {
+            mapCHR8K(0);
+        } else if ((control_register & 0b10000) == 0b10000) {
+            mapCHR4K(0, selected_CHR_bank_low_4K);
+            mapCHR4K(1, selected_CHR_bank_high_4K);
+        } else {
+            mapCHR8K(selected_CHR_bank_8K);
         }
-        return false;
     }
 
     /**
@@ -217,6 +153,7 @@ public class Mapper001 extends Mapper {
         selected_PRG_bank_low_16K = 0;
         selected_PRG_bank_high_16K = nb_PRG_banks - 1;
         selected_PRG_bank_32K = 0;
+        updateBanks();
     }
 
     /**
@@ -238,4 +175,39 @@ public class Mapper001 extends Mapper {
     public byte[] getRAM() {
         return internal_ram;
     }
+
+    @Override
+    public int stateSize() {
+        return super.stateSize() + 9 * 4 + 1;
+    }
+
+    @Override
+    public void saveState(ByteBuffer buffer) {
+        super.saveState(buffer);
+        buffer.putInt(selected_CHR_bank_low_4K);
+        buffer.putInt(selected_CHR_bank_high_4K);
+        buffer.putInt(selected_CHR_bank_8K);
+        buffer.putInt(selected_PRG_bank_low_16K);
+        buffer.putInt(selected_PRG_bank_high_16K);
+        buffer.putInt(selected_PRG_bank_32K);
+        buffer.putInt(load_register);
+        buffer.putInt(load_register_count);
+        buffer.putInt(control_register);
+        putMirror(buffer, mirroring_mode);
+    }
+
+    @Override
+    public void loadState(ByteBuffer buffer) {
+        super.loadState(buffer);
+        selected_CHR_bank_low_4K = buffer.getInt();
+        selected_CHR_bank_high_4K = buffer.getInt();
+        selected_CHR_bank_8K = buffer.getInt();
+        selected_PRG_bank_low_16K = buffer.getInt();
+        selected_PRG_bank_high_16K = buffer.getInt();
+        selected_PRG_bank_32K = buffer.getInt();
+        load_register = buffer.getInt();
+        load_register_count = buffer.getInt();
+        control_register = buffer.getInt();
+        mirroring_mode = getMirror(buffer);
+    }
 }
@@ -1,7 +1,6 @@
 package core.cartridge.mappers;
 
-import utils.IntegerWrapper;
-
+import java.nio.ByteBuffer;
 
 public class Mapper002 extends Mapper {
 
@@ -18,76 +17,47 @@ public class Mapper002 extends Mapper {
     }
 
     /**
-     * @param addr   the CPU Address to map
-     * @param mapped the Wrapper where to store the Mapped Address
-     * @param data   if there is data to be read, it will be written there
-     * @return Whether or not the Address was mapped
+     * Select the lower 16KB PRG bank, the higher one is fixed to the last bank
+     *
+     * @param addr the CPU Address written to
+     * @param data the data to write
      */
     @Override
-    public boolean cpuMapRead(int addr, IntegerWrapper mapped, IntegerWrapper data) {
-        if (addr >= 0x8000 && addr <= 0xBFFF) {
-            mapped.value = (selected_PRG_bank_low * 0x4000) + (addr & 0x3FFF);
-            return true;
-        }
-        if (addr >= 0xC000) {
-            mapped.value = (selected_PRG_bank_high * 0x4000) + (addr & 0x3FFF);
-            return true;
+    public void cpuWrite(int addr, int data) {
+        if (addr >= 0x8000) {
+            selected_PRG_bank_low = data & 0x0F;
+            mapPRG16K(0, selected_PRG_bank_low);
         }
-        return false;
     }
 
     /**
-     * @param addr   the CPU Address to map
-     * @param mapped the Wrapper where to store the Mapped Address
-     * @param data   the data to write
-     * @return Whether or not the Address was mapped
+     * Reset the lower PRG bank to the first and higher PRG bank to the last one
      */
     @Override
-    public boolean cpuMapWrite(int addr, IntegerWrapper mapped, int data) {
-        if (addr >= 0x8000) {
-            selected_PRG_bank_low = data & 0x0F;
-        }
-        return false;
+    public void reset() {
+        selected_PRG_bank_low = 0;
+        selected_PRG_bank_high = nb_PRG_banks - 1;
+        mapPRG16K(0, selected_PRG_bank_low);
+        mapPRG16K(1, selected_PRG_bank_high);
+        mapCHR8K(0);
     }
 
-    /**
-     * @param addr   the PPU Address to map
-     * @param mapped the Wrapper where to store the Mapped Address
-     * @param data   if there is data to be read, it will be written there
-     * @return Whether or not the Address was mapped
-     */
     @Override
-    public boolean ppuMapRead(int addr, IntegerWrapper mapped, IntegerWrapper data) {
-        if (addr <= 0x1FFF) {
-            mapped.value = addr;
-            return true;
-        }
-        return false;
+    public int stateSize() {
+        return super.stateSize() + 2 * 4;
     }
 
-    /**
-     * @param addr   the PPU Address to map
-     * @param mapped the Wrapper where to store the Mapped Address
-     * @param data   the data to write
-     * @return Whether or not the Address was mapped
-     */
     @Override
-    public boolean ppuMapWrite(int addr, IntegerWrapper mapped, int data) {
-        if (addr <= 0x1FFF) {
-            if (nb_CHR_banks == 0) {
-                mapped.value = addr;
-                return true;
-            }
-        }
-        return false;
+    public void saveState(ByteBuffer buffer) {
+        super.saveState(buffer);
+        buffer.putInt(selected_PRG_bank_low);
+        buffer.putInt(selected_PRG_bank_high);
     }
 
-    /**
-     * Reset the lower PRG bank to the first and higher PRG bank to the last one
-     */
     @Override
-    public void reset() {
-        selected_PRG_bank_low = 0;
-        selected_PRG_bank_high = nb_PRG_banks - 1;
+    public void loadState(ByteBuffer buffer) {
+        super.loadState(buffer);
+        selected_PRG_bank_low = buffer.getInt();
+        selected_PRG_bank_high = buffer.getInt();
     }
 }
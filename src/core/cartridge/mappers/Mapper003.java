@@ -1,7 +1,6 @@
 package core.cartridge.mappers;
 
-import utils.IntegerWrapper;
-
+import java.nio.ByteBuffer;
 
 public class Mapper003 extends Mapper {
 
@@ -19,68 +18,40 @@ public class Mapper003 extends Mapper {
     }
 
     /**
-     * @param addr   the CPU Address to map
-     * @param mapped the Wrapper where to store the Mapped Address
-     * @param data   if there is data to be read, it will be written there
-     * @return Whether or not the Address was mapped
+     * Select the 8KB CHR bank, the Program Memory (16KB or 32KB) isn't banked
+     *
+     * @param addr the CPU Address written to
+     * @param data the data to write
      */
     @Override
-    public boolean cpuMapRead(int addr, IntegerWrapper mapped, IntegerWrapper data) {
+    public void cpuWrite(int addr, int data) {
         if (addr >= 0x8000) {
-            if (nb_PRG_banks == 1)
-                mapped.value = addr & 0x3FFF;
-            if (nb_PRG_banks == 2)
-                mapped.value = addr & 0x7FFF;
-            return true;
+            selected_CHR_bank = data & 0x03;
+            mapCHR8K(selected_CHR_bank);
         }
-        return false;
     }
 
-    /**
-     * @param addr   the CPU Address to map
-     * @param mapped the Wrapper where to store the Mapped Address
-     * @param data   the data to write
-     * @return Whether or not the Address was mapped
-     */
     @Override
-    public boolean cpuMapWrite(int addr, IntegerWrapper mapped, int data) {
-        if (addr >= 0x8000) {
-            selected_CHR_bank = data & 0x03;
-            mapped.value = addr;
-        }
-        return false;
+    public void reset() {
+        selected_CHR_bank = 0x00;
+        mapPRG32K(0);
+        mapCHR8K(selected_CHR_bank);
     }
 
-    /**
-     * @param addr   the PPU Address to map
-     * @param mapped the Wrapper where to store the Mapped Address
-     * @param data   if there is data to be read, it will be written there
-     * @return Whether or not the Address was mapped
-     */
     @Override
-    public boolean ppuMapRead(int addr, IntegerWrapper mapped, IntegerWrapper data) {
-        if (addr <= 0x1FFF) {
-            mapped.value = (selected_CHR_bank * 0x2000) + addr;
-            return true;
-        }
-        return false;
+    public int stateSize() {
+        return super.stateSize() + 4;
     }
 
-    /**
-     * @param addr   the PPU Address to map
-     * @param mapped the Wrapper where to store the Mapped Address
-     * @param data   the data to write
-     * @return Whether or not the Address was mapped
-     */
     @Override
-    public boolean ppuMapWrite(int addr, IntegerWrapper mapped, int data) {
-        return false;
+    public void saveState(ByteBuffer buffer) {
+        super.saveState(buffer);
+        buffer.putInt(selected_CHR_bank);
     }
 
-
     @Override
-    public void reset() {
-        selected_CHR_bank = 0x00;
+    public void loadState(ByteBuffer buffer) {
+        super.loadState(buffer);
+        selected_CHR_bank = buffer.getInt();
     }
-
 }
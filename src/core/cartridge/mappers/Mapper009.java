@@ -3,9 +3,9 @@ package core.cartridge.mappers;
 import core.ppu.Mirror;
 import exceptions.InvalidFileException;
 import utils.FileReader;
-import utils.IntegerWrapper;
 
 import java.io.EOFException;
+import java.nio.ByteBuffer;
 
 /**
  * This class implements the iNES Mapper 009 (MMC2) used by Mike Tyson's Ounch Out!!!
@@ -43,111 +43,40 @@ public class Mapper009 extends Mapper {
     }
 
     /**
-     * @param addr   the CPU Address to map
-     * @param mapped the Wrapper where to store the Mapped Address
-     * @param data   if there is data to be read, it will be written there
-     * @return Whether or not the Address was mapped
+     * @param addr the CPU Address written to
+     * @param data the data to write
      */
     @Override
-    public boolean cpuMapRead(int addr, IntegerWrapper mapped, IntegerWrapper data) {
-        //The CPU try to read from internal RAM
-        if (addr >= 0x6000 && addr <= 0x7FFF) {
-            mapped.value = -1;
-            data.value = internal_ram[addr & 0x1FFF] & 0xFF;
-            return true;
-        }
-        //The CPU load from PRG Memory
-        if (addr >= 0x8000 && addr <= 0x9FFF) {
-            mapped.value = (selected_PRG_bank * 0x2000) + (addr & 0x1FFF);
-            return true;
-        }
-        if (addr >= 0xA000 && addr <= 0xFFFF) {
-            mapped.value = 0x10000 | addr;
-            return true;
-        }
-        return false;
-    }
-
-    /**
-     * @param addr   the CPU Address to map
-     * @param mapped the Wrapper where to store the Mapped Address
-     * @param data   the data to write
-     * @return Whether or not the Address was mapped
-     */
-    @Override
-    public boolean cpuMapWrite(int addr, IntegerWrapper mapped, int data) {
-        if (addr >= 0x6000 && addr <= 0x7FFF) { // Cartridge RAM
-            mapped.value = -1;
-            internal_ram[addr & 0x1FFF] = (byte) data;
-            return true;
-        } else if (addr >= 0xA000 && addr <= 0xAFFF) {
+    public void cpuWrite(int addr, int data) {
+        if (addr >= 0xA000 && addr <= 0xAFFF) {
             selected_PRG_bank = data & 0x0F;
-            return true;
+            mapPRG8K(0, selected_PRG_bank);
         } else if (addr >= 0xB000 && addr <= 0xBFFF) {
             selected_CHR_bank_l0_FD = data & 0x1F;
-            return true;
+            updateCHRBanks();
         } else if (addr >= 0xC000 && addr <= 0xCFFF) {
             selected_CHR_bank_l0_FE = data & 0x1F;
-            return true;
+            updateCHRBanks();
         } else if (addr >= 0xD000 && addr <= 0xDFFF) {
             selected_CHR_bank_l1_FD = data & 0x1F;
-            return true;
+            updateCHRBanks();
         } else if (addr >= 0xE000 && addr <= 0xEFFF) {
             selected_CHR_bank_l1_FE = data & 0x1F;
-            return true;
+            updateCHRBanks();
         } else if (addr >= 0xF000 && addr <= 0xFFFF) {
             switch (data & 0x01) {
                 case 0 -> mirroring_mode = Mirror.VERTICAL;
                 case 1 -> mirroring_mode = Mirror.HORIZONTAL;
             }
-            return true;
-        }
-        return false;
-    }
-
-    /**
-     * @param addr   the PPU Address to map
-     * @param mapped the Wrapper where to store the Mapped Address
-     * @param data   if there is data to be read, it will be written there
-     * @return Whether or not the Address was mapped
-     */
-    @Override
-    public boolean ppuMapRead(int addr, IntegerWrapper mapped, IntegerWrapper data) {
-        if (addr <= 0x0FFF) {
-            if (latch_0 == 0xFD) {
-                mapped.value = (selected_CHR_bank_l0_FD * 0x1000) + (addr & 0x0FFF);
-                return true;
-            } else if (latch_0 == 0xFE) {
-                mapped.value = (selected_CHR_bank_l0_FE * 0x1000) + (addr & 0x0FFF);
-                return true;
-            }
-        } else if (addr <= 0x1FFF) {
-            if (latch_1 == 0xFD) {
-                mapped.value = (selected_CHR_bank_l1_FD * 0x1000) + (addr & 0x0FFF);
-                return true;
-            } else if (latch_1 == 0xFE) {
-                mapped.value = (selected_CHR_bank_l1_FE * 0x1000) + (addr & 0x0FFF);
-                return true;
-            }
         }
-        return false;
     }
 
     /**
-     * @param addr   the PPU Address to map
-     * @param mapped the Wrapper where to store the Mapped Address
-     * @param data   the data to write
-     * @return Whether or not the Address was mapped
+     * Map the two 4KB CHR banks selected by the latches
      */
-    @Override
-    public boolean ppuMapWrite(int addr, IntegerWrapper mapped, int data) {
-        if (addr <= 0x1FFF) {
-            if (nb_CHR_banks == 0) {
-                mapped.value = addr;
-                return true;
-            }
-        }
-        return false;
+    private void updateCHRBanks() {
+        mapCHR4K(0, latch_0 == 0xFE ? selected_CHR_bank_l0_FE : selected_CHR_bank_l0_FD);
+        mapCHR4K(1, latch_1 == 0xFE ? selected_CHR_bank_l1_FE : selected_CHR_bank_l1_FD);
     }
 
     /**
@@ -155,14 +84,18 @@ public class Mapper009 extends Mapper {
      */
     @Override
     public void updateLatch(int addr) {
-        if (addr == 0x0FD8)
+        //Most of the reads don't touch the latches, we only remap the banks when one of them changes
+        if (addr == 0x0FD8 && latch_0 != 0xFD)
             latch_0 = 0xFD;
-        else if (addr == 0x0FE8)
+        else if (addr == 0x0FE8 && latch_0 != 0xFE)
             latch_0 = 0xFE;
-        else if (addr >= 0x1FD8 && addr <= 0x1FDF)
+        else if (addr >= 0x1FD8 && addr <= 0x1FDF && latch_1 != 0xFD)
             latch_1 = 0xFD;
-        else if (addr >= 0x1FE8 && addr <= 0x1FEF)
+        else if (addr >= 0x1FE8 && addr <= 0x1FEF && latch_1 != 0xFE)
             latch_1 = 0xFE;
+        else
+            return;
+        updateCHRBanks();
     }
 
     /**
@@ -185,6 +118,12 @@ public class Mapper009 extends Mapper {
         selected_CHR_bank_l1_FE = 0x00;
         latch_0 = 0x00;
         latch_1 = 0x00;
+        //The first 8KB slot is switchable, the other ones are fixed to the last 3 banks
+        mapPRG8K(0, selected_PRG_bank);
+        mapPRG8K(1, nb_PRG_banks * 2 - 3);
+        mapPRG8K(2, nb_PRG_banks * 2 - 2);
+        mapPRG8K(3, nb_PRG_banks * 2 - 1);
+        updateCHRBanks();
     }
 
     /**
@@ -202,4 +141,35 @@ public class Mapper009 extends Mapper {
     public byte[] getRAM() {
         return internal_ram;
     }
+
+    @Override
+    public int stateSize() {
+        return super.stateSize() + 7 * 4 + 1;
+    }
+
+    @Override
+    public void saveState(ByteBuffer buffer) {
+        super.saveState(buffer);
+        buffer.putInt(selected_PRG_bank);
+        buffer.putInt(selected_CHR_bank_l0_FD);
+        buffer.putInt(selected_CHR_bank_l0_FE);
+        buffer.putInt(selected_CHR_bank_l1_FD);
+        buffer.putInt(selected_CHR_bank_l1_FE);
+        buffer.putInt(latch_0);
+        buffer.putInt(latch_1);
+        putMirror(buffer, mirroring_mode);
+    }
+
+    @Override
+    public void loadState(ByteBuffer buffer) {
+        super.loadState(buffer);
+        selected_PRG_bank = buffer.getInt();
+        selected_CHR_bank_l0_FD = buffer.getInt();
+        selected_CHR_bank_l0_FE = buffer.getInt();
+        selected_CHR_bank_l1_FD = buffer.getInt();
+        selected_CHR_bank_l1_FE = buffer.getInt();
+        latch_0 = buffer.getInt();
+        latch_1 = buffer.getInt();
+        mirroring_mode = getMirror(buffer);
+    }
 }
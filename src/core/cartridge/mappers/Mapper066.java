@@ -1,6 +1,6 @@
 package core.cartridge.mappers;
 
-import utils.IntegerWrapper;
+import java.nio.ByteBuffer;
 
 /**
  * This class implements the iNES Mapper 066 (GxROM)
@@ -20,65 +20,45 @@ public class Mapper066 extends Mapper {
     }
 
     /**
-     * @param addr   the CPU Address to map
-     * @param mapped the Wrapper where to store the Mapped Address
-     * @param data   if there is data to be read, it will be written there
-     * @return Whether or not the Address was mapped
+     * Select the 32KB PRG bank and the 8KB CHR bank
+     *
+     * @param addr the CPU Address written to
+     * @param data the data to write
      */
     @Override
-    public boolean cpuMapRead(int addr, IntegerWrapper mapped, IntegerWrapper data) {
-        if (addr >= 0x8000) {
-            mapped.value = (selected_PRG_bank * 0x8000) + (addr & 0x7FFF);
-            return true;
-        }
-        return false;
-    }
-
-    /**
-     * @param addr   the CPU Address to map
-     * @param mapped the Wrapper where to store the Mapped Address
-     * @param data   the data to write
-     * @return Whether or not the Address was mapped
-     */
-    @Override
-    public boolean cpuMapWrite(int addr, IntegerWrapper mapped, int data) {
+    public void cpuWrite(int addr, int data) {
         if (addr >= 0x8000) {
             selected_PRG_bank = (data & 0x30) >> 4;
             selected_CHR_bank = data & 0x03;
+            mapPRG32K(selected_PRG_bank);
+            mapCHR8K(selected_CHR_bank);
         }
-        return false;
     }
 
-    /**
-     * @param addr   the PPU Address to map
-     * @param mapped the Wrapper where to store the Mapped Address
-     * @param data   if there is data to be read, it will be written there
-     * @return Whether or not the Address was mapped
-     */
     @Override
-    public boolean ppuMapRead(int addr, IntegerWrapper mapped, IntegerWrapper data) {
-        if (addr <= 0x1FFF) {
-            mapped.value = selected_CHR_bank * 0x2000 + addr;
-            return true;
-        }
-        return false;
+    public void reset() {
+        selected_PRG_bank = 0x00;
+        selected_CHR_bank = 0x00;
+        mapPRG32K(selected_PRG_bank);
+        mapCHR8K(selected_CHR_bank);
     }
 
-    /**
-     * @param addr   the PPU Address to map
-     * @param mapped the Wrapper where to store the Mapped Address
-     * @param data   the data to write
-     * @return Whether or not the Address was mapped
-     */
     @Override
-    public boolean ppuMapWrite(int addr, IntegerWrapper mapped, int data) {
-        return false;
+    public int stateSize() {
+        return super.stateSize() + 2 * 4;
     }
 
+    @Override
+    public void saveState(ByteBuffer buffer) {
+        super.saveState(buffer);
+        buffer.putInt(selected_PRG_bank);
+        buffer.putInt(selected_CHR_bank);
+    }
 
     @Override
-    public void reset() {
-        selected_PRG_bank = 0x00;
-        selected_CHR_bank = 0x00;
+    public void loadState(ByteBuffer buffer) {
+        super.loadState(buffer);
+        selected_PRG_bank = buffer.getInt();
+        selected_CHR_bank = buffer.getInt();
     }
 }
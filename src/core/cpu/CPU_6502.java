@@ -1,16 +1,18 @@
 package core.cpu;
 
 import core.NES;
+import core.Snapshottable;
 import utils.IntegerWrapper;
 
+import java.nio.ByteBuffer;
 import java.util.*;
 
 /**
  * CPU of the NES
  */
-public class CPU_6502 {
+public class CPU_6502 implements Snapshottable {
 
-    private final List<Instruction> opcodes;
+    private final Instruction[] opcodes;
     private NES nes;
     private int accumulator = 0x00;
     private int x_register = 0x00;
@@ -26,268 +28,270 @@ public class CPU_6502 {
     private int addr_rel = 0x00;
     private long cpu_clock = 0L;
     private boolean halted;
+    private boolean irq_unmasked = false;
 
     /**
      * Here are the operation codes for the CPU
      */
     public CPU_6502() {
-        opcodes = new ArrayList<>();
-        opcodes.add(new Instruction(OPCode.BRK, AddressingMode.IMM, opcodes.size(), 7, this));
-        opcodes.add(new Instruction(OPCode.ORA, AddressingMode.IZX, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.HLT, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.ASO, AddressingMode.IZX, opcodes.size(), 8, this));
-        opcodes.add(new Instruction(OPCode.SKB, AddressingMode.IMP, opcodes.size(), 3, this));
-        opcodes.add(new Instruction(OPCode.ORA, AddressingMode.ZP0, opcodes.size(), 3, this));
-        opcodes.add(new Instruction(OPCode.ASL, AddressingMode.ZP0, opcodes.size(), 5, this));
-        opcodes.add(new Instruction(OPCode.ASO, AddressingMode.ZP0, opcodes.size(), 5, this));
-        opcodes.add(new Instruction(OPCode.PHP, AddressingMode.IMP, opcodes.size(), 3, this));
-        opcodes.add(new Instruction(OPCode.ORA, AddressingMode.IMM, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.ASL, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.ANC, AddressingMode.IMM, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.SKW, AddressingMode.IMP, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.ORA, AddressingMode.ABS, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.ASL, AddressingMode.ABS, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.ASO, AddressingMode.ABS, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.BPL, AddressingMode.REL, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.ORA, AddressingMode.IZY, opcodes.size(), 5, this));
-        opcodes.add(new Instruction(OPCode.HLT, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.ASO, AddressingMode.IZY, opcodes.size(), 8, this));
-        opcodes.add(new Instruction(OPCode.SKB, AddressingMode.IMP, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.ORA, AddressingMode.ZPX, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.ASL, AddressingMode.ZPX, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.ASO, AddressingMode.ZPX, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.CLC, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.ORA, AddressingMode.ABY, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.NOP, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.ASO, AddressingMode.ABY, opcodes.size(), 7, this));
-        opcodes.add(new Instruction(OPCode.SKW, AddressingMode.IMP, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.ORA, AddressingMode.ABX, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.ASL, AddressingMode.ABX, opcodes.size(), 7, this));
-        opcodes.add(new Instruction(OPCode.ASO, AddressingMode.ABX, opcodes.size(), 7, this));
-        opcodes.add(new Instruction(OPCode.JSR, AddressingMode.ABS, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.AND, AddressingMode.IZX, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.HLT, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.RLA, AddressingMode.IZX, opcodes.size(), 8, this));
-        opcodes.add(new Instruction(OPCode.BIT, AddressingMode.ZP0, opcodes.size(), 3, this));
-        opcodes.add(new Instruction(OPCode.AND, AddressingMode.ZP0, opcodes.size(), 3, this));
-        opcodes.add(new Instruction(OPCode.ROL, AddressingMode.ZP0, opcodes.size(), 5, this));
-        opcodes.add(new Instruction(OPCode.RLA, AddressingMode.ZP0, opcodes.size(), 5, this));
-        opcodes.add(new Instruction(OPCode.PLP, AddressingMode.IMP, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.AND, AddressingMode.IMM, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.ROL, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.ANC, AddressingMode.IMM, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.BIT, AddressingMode.ABS, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.AND, AddressingMode.ABS, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.ROL, AddressingMode.ABS, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.RLA, AddressingMode.ABS, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.BMI, AddressingMode.REL, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.AND, AddressingMode.IZY, opcodes.size(), 5, this));
-        opcodes.add(new Instruction(OPCode.HLT, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.RLA, AddressingMode.IZY, opcodes.size(), 8, this));
-        opcodes.add(new Instruction(OPCode.SKB, AddressingMode.IMP, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.AND, AddressingMode.ZPX, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.ROL, AddressingMode.ZPX, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.RLA, AddressingMode.ZPX, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.SEC, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.AND, AddressingMode.ABY, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.NOP, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.RLA, AddressingMode.ABY, opcodes.size(), 7, this));
-        opcodes.add(new Instruction(OPCode.SKW, AddressingMode.IMP, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.AND, AddressingMode.ABX, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.ROL, AddressingMode.ABX, opcodes.size(), 7, this));
-        opcodes.add(new Instruction(OPCode.RLA, AddressingMode.ABX, opcodes.size(), 7, this));
-        opcodes.add(new Instruction(OPCode.RTI, AddressingMode.IMP, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.EOR, AddressingMode.IZX, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.HLT, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.LSE, AddressingMode.IZX, opcodes.size(), 8, this));
-        opcodes.add(new Instruction(OPCode.SKB, AddressingMode.IMP, opcodes.size(), 3, this));
-        opcodes.add(new Instruction(OPCode.EOR, AddressingMode.ZP0, opcodes.size(), 3, this));
-        opcodes.add(new Instruction(OPCode.LSR, AddressingMode.ZP0, opcodes.size(), 5, this));
-        opcodes.add(new Instruction(OPCode.LSE, AddressingMode.ZP0, opcodes.size(), 5, this));
-        opcodes.add(new Instruction(OPCode.PHA, AddressingMode.IMP, opcodes.size(), 3, this));
-        opcodes.add(new Instruction(OPCode.EOR, AddressingMode.IMM, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.LSR, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.ALR, AddressingMode.IMM, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.JMP, AddressingMode.ABS, opcodes.size(), 3, this));
-        opcodes.add(new Instruction(OPCode.EOR, AddressingMode.ABS, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.LSR, AddressingMode.ABS, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.LSE, AddressingMode.ABS, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.BVC, AddressingMode.REL, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.EOR, AddressingMode.IZY, opcodes.size(), 5, this));
-        opcodes.add(new Instruction(OPCode.HLT, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.LSE, AddressingMode.IZY, opcodes.size(), 8, this));
-        opcodes.add(new Instruction(OPCode.SKB, AddressingMode.IMP, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.EOR, AddressingMode.ZPX, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.LSR, AddressingMode.ZPX, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.LSE, AddressingMode.ZPX, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.CLI, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.EOR, AddressingMode.ABY, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.NOP, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.LSE, AddressingMode.ABY, opcodes.size(), 7, this));
-        opcodes.add(new Instruction(OPCode.SKW, AddressingMode.IMP, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.EOR, AddressingMode.ABX, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.LSR, AddressingMode.ABX, opcodes.size(), 7, this));
-        opcodes.add(new Instruction(OPCode.LSE, AddressingMode.ABX, opcodes.size(), 7, this));
-        opcodes.add(new Instruction(OPCode.RTS, AddressingMode.IMP, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.ADC, AddressingMode.IZX, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.HLT, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.RRA, AddressingMode.IZX, opcodes.size(), 8, this));
-        opcodes.add(new Instruction(OPCode.SKB, AddressingMode.IMP, opcodes.size(), 3, this));
-        opcodes.add(new Instruction(OPCode.ADC, AddressingMode.ZP0, opcodes.size(), 3, this));
-        opcodes.add(new Instruction(OPCode.ROR, AddressingMode.ZP0, opcodes.size(), 5, this));
-        opcodes.add(new Instruction(OPCode.RRA, AddressingMode.ZP0, opcodes.size(), 5, this));
-        opcodes.add(new Instruction(OPCode.PLA, AddressingMode.IMP, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.ADC, AddressingMode.IMM, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.ROR, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.ARR, AddressingMode.IMM, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.JMP, AddressingMode.IND, opcodes.size(), 5, this));
-        opcodes.add(new Instruction(OPCode.ADC, AddressingMode.ABS, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.ROR, AddressingMode.ABS, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.RRA, AddressingMode.ABS, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.BVS, AddressingMode.REL, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.ADC, AddressingMode.IZY, opcodes.size(), 5, this));
-        opcodes.add(new Instruction(OPCode.HLT, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.RRA, AddressingMode.IZY, opcodes.size(), 8, this));
-        opcodes.add(new Instruction(OPCode.SKB, AddressingMode.IMP, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.ADC, AddressingMode.ZPX, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.ROR, AddressingMode.ZPX, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.RRA, AddressingMode.ZPX, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.SEI, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.ADC, AddressingMode.ABY, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.NOP, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.RRA, AddressingMode.ABY, opcodes.size(), 7, this));
-        opcodes.add(new Instruction(OPCode.SKW, AddressingMode.IMP, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.ADC, AddressingMode.ABX, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.ROR, AddressingMode.ABX, opcodes.size(), 7, this));
-        opcodes.add(new Instruction(OPCode.RRA, AddressingMode.ABX, opcodes.size(), 7, this));
-        opcodes.add(new Instruction(OPCode.SKB, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.STA, AddressingMode.IZX, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.SKB, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.AXS, AddressingMode.IZX, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.STY, AddressingMode.ZP0, opcodes.size(), 3, this));
-        opcodes.add(new Instruction(OPCode.STA, AddressingMode.ZP0, opcodes.size(), 3, this));
-        opcodes.add(new Instruction(OPCode.STX, AddressingMode.ZP0, opcodes.size(), 3, this));
-        opcodes.add(new Instruction(OPCode.AXS, AddressingMode.ZP0, opcodes.size(), 3, this));
-        opcodes.add(new Instruction(OPCode.DEY, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.SKB, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.TXA, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.XAA, AddressingMode.IMM, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.STY, AddressingMode.ABS, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.STA, AddressingMode.ABS, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.STX, AddressingMode.ABS, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.AXS, AddressingMode.ABS, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.BCC, AddressingMode.REL, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.STA, AddressingMode.IZY, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.HLT, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.AXA, AddressingMode.IZY, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.STY, AddressingMode.ZPX, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.STA, AddressingMode.ZPX, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.STX, AddressingMode.ZPY, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.AXS, AddressingMode.ZPY, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.TYA, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.STA, AddressingMode.ABY, opcodes.size(), 5, this));
-        opcodes.add(new Instruction(OPCode.TXS, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.TAS, AddressingMode.ABY, opcodes.size(), 5, this));
-        opcodes.add(new Instruction(OPCode.SAY, AddressingMode.ABX, opcodes.size(), 5, this));
-        opcodes.add(new Instruction(OPCode.STA, AddressingMode.ABX, opcodes.size(), 5, this));
-        opcodes.add(new Instruction(OPCode.XAS, AddressingMode.ABY, opcodes.size(), 5, this));
-        opcodes.add(new Instruction(OPCode.AXA, AddressingMode.ABY, opcodes.size(), 5, this));
-        opcodes.add(new Instruction(OPCode.LDY, AddressingMode.IMM, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.LDA, AddressingMode.IZX, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.LDX, AddressingMode.IMM, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.LAX, AddressingMode.IZX, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.LDY, AddressingMode.ZP0, opcodes.size(), 3, this));
-        opcodes.add(new Instruction(OPCode.LDA, AddressingMode.ZP0, opcodes.size(), 3, this));
-        opcodes.add(new Instruction(OPCode.LDX, AddressingMode.ZP0, opcodes.size(), 3, this));
-        opcodes.add(new Instruction(OPCode.LAX, AddressingMode.ZP0, opcodes.size(), 3, this));
-        opcodes.add(new Instruction(OPCode.TAY, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.LDA, AddressingMode.IMM, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.TAX, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.OAL, AddressingMode.IMM, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.LDY, AddressingMode.ABS, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.LDA, AddressingMode.ABS, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.LDX, AddressingMode.ABS, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.LAX, AddressingMode.ABS, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.BCS, AddressingMode.REL, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.LDA, AddressingMode.IZY, opcodes.size(), 5, this));
-        opcodes.add(new Instruction(OPCode.HLT, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.LAX, AddressingMode.IZY, opcodes.size(), 5, this));
-        opcodes.add(new Instruction(OPCode.LDY, AddressingMode.ZPX, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.LDA, AddressingMode.ZPX, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.LDX, AddressingMode.ZPY, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.LAX, AddressingMode.ZPY, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.CLV, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.LDA, AddressingMode.ABY, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.TSX, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.LAS, AddressingMode.ABY, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.LDY, AddressingMode.ABX, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.LDA, AddressingMode.ABX, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.LDX, AddressingMode.ABY, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.LAX, AddressingMode.ABY, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.CPY, AddressingMode.IMM, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.CMP, AddressingMode.IZX, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.SKB, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.DCM, AddressingMode.IZX, opcodes.size(), 8, this));
-        opcodes.add(new Instruction(OPCode.CPY, AddressingMode.ZP0, opcodes.size(), 3, this));
-        opcodes.add(new Instruction(OPCode.CMP, AddressingMode.ZP0, opcodes.size(), 3, this));
-        opcodes.add(new Instruction(OPCode.DEC, AddressingMode.ZP0, opcodes.size(), 5, this));
-        opcodes.add(new Instruction(OPCode.DCM, AddressingMode.ZP0, opcodes.size(), 5, this));
-        opcodes.add(new Instruction(OPCode.INY, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.CMP, AddressingMode.IMM, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.DEX, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.SAX, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.CPY, AddressingMode.ABS, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.CMP, AddressingMode.ABS, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.DEC, AddressingMode.ABS, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.DCM, AddressingMode.ABS, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.BNE, AddressingMode.REL, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.CMP, AddressingMode.IZY, opcodes.size(), 5, this));
-        opcodes.add(new Instruction(OPCode.HLT, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.DCM, AddressingMode.IZY, opcodes.size(), 8, this));
-        opcodes.add(new Instruction(OPCode.SKB, AddressingMode.IMP, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.CMP, AddressingMode.ZPX, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.DEC, AddressingMode.ZPX, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.DCM, AddressingMode.ZPX, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.CLD, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.CMP, AddressingMode.ABY, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.NOP, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.DCM, AddressingMode.ABY, opcodes.size(), 7, this));
-        opcodes.add(new Instruction(OPCode.SKW, AddressingMode.IMP, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.CMP, AddressingMode.ABX, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.DEC, AddressingMode.ABX, opcodes.size(), 7, this));
-        opcodes.add(new Instruction(OPCode.DCM, AddressingMode.ABX, opcodes.size(), 7, this));
-        opcodes.add(new Instruction(OPCode.CPX, AddressingMode.IMM, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.SBC, AddressingMode.IZX, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.SKB, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.INS, AddressingMode.IZX, opcodes.size(), 8, this));
-        opcodes.add(new Instruction(OPCode.CPX, AddressingMode.ZP0, opcodes.size(), 3, this));
-        opcodes.add(new Instruction(OPCode.SBC, AddressingMode.ZP0, opcodes.size(), 3, this));
-        opcodes.add(new Instruction(OPCode.INC, AddressingMode.ZP0, opcodes.size(), 5, this));
-        opcodes.add(new Instruction(OPCode.INS, AddressingMode.ZP0, opcodes.size(), 5, this));
-        opcodes.add(new Instruction(OPCode.INX, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.SBC, AddressingMode.IMM, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.NOP, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.SBC, AddressingMode.IMM, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.CPX, AddressingMode.ABS, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.SBC, AddressingMode.ABS, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.INC, AddressingMode.ABS, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.INS, AddressingMode.ABS, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.BEQ, AddressingMode.REL, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.SBC, AddressingMode.IZY, opcodes.size(), 5, this));
-        opcodes.add(new Instruction(OPCode.HLT, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.INS, AddressingMode.IZY, opcodes.size(), 8, this));
-        opcodes.add(new Instruction(OPCode.SKB, AddressingMode.IMP, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.SBC, AddressingMode.ZPX, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.INC, AddressingMode.ZPX, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.INS, AddressingMode.ZPX, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.SED, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.SBC, AddressingMode.ABY, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.NOP, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.INS, AddressingMode.ABY, opcodes.size(), 7, this));
-        opcodes.add(new Instruction(OPCode.SKW, AddressingMode.IMP, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.SBC, AddressingMode.ABX, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.INC, AddressingMode.ABX, opcodes.size(), 7, this));
-        opcodes.add(new Instruction(OPCode.INS, AddressingMode.ABX, opcodes.size(), 7, this));
+        List<Instruction> table = new ArrayList<>();
+        table.add(new Instruction(OPCode.BRK, AddressingMode.IMM, table.size(), 7));
+        table.add(new Instruction(OPCode.ORA, AddressingMode.IZX, table.size(), 6));
+        table.add(new Instruction(OPCode.HLT, AddressingMode.IMP, table.size(), 2));
+        table.add(new Instruction(OPCode.ASO, AddressingMode.IZX, table.size(), 8));
+        table.add(new Instruction(OPCode.SKB, AddressingMode.IMP, table.size(), 3));
+        table.add(new Instruction(OPCode.ORA, AddressingMode.ZP0, table.size(), 3));
+        table.add(new Instruction(OPCode.ASL, AddressingMode.ZP0, table.size(), 5));
+        table.add(new Instruction(OPCode.ASO, AddressingMode.ZP0, table.size(), 5));
+        table.add(new Instruction(OPCode.PHP, AddressingMode.IMP, table.size(), 3));
+        table.add(new Instruction(OPCode.ORA, AddressingMode.IMM, table.size(), 2));
+        table.add(new Instruction(OPCode.ASL, AddressingMode.IMP, table.size(), 2));
+        table.add(new Instruction(OPCode.ANC, AddressingMode.IMM, table.size(), 2));
+        table.add(new Instruction(OPCode.SKW, AddressingMode.IMP, table.size(), 4));
+        table.add(new Instruction(OPCode.ORA, AddressingMode.ABS, table.size(), 4));
+        table.add(new Instruction(OPCode.ASL, AddressingMode.ABS, table.size(), 6));
+        table.add(new Instruction(OPCode.ASO, AddressingMode.ABS, table.size(), 6));
+        table.add(new Instruction(OPCode.BPL, AddressingMode.REL, table.size(), 2));
+        table.add(new Instruction(OPCode.ORA, AddressingMode.IZY, table.size(), 5));
+        table.add(new Instruction(OPCode.HLT, AddressingMode.IMP, table.size(), 2));
+        table.add(new Instruction(OPCode.ASO, AddressingMode.IZY, table.size(), 8));
+        table.add(new Instruction(OPCode.SKB, AddressingMode.IMP, table.size(), 4));
+        table.add(new Instruction(OPCode.ORA, AddressingMode.ZPX, table.size(), 4));
+        table.add(new Instruction(OPCode.ASL, AddressingMode.ZPX, table.size(), 6));
+        table.add(new Instruction(OPCode.ASO, AddressingMode.ZPX, table.size(), 6));
+        table.add(new Instruction(OPCode.CLC, AddressingMode.IMP, table.size(), 2));
+        table.add(new Instruction(OPCode.ORA, AddressingMode.ABY, table.size(), 4));
+        table.add(new Instruction(OPCode.NOP, AddressingMode.IMP, table.size(), 2));
+        table.add(new Instruction(OPCode.ASO, AddressingMode.ABY, table.size(), 7));
+        table.add(new Instruction(OPCode.SKW, AddressingMode.IMP, table.size(), 4));
+        table.add(new Instruction(OPCode.ORA, AddressingMode.ABX, table.size(), 4));
+        table.add(new Instruction(OPCode.ASL, AddressingMode.ABX, table.size(), 7));
+        table.add(new Instruction(OPCode.ASO, AddressingMode.ABX, table.size(), 7));
+        table.add(new Instruction(OPCode.JSR, AddressingMode.ABS, table.size(), 6));
+        table.add(new Instruction(OPCode.AND, AddressingMode.IZX, table.size(), 6));
+        table.add(new Instruction(OPCode.HLT, AddressingMode.IMP, table.size(), 2));
+        table.add(new Instruction(OPCode.RLA, AddressingMode.IZX, table.size(), 8));
+        table.add(new Instruction(OPCode.BIT, AddressingMode.ZP0, table.size(), 3));
+        table.add(new Instruction(OPCode.AND, AddressingMode.ZP0, table.size(), 3));
+        table.add(new Instruction(OPCode.ROL, AddressingMode.ZP0, table.size(), 5));
+        table.add(new Instruction(OPCode.RLA, AddressingMode.ZP0, table.size(), 5));
+        table.add(new Instruction(OPCode.PLP, AddressingMode.IMP, table.size(), 4));
+        table.add(new Instruction(OPCode.AND, AddressingMode.IMM, table.size(), 2));
+        table.add(new Instruction(OPCode.ROL, AddressingMode.IMP, table.size(), 2));
+        table.add(new Instruction(OPCode.ANC, AddressingMode.IMM, table.size(), 2));
+        table.add(new Instruction(OPCode.BIT, AddressingMode.ABS, table.size(), 4));
+        table.add(new Instruction(OPCode.AND, AddressingMode.ABS, table.size(), 4));
+        table.add(new Instruction(OPCode.ROL, AddressingMode.ABS, table.size(), 6));
+        table.add(new Instruction(OPCode.RLA, AddressingMode.ABS, table.size(), 6));
+        table.add(new Instruction(OPCode.BMI, AddressingMode.REL, table.size(), 2));
+        table.add(new Instruction(OPCode.AND, AddressingMode.IZY, table.size(), 5));
+        table.add(new Instruction(OPCode.HLT, AddressingMode.IMP, table.size(), 2));
+        table.add(new Instruction(OPCode.RLA, AddressingMode.IZY, table.size(), 8));
+        table.add(new Instruction(OPCode.SKB, AddressingMode.IMP, table.size(), 4));
+        table.add(new Instruction(OPCode.AND, AddressingMode.ZPX, table.size(), 4));
+        table.add(new Instruction(OPCode.ROL, AddressingMode.ZPX, table.size(), 6));
+        table.add(new Instruction(OPCode.RLA, AddressingMode.ZPX, table.size(), 6));
+        table.add(new Instruction(OPCode.SEC, AddressingMode.IMP, table.size(), 2));
+        table.add(new Instruction(OPCode.AND, AddressingMode.ABY, table.size(), 4));
+        table.add(new Instruction(OPCode.NOP, AddressingMode.IMP, table.size(), 2));
+        table.add(new Instruction(OPCode.RLA, AddressingMode.ABY, table.size(), 7));
+        table.add(new Instruction(OPCode.SKW, AddressingMode.IMP, table.size(), 4));
+        table.add(new Instruction(OPCode.AND, AddressingMode.ABX, table.size(), 4));
+        table.add(new Instruction(OPCode.ROL, AddressingMode.ABX, table.size(), 7));
+        table.add(new Instruction(OPCode.RLA, AddressingMode.ABX, table.size(), 7));
+        table.add(new Instruction(OPCode.RTI, AddressingMode.IMP, table.size(), 6));
+        table.add(new Instruction(OPCode.EOR, AddressingMode.IZX, table.size(), 6));
+        table.add(new Instruction(OPCode.HLT, AddressingMode.IMP, table.size(), 2));
+        table.add(new Instruction(OPCode.LSE, AddressingMode.IZX, table.size(), 8));
+        table.add(new Instruction(OPCode.SKB, AddressingMode.IMP, table.size(), 3));
+        table.add(new Instruction(OPCode.EOR, AddressingMode.ZP0, table.size(), 3));
+        table.add(new Instruction(OPCode.LSR, AddressingMode.ZP0, table.size(), 5));
+        table.add(new Instruction(OPCode.LSE, AddressingMode.ZP0, table.size(), 5));
+        table.add(new Instruction(OPCode.PHA, AddressingMode.IMP, table.size(), 3));
+        table.add(new Instruction(OPCode.EOR, AddressingMode.IMM, table.size(), 2));
+        table.add(new Instruction(OPCode.LSR, AddressingMode.IMP, table.size(), 2));
+        table.add(new Instruction(OPCode.ALR, AddressingMode.IMM, table.size(), 2));
+        table.add(new Instruction(OPCode.JMP, AddressingMode.ABS, table.size(), 3));
+        table.add(new Instruction(OPCode.EOR, AddressingMode.ABS, table.size(), 4));
+        table.add(new Instruction(OPCode.LSR, AddressingMode.ABS, table.size(), 6));
+        table.add(new Instruction(OPCode.LSE, AddressingMode.ABS, table.size(), 6));
+        table.add(new Instruction(OPCode.BVC, AddressingMode.REL, table.size(), 2));
+        table.add(new Instruction(OPCode.EOR, AddressingMode.IZY, table.size(), 5));
+        table.add(new Instruction(OPCode.HLT, AddressingMode.IMP, table.size(), 2));
+        table.add(new Instruction(OPCode.LSE, AddressingMode.IZY, table.size(), 8));
+        table.add(new Instruction(OPCode.SKB, AddressingMode.IMP, table.size(), 4));
+        table.add(new Instruction(OPCode.EOR, AddressingMode.ZPX, table.size(), 4));
+        table.add(new Instruction(OPCode.LSR, AddressingMode.ZPX, table.size(), 6));
+        table.add(new Instruction(OPCode.LSE, AddressingMode.ZPX, table.size(), 6));
+        table.add(new Instruction(OPCode.CLI, AddressingMode.IMP, table.size(), 2));
+        table.add(new Instruction(OPCode.EOR, AddressingMode.ABY, table.size(), 4));
+        table.add(new Instruction(OPCode.NOP, AddressingMode.IMP, table.size(), 2));
+        table.add(new Instruction(OPCode.LSE, AddressingMode.ABY, table.size(), 7));
+        table.add(new Instruction(OPCode.SKW, AddressingMode.IMP, table.size(), 4));
+        table.add(new Instruction(OPCode.EOR, AddressingMode.ABX, table.size(), 4));
+        table.add(new Instruction(OPCode.LSR, AddressingMode.ABX, table.size(), 7));
+        table.add(new Instruction(OPCode.LSE, AddressingMode.ABX, table.size(), 7));
+        table.add(new Instruction(OPCode.RTS, AddressingMode.IMP, table.size(), 6));
+        table.add(new Instruction(OPCode.ADC, AddressingMode.IZX, table.size(), 6));
+        table.add(new Instruction(OPCode.HLT, AddressingMode.IMP, table.size(), 2));
+        table.add(new Instruction(OPCode.RRA, AddressingMode.IZX, table.size(), 8));
+        table.add(new Instruction(OPCode.SKB, AddressingMode.IMP, table.size(), 3));
+        table.add(new Instruction(OPCode.ADC, AddressingMode.ZP0, table.size(), 3));
+        table.add(new Instruction(OPCode.ROR, AddressingMode.ZP0, table.size(), 5));
+        table.add(new Instruction(OPCode.RRA, AddressingMode.ZP0, table.size(), 5));
+        table.add(new Instruction(OPCode.PLA, AddressingMode.IMP, table.size(), 4));
+        table.add(new Instruction(OPCode.ADC, AddressingMode.IMM, table.size(), 2));
+        table.add(new Instruction(OPCode.ROR, AddressingMode.IMP, table.size(), 2));
+        table.add(new Instruction(OPCode.ARR, AddressingMode.IMM, table.size(), 2));
+        table.add(new Instruction(OPCode.JMP, AddressingMode.IND, table.size(), 5));
+        table.add(new Instruction(OPCode.ADC, AddressingMode.ABS, table.size(), 4));
+        table.add(new Instruction(OPCode.ROR, AddressingMode.ABS, table.size(), 6));
+        table.add(new Instruction(OPCode.RRA, AddressingMode.ABS, table.size(), 6));
+        table.add(new Instruction(OPCode.BVS, AddressingMode.REL, table.size(), 2));
+        table.add(new Instruction(OPCode.ADC, AddressingMode.IZY, table.size(), 5));
+        table.add(new Instruction(OPCode.HLT, AddressingMode.IMP, table.size(), 2));
+        table.add(new Instruction(OPCode.RRA, AddressingMode.IZY, table.size(), 8));
+        table.add(new Instruction(OPCode.SKB, AddressingMode.IMP, table.size(), 4));
+        table.add(new Instruction(OPCode.ADC, AddressingMode.ZPX, table.size(), 4));
+        table.add(new Instruction(OPCode.ROR, AddressingMode.ZPX, table.size(), 6));
+        table.add(new Instruction(OPCode.RRA, AddressingMode.ZPX, table.size(), 6));
+        table.add(new Instruction(OPCode.SEI, AddressingMode.IMP, table.size(), 2));
+        table.add(new Instruction(OPCode.ADC, AddressingMode.ABY, table.size(), 4));
+        table.add(new Instruction(OPCode.NOP, AddressingMode.IMP, table.size(), 2));
+        table.add(new Instruction(OPCode.RRA, AddressingMode.ABY, table.size(), 7));
+        table.add(new Instruction(OPCode.SKW, AddressingMode.IMP, table.size(), 4));
+        table.add(new Instruction(OPCode.ADC, AddressingMode.ABX, table.size(), 4));
+        table.add(new Instruction(OPCode.ROR, AddressingMode.ABX, table.size(), 7));
+        table.add(new Instruction(OPCode.RRA, AddressingMode.ABX, table.size(), 7));
+        table.add(new Instruction(OPCode.SKB, AddressingMode.IMP, table.size(), 2));
+        table.add(new Instruction(OPCode.STA, AddressingMode.IZX, table.size(), 6));
+        table.add(new Instruction(OPCode.SKB, AddressingMode.IMP, table.size(), 2));
+        table.add(new Instruction(OPCode.AXS, AddressingMode.IZX, table.size(), 6));
+        table.add(new Instruction(OPCode.STY, AddressingMode.ZP0, table.size(), 3));
+        table.add(new Instruction(OPCode.STA, AddressingMode.ZP0, table.size(), 3));
+        table.add(new Instruction(OPCode.STX, AddressingMode.ZP0, table.size(), 3));
+        table.add(new Instruction(OPCode.AXS, AddressingMode.ZP0, table.size(), 3));
+        table.add(new Instruction(OPCode.DEY, AddressingMode.IMP, table.size(), 2));
+        table.add(new Instruction(OPCode.SKB, AddressingMode.IMP, table.size(), 2));
+        table.add(new Instruction(OPCode.TXA, AddressingMode.IMP, table.size(), 2));
+        table.add(new Instruction(OPCode.XAA, AddressingMode.IMM, table.size(), 2));
+        table.add(new Instruction(OPCode.STY, AddressingMode.ABS, table.size(), 4));
+        table.add(new Instruction(OPCode.STA, AddressingMode.ABS, table.size(), 4));
+        table.add(new Instruction(OPCode.STX, AddressingMode.ABS, table.size(), 4));
+        table.add(new Instruction(OPCode.AXS, AddressingMode.ABS, table.size(), 4));
+        table.add(new Instruction(OPCode.BCC, AddressingMode.REL, table.size(), 2));
+        table.add(new Instruction(OPCode.STA, AddressingMode.IZY, table.size(), 6));
+        table.add(new Instruction(OPCode.HLT, AddressingMode.IMP, table.size(), 2));
+        table.add(new Instruction(OPCode.AXA, AddressingMode.IZY, table.size(), 6));
+        table.add(new Instruction(OPCode.STY, AddressingMode.ZPX, table.size(), 4));
+        table.add(new Instruction(OPCode.STA, AddressingMode.ZPX, table.size(), 4));
+        table.add(new Instruction(OPCode.STX, AddressingMode.ZPY, table.size(), 4));
+        table.add(new Instruction(OPCode.AXS, AddressingMode.ZPY, table.size(), 4));
+        table.add(new Instruction(OPCode.TYA, AddressingMode.IMP, table.size(), 2));
+        table.add(new Instruction(OPCode.STA, AddressingMode.ABY, table.size(), 5));
+        table.add(new Instruction(OPCode.TXS, AddressingMode.IMP, table.size(), 2));
+        table.add(new Instruction(OPCode.TAS, AddressingMode.ABY, table.size(), 5));
+        table.add(new Instruction(OPCode.SAY, AddressingMode.ABX, table.size(), 5));
+        table.add(new Instruction(OPCode.STA, AddressingMode.ABX, table.size(), 5));
+        table.add(new Instruction(OPCode.XAS, AddressingMode.ABY, table.size(), 5));
+        table.add(new Instruction(OPCode.AXA, AddressingMode.ABY, table.size(), 5));
+        table.add(new Instruction(OPCode.LDY, AddressingMode.IMM, table.size(), 2));
+        table.add(new Instruction(OPCode.LDA, AddressingMode.IZX, table.size(), 6));
+        table.add(new Instruction(OPCode.LDX, AddressingMode.IMM, table.size(), 2));
+        table.add(new Instruction(OPCode.LAX, AddressingMode.IZX, table.size(), 6));
+        table.add(new Instruction(OPCode.LDY, AddressingMode.ZP0, table.size(), 3));
+        table.add(new Instruction(OPCode.LDA, AddressingMode.ZP0, table.size(), 3));
+        table.add(new Instruction(OPCode.LDX, AddressingMode.ZP0, table.size(), 3));
+        table.add(new Instruction(OPCode.LAX, AddressingMode.ZP0, table.size(), 3));
+        table.add(new Instruction(OPCode.TAY, AddressingMode.IMP, table.size(), 2));
+        table.add(new Instruction(OPCode.LDA, AddressingMode.IMM, table.size(), 2));
+        table.add(new Instruction(OPCode.TAX, AddressingMode.IMP, table.size(), 2));
+        table.add(new Instruction(OPCode.OAL, AddressingMode.IMM, table.size(), 2));
+        table.add(new Instruction(OPCode.LDY, AddressingMode.ABS, table.size(), 4));
+        table.add(new Instruction(OPCode.LDA, AddressingMode.ABS, table.size(), 4));
+        table.add(new Instruction(OPCode.LDX, AddressingMode.ABS, table.size(), 4));
+        table.add(new Instruction(OPCode.LAX, AddressingMode.ABS, table.size(), 4));
+        table.add(new Instruction(OPCode.BCS, AddressingMode.REL, table.size(), 2));
+        table.add(new Instruction(OPCode.LDA, AddressingMode.IZY, table.size(), 5));
+        table.add(new Instruction(OPCode.HLT, AddressingMode.IMP, table.size(), 2));
+        table.add(new Instruction(OPCode.LAX, AddressingMode.IZY, table.size(), 5));
+        table.add(new Instruction(OPCode.LDY, AddressingMode.ZPX, table.size(), 4));
+        table.add(new Instruction(OPCode.LDA, AddressingMode.ZPX, table.size(), 4));
+        table.add(new Instruction(OPCode.LDX, AddressingMode.ZPY, table.size(), 4));
+        table.add(new Instruction(OPCode.LAX, AddressingMode.ZPY, table.size(), 4));
+        table.add(new Instruction(OPCode.CLV, AddressingMode.IMP, table.size(), 2));
+        table.add(new Instruction(OPCode.LDA, AddressingMode.ABY, table.size(), 4));
+        table.add(new Instruction(OPCode.TSX, AddressingMode.IMP, table.size(), 2));
+        table.add(new Instruction(OPCode.LAS, AddressingMode.ABY, table.size(), 4));
+        table.add(new Instruction(OPCode.LDY, AddressingMode.ABX, table.size(), 4));
+        table.add(new Instruction(OPCode.LDA, AddressingMode.ABX, table.size(), 4));
+        table.add(new Instruction(OPCode.LDX, AddressingMode.ABY, table.size(), 4));
+        table.add(new Instruction(OPCode.LAX, AddressingMode.ABY, table.size(), 4));
+        table.add(new Instruction(OPCode.CPY, AddressingMode.IMM, table.size(), 2));
+        table.add(new Instruction(OPCode.CMP, AddressingMode.IZX, table.size(), 6));
+        table.add(new Instruction(OPCode.SKB, AddressingMode.IMP, table.size(), 2));
+        table.add(new Instruction(OPCode.DCM, AddressingMode.IZX, table.size(), 8));
+        table.add(new Instruction(OPCode.CPY, AddressingMode.ZP0, table.size(), 3));
+        table.add(new Instruction(OPCode.CMP, AddressingMode.ZP0, table.size(), 3));
+        table.add(new Instruction(OPCode.DEC, AddressingMode.ZP0, table.size(), 5));
+        table.add(new Instruction(OPCode.DCM, AddressingMode.ZP0, table.size(), 5));
+        table.add(new Instruction(OPCode.INY, AddressingMode.IMP, table.size(), 2));
+        table.add(new Instruction(OPCode.CMP, AddressingMode.IMM, table.size(), 2));
+        table.add(new Instruction(OPCode.DEX, AddressingMode.IMP, table.size(), 2));
+        table.add(new Instruction(OPCode.SAX, AddressingMode.IMP, table.size(), 2));
+        table.add(new Instruction(OPCode.CPY, AddressingMode.ABS, table.size(), 4));
+        table.add(new Instruction(OPCode.CMP, AddressingMode.ABS, table.size(), 4));
+        table.add(new Instruction(OPCode.DEC, AddressingMode.ABS, table.size(), 6));
+        table.add(new Instruction(OPCode.DCM, AddressingMode.ABS, table.size(), 6));
+        table.add(new Instruction(OPCode.BNE, AddressingMode.REL, table.size(), 2));
+        table.add(new Instruction(OPCode.CMP, AddressingMode.IZY, table.size(), 5));
+        table.add(new Instruction(OPCode.HLT, AddressingMode.IMP, table.size(), 2));
+        table.add(new Instruction(OPCode.DCM, AddressingMode.IZY, table.size(), 8));
+        table.add(new Instruction(OPCode.SKB, AddressingMode.IMP, table.size(), 4));
+        table.add(new Instruction(OPCode.CMP, AddressingMode.ZPX, table.size(), 4));
+        table.add(new Instruction(OPCode.DEC, AddressingMode.ZPX, table.size(), 6));
+        table.add(new Instruction(OPCode.DCM, AddressingMode.ZPX, table.size(), 6));
+        table.add(new Instruction(OPCode.CLD, AddressingMode.IMP, table.size(), 2));
+        table.add(new Instruction(OPCode.CMP, AddressingMode.ABY, table.size(), 4));
+        table.add(new Instruction(OPCode.NOP, AddressingMode.IMP, table.size(), 2));
+        table.add(new Instruction(OPCode.DCM, AddressingMode.ABY, table.size(), 7));
+        table.add(new Instruction(OPCode.SKW, AddressingMode.IMP, table.size(), 4));
+        table.add(new Instruction(OPCode.CMP, AddressingMode.ABX, table.size(), 4));
+        table.add(new Instruction(OPCode.DEC, AddressingMode.ABX, table.size(), 7));
+        table.add(new Instruction(OPCode.DCM, AddressingMode.ABX, table.size(), 7));
+        table.add(new Instruction(OPCode.CPX, AddressingMode.IMM, table.size(), 2));
+        table.add(new Instruction(OPCode.SBC, AddressingMode.IZX, table.size(), 6));
+        table.add(new Instruction(OPCode.SKB, AddressingMode.IMP, table.size(), 2));
+        table.add(new Instruction(OPCode.INS, AddressingMode.IZX, table.size(), 8));
+        table.add(new Instruction(OPCode.CPX, AddressingMode.ZP0, table.size(), 3));
+        table.add(new Instruction(OPCode.SBC, AddressingMode.ZP0, table.size(), 3));
+        table.add(new Instruction(OPCode.INC, AddressingMode.ZP0, table.size(), 5));
+        table.add(new Instruction(OPCode.INS, AddressingMode.ZP0, table.size(), 5));
+        table.add(new Instruction(OPCode.INX, AddressingMode.IMP, table.size(), 2));
+        table.add(new Instruction(OPCode.SBC, AddressingMode.IMM, table.size(), 2));
+        table.add(new Instruction(OPCode.NOP, AddressingMode.IMP, table.size(), 2));
+        table.add(new Instruction(OPCode.SBC, AddressingMode.IMM, table.size(), 2));
+        table.add(new Instruction(OPCode.CPX, AddressingMode.ABS, table.size(), 4));
+        table.add(new Instruction(OPCode.SBC, AddressingMode.ABS, table.size(), 4));
+        table.add(new Instruction(OPCode.INC, AddressingMode.ABS, table.size(), 6));
+        table.add(new Instruction(OPCode.INS, AddressingMode.ABS, table.size(), 6));
+        table.add(new Instruction(OPCode.BEQ, AddressingMode.REL, table.size(), 2));
+        table.add(new Instruction(OPCode.SBC, AddressingMode.IZY, table.size(), 5));
+        table.add(new Instruction(OPCode.HLT, AddressingMode.IMP, table.size(), 2));
+        table.add(new Instruction(OPCode.INS, AddressingMode.IZY, table.size(), 8));
+        table.add(new Instruction(OPCode.SKB, AddressingMode.IMP, table.size(), 4));
+        table.add(new Instruction(OPCode.SBC, AddressingMode.ZPX, table.size(), 4));
+        table.add(new Instruction(OPCode.INC, AddressingMode.ZPX, table.size(), 6));
+        table.add(new Instruction(OPCode.INS, AddressingMode.ZPX, table.size(), 6));
+        table.add(new Instruction(OPCode.SED, AddressingMode.IMP, table.size(), 2));
+        table.add(new Instruction(OPCode.SBC, AddressingMode.ABY, table.size(), 4));
+        table.add(new Instruction(OPCode.NOP, AddressingMode.IMP, table.size(), 2));
+        table.add(new Instruction(OPCode.INS, AddressingMode.ABY, table.size(), 7));
+        table.add(new Instruction(OPCode.SKW, AddressingMode.IMP, table.size(), 4));
+        table.add(new Instruction(OPCode.SBC, AddressingMode.ABX, table.size(), 4));
+        table.add(new Instruction(OPCode.INC, AddressingMode.ABX, table.size(), 7));
+        table.add(new Instruction(OPCode.INS, AddressingMode.ABX, table.size(), 7));
+        opcodes = table.toArray(new Instruction[0]);
     }
 
     /**
@@ -468,7 +472,7 @@ public class CPU_6502 {
         addr_abs &= 0xFFFF;
 
         //Dummy read
-        if (low + x_register > 0xFF || opcodes.get(opcode).assembly == OPCode.ROL)
+        if (low + x_register > 0xFF || opcode == 0x3E) //ROL abs,X always does the dummy read
             read(((high << 8) & 0xFF00) | (addr_abs & 0xFF));
         if ((addr_abs & 0xFF00) != (high << 8)) return 1;
 
@@ -550,17 +554,18 @@ public class CPU_6502 {
     }
 
     /**
+     * @param accumulator_mode true if the operand is the Accumulator (implied addressing), false if it is in memory
      * @return 0 No extra cycle required
      */
-    int asl() {
-        fetch();
+    int asl(boolean accumulator_mode) {
+        if (!accumulator_mode) fetch();
         tmp = fetched << 1;
 
         setFlag(Flags.C, (tmp & 0xFF00) > 0);
         setFlag(Flags.Z, (tmp & 0xFF) == 0x00);
         setFlag(Flags.N, (tmp & 0x80) == 0x80);
 
-        if (opcodes.get(opcode).addr_mode == AddressingMode.IMP) accumulator = tmp & 0xFF;
+        if (accumulator_mode) accumulator = tmp & 0xFF;
         else write(addr_abs, tmp & 0xFF);
 
         return 0;
@@ -953,17 +958,18 @@ public class CPU_6502 {
     }
 
     /**
+     * @param accumulator_mode true if the operand is the Accumulator (implied addressing), false if it is in memory
      * @return 0 No extra cycle required
      */
-    int lsr() {
-        fetch();
+    int lsr(boolean accumulator_mode) {
+        if (!accumulator_mode) fetch();
         setFlag(Flags.C, (fetched & 0x01) == 0x01);
         tmp = (fetched >> 1);
 
         setFlag(Flags.Z, (tmp & 0xFF) == 0x00);
         setFlag(Flags.N, (tmp & 0x80) == 0x80);
 
-        if (opcodes.get(opcode).addr_mode == AddressingMode.IMP) accumulator = tmp & 0xFF;
+        if (accumulator_mode) accumulator = tmp & 0xFF;
         else write(addr_abs, tmp & 0xFF);
 
         return 0;
@@ -1036,34 +1042,36 @@ public class CPU_6502 {
     }
 
     /**
+     * @param accumulator_mode true if the operand is the Accumulator (implied addressing), false if it is in memory
      * @return 0 No extra cycle required
      */
-    int rol() {
-        fetch();
+    int rol(boolean accumulator_mode) {
+        if (!accumulator_mode) fetch();
         tmp = (getFlag(Flags.C) ? 1 : 0) | (fetched << 1);
 
         setFlag(Flags.C, (tmp & 0xFF00) != 0x0000);
         setFlag(Flags.Z, (tmp & 0xFF) == 0x00);
         setFlag(Flags.N, (tmp & 0x80) == 0x80);
 
-        if (opcodes.get(opcode).addr_mode == AddressingMode.IMP) accumulator = tmp & 0xFF;
+        if (accumulator_mode) accumulator = tmp & 0xFF;
         else write(addr_abs, tmp & 0xFF);
 
         return 0;
     }
 
     /**
+     * @param accumulator_mode true if the operand is the Accumulator (implied addressing), false if it is in memory
      * @return 0 No extra cycle required
      */
-    int ror() {
-        fetch();
+    int ror(boolean accumulator_mode) {
+        if (!accumulator_mode) fetch();
         tmp = ((getFlag(Flags.C) ? 1 << 7 : 0) | fetched >> 1);
 
         setFlag(Flags.C, (fetched & 0x01) == 0x01);
         setFlag(Flags.Z, (tmp & 0xFF) == 0x00);
         setFlag(Flags.N, (tmp & 0x80) == 0x80);
 
-        if (opcodes.get(opcode).addr_mode == AddressingMode.IMP) accumulator = tmp & 0xFF;
+        if (accumulator_mode) accumulator = tmp & 0xFF;
         else write(addr_abs, tmp & 0xFF);
 
         return 0;
@@ -1243,27 +1251,27 @@ public class CPU_6502 {
     }
 
     int aso() {
-        asl();
+        asl(false);
         ora();
         return 0;
     }
 
     int rla() {
-        rol();
+        rol(false);
         and();
 
         return 0;
     }
 
     int lse() {
-        lsr();
+        lsr(false);
         eor();
 
         return 0;
     }
 
     int rra() {
-        ror();
+        ror(false);
         adc();
 
         return 0;
@@ -1342,7 +1350,7 @@ public class CPU_6502 {
     }
 
     int sax() {
-        fetch();
+        //Implied addressing, the operand is the Accumulator set by imp()
         tmp = (accumulator & x_register) & 0xFF;
 
         setFlag(Flags.C, tmp >= fetched);
@@ -1363,9 +1371,7 @@ public class CPU_6502 {
     }
 
     int skw() {
-        fetch();
         skb();
-        fetch();
         skb();
 
         return 1;
@@ -1441,31 +1447,337 @@ public class CPU_6502 {
     public void clock() {
         if (!halted) {
             //Check if the CPU finished the last instruction (this is given by the cycles)
-            if (cycles <= 0) {
-
-                //Fetch the Operation Code
-                opcode = read(program_counter);
-                setFlag(Flags.U, true);
-                //Increment the Program Counter
-                program_counter++;
-                program_counter &= 0xFFFF;
-                //Pull the Instruction via the opcodes
-                Instruction instr = opcodes.get(opcode);
-                //Set the required number of cycle for this instruction
-                cycles = instr.cycles;
-                //Execute the Instruction (Fetch data + treatment)
-                int additional_cycle_1 = instr.addrmode();
-                int additional_cycle_2 = instr.operate();
-                //If the Instruction is susceptible of requiring an extra cycle and the addressing mode require one, we can set an extra cycle.
-                cycles += (additional_cycle_1 & additional_cycle_2);
-                setFlag(Flags.U, true);
-            }
+            if (cycles <= 0)
+                executeInstruction();
             //Decrement the remaining busy cycle index
             cpu_clock++;
             cycles--;
         }
     }
 
+    /**
+     * Execute a whole Instruction at once, or the remaining cycles of the current one
+     * (after an Interrupt or when switching from tick by tick execution)
+     *
+     * @return the number of CPU cycles used
+     */
+    public int step() {
+        //A halted CPU doesn't execute anything but the time still elapse
+        if (halted)
+            return 1;
+        if (cycles <= 0)
+            executeInstruction();
+        int used = cycles;
+        cpu_clock += used;
+        cycles = 0;
+        return used;
+    }
+
+    /**
+     * Fetch and execute the next Instruction, and set the number of cycles it requires
+     */
+    private void executeInstruction() {
+        //Fetch the Operation Code
+        opcode = read(program_counter);
+        setFlag(Flags.U, true);
+        //Increment the Program Counter
+        program_counter++;
+        program_counter &= 0xFFFF;
+        //Set the required number of cycle for this instruction
+        cycles = opcodes[opcode].cycles;
+        //Execute the Instruction (Fetch data + treatment), branches may add cycles while executing
+        boolean masked = getFlag(Flags.I);
+        int additional_cycle = execute(opcode);
+        cycles += additional_cycle;
+        setFlag(Flags.U, true);
+        //CLI, PLP or RTI may let a pending IRQ through
+        if (masked && !getFlag(Flags.I))
+            irq_unmasked = true;
+    }
+
+    /**
+     * Return whether the last Instruction cleared the I Flag, an IRQ held by a component can then be taken
+     * The state is reset once read
+     *
+     * @return has the I Flag been cleared since the last call
+     */
+    public boolean irqUnmasked() {
+        boolean unmasked = irq_unmasked;
+        irq_unmasked = false;
+        return unmasked;
+    }
+
+    /**
+     * Execute the Instruction associated to an Operation Code
+     * The Addressing Mode and the Operation are resolved at compile time, which avoid any
+     * indirection or allocation when running the CPU
+     *
+     * @param opcode the Operation Code to execute
+     * @return 1 if the Addressing Mode and the Operation both require an extra cycle, 0 otherwise
+     */
+    private int execute(int opcode) {
+        //If the Instruction is susceptible of requiring an extra cycle and the addressing mode require one, we set an extra cycle
+        return switch (opcode) {
+            case 0x00 -> imm() & brk();
+            case 0x01 -> izx() & ora();
+            case 0x02 -> imp() & hlt();
+            case 0x03 -> izx() & aso();
+            case 0x04 -> imp() & skb();
+            case 0x05 -> zp0() & ora();
+            case 0x06 -> zp0() & asl(false);
+            case 0x07 -> zp0() & aso();
+            case 0x08 -> imp() & php();
+            case 0x09 -> imm() & ora();
+            case 0x0A -> imp() & asl(true);
+            case 0x0B -> imm() & anc();
+            case 0x0C -> imp() & skw();
+            case 0x0D -> abs() & ora();
+            case 0x0E -> abs() & asl(false);
+            case 0x0F -> abs() & aso();
+            case 0x10 -> rel() & bpl();
+            case 0x11 -> izy() & ora();
+            case 0x12 -> imp() & hlt();
+            case 0x13 -> izy() & aso();
+            case 0x14 -> imp() & skb();
+            case 0x15 -> zpx() & ora();
+            case 0x16 -> zpx() & asl(false);
+            case 0x17 -> zpx() & aso();
+            case 0x18 -> imp() & clc();
+            case 0x19 -> aby() & ora();
+            case 0x1A -> imp() & nop();
+            case 0x1B -> aby() & aso();
+            case 0x1C -> imp() & skw();
+            case 0x1D -> abx() & ora();
+            case 0x1E -> abx() & asl(false);
+            case 0x1F -> abx() & aso();
+            case 0x20 -> abs() & jsr();
+            case 0x21 -> izx() & and();
+            case 0x22 -> imp() & hlt();
+            case 0x23 -> izx() & rla();
+            case 0x24 -> zp0() & bit();
+            case 0x25 -> zp0() & and();
+            case 0x26 -> zp0() & rol(false);
+            case 0x27 -> zp0() & rla();
+            case 0x28 -> imp() & plp();
+            case 0x29 -> imm() & and();
+            case 0x2A -> imp() & rol(true);
+            case 0x2B -> imm() & anc();
+            case 0x2C -> abs() & bit();
+            case 0x2D -> abs() & and();
+            case 0x2E -> abs() & rol(false);
+            case 0x2F -> abs() & rla();
+            case 0x30 -> rel() & bmi();
+            case 0x31 -> izy() & and();
+            case 0x32 -> imp() & hlt();
+            case 0x33 -> izy() & rla();
+            case 0x34 -> imp() & skb();
+            case 0x35 -> zpx() & and();
+            case 0x36 -> zpx() & rol(false);
+            case 0x37 -> zpx() & rla();
+            case 0x38 -> imp() & sec();
+            case 0x39 -> aby() & and();
+            case 0x3A -> imp() & nop();
+            case 0x3B -> aby() & rla();
+            case 0x3C -> imp() & skw();
+            case 0x3D -> abx() & and();
+            case 0x3E -> abx() & rol(false);
+            case 0x3F -> abx() & rla();
+            case 0x40 -> imp() & rti();
+            case 0x41 -> izx() & eor();
+            case 0x42 -> imp() & hlt();
+            case 0x43 -> izx() & lse();
+            case 0x44 -> imp() & skb();
+            case 0x45 -> zp0() & eor();
+            case 0x46 -> zp0() & lsr(false);
+            case 0x47 -> zp0() & lse();
+            case 0x48 -> imp() & pha();
+            case 0x49 -> imm() & eor();
+            case 0x4A -> imp() & lsr(true);
+            case 0x4B -> imm() & alr();
+            case 0x4C -> abs() & jmp();
+            case 0x4D -> abs() & eor();
+            case 0x4E -> abs() & lsr(false);
+            case 0x4F -> abs() & lse();
+            case 0x50 -> rel() & bvc();
+            case 0x51 -> izy() & eor();
+            case 0x52 -> imp() & hlt();
+            case 0x53 -> izy() & lse();
+            case 0x54 -> imp() & skb();
+            case 0x55 -> zpx() & eor();
+            case 0x56 -> zpx() & lsr(false);
+            case 0x57 -> zpx() & lse();
+            case 0x58 -> imp() & cli();
+            case 0x59 -> aby() & eor();
+            case 0x5A -> imp() & nop();
+            case 0x5B -> aby() & lse();
+            case 0x5C -> imp() & skw();
+            case 0x5D -> abx() & eor();
+            case 0x5E -> abx() & lsr(false);
+            case 0x5F -> abx() & lse();
+            case 0x60 -> imp() & rts();
+            case 0x61 -> izx() & adc();
+            case 0x62 -> imp() & hlt();
+            case 0x63 -> izx() & rra();
+            case 0x64 -> imp() & skb();
+            case 0x65 -> zp0() & adc();
+            case 0x66 -> zp0() & ror(false);
+            case 0x67 -> zp0() & rra();
+            case 0x68 -> imp() & pla();
+            case 0x69 -> imm() & adc();
+            case 0x6A -> imp() & ror(true);
+            case 0x6B -> imm() & arr();
+            case 0x6C -> ind() & jmp();
+            case 0x6D -> abs() & adc();
+            case 0x6E -> abs() & ror(false);
+            case 0x6F -> abs() & rra();
+            case 0x70 -> rel() & bvs();
+            case 0x71 -> izy() & adc();
+            case 0x72 -> imp() & hlt();
+            case 0x73 -> izy() & rra();
+            case 0x74 -> imp() & skb();
+            case 0x75 -> zpx() & adc();
+            case 0x76 -> zpx() & ror(false);
+            case 0x77 -> zpx() & rra();
+            case 0x78 -> imp() & sei();
+            case 0x79 -> aby() & adc();
+            case 0x7A -> imp() & nop();
+            case 0x7B -> aby() & rra();
+            case 0x7C -> imp() & skw();
+            case 0x7D -> abx() & adc();
+            case 0x7E -> abx() & ror(false);
+            case 0x7F -> abx() & rra();
+            case 0x80 -> imp() & skb();
+            case 0x81 -> izx() & sta();
+            case 0x82 -> imp() & skb();
+            case 0x83 -> izx() & axs();
+            case 0x84 -> zp0() & sty();
+            case 0x85 -> zp0() & sta();
+            case 0x86 -> zp0() & stx();
+            case 0x87 -> zp0() & axs();
+            case 0x88 -> imp() & dey();
+            case 0x89 -> imp() & skb();
+            case 0x8A -> imp() & txa();
+            case 0x8B -> imm() & xaa();
+            case 0x8C -> abs() & sty();
+            case 0x8D -> abs() & sta();
+            case 0x8E -> abs() & stx();
+            case 0x8F -> abs() & axs();
+            case 0x90 -> rel() & bcc();
+            case 0x91 -> izy() & sta();
+            case 0x92 -> imp() & hlt();
+            case 0x93 -> izy() & axa();
+            case 0x94 -> zpx() & sty();
+            case 0x95 -> zpx() & sta();
+            case 0x96 -> zpy() & stx();
+            case 0x97 -> zpy() & axs();
+            case 0x98 -> imp() & tya();
+            case 0x99 -> aby() & sta();
+            case 0x9A -> imp() & txs();
+            case 0x9B -> aby() & tas();
+            case 0x9C -> abx() & say();
+            case 0x9D -> abx() & sta();
+            case 0x9E -> aby() & xas();
+            case 0x9F -> aby() & axa();
+            case 0xA0 -> imm() & ldy();
+            case 0xA1 -> izx() & lda();
+            case 0xA2 -> imm() & ldx();
+            case 0xA3 -> izx() & lax();
+            case 0xA4 -> zp0() & ldy();
+            case 0xA5 -> zp0() & lda();
+            case 0xA6 -> zp0() & ldx();
+            case 0xA7 -> zp0() & lax();
+            case 0xA8 -> imp() & tay();
+            case 0xA9 -> imm() & lda();
+            case 0xAA -> imp() & tax();
+            case 0xAB -> imm() & oal();
+            case 0xAC -> abs() & ldy();
+            case 0xAD -> abs() & lda();
+            case 0xAE -> abs() & ldx();
+            case 0xAF -> abs() & lax();
+            case 0xB0 -> rel() & bcs();
+            case 0xB1 -> izy() & lda();
+            case 0xB2 -> imp() & hlt();
+            case 0xB3 -> izy() & lax();
+            case 0xB4 -> zpx() & ldy();
+            case 0xB5 -> zpx() & lda();
+            case 0xB6 -> zpy() & ldx();
+            case 0xB7 -> zpy() & lax();
+            case 0xB8 -> imp() & clv();
+            case 0xB9 -> aby() & lda();
+            case 0xBA -> imp() & tsx();
+            case 0xBB -> aby() & las();
+            case 0xBC -> abx() & ldy();
+            case 0xBD -> abx() & lda();
+            case 0xBE -> aby() & ldx();
+            case 0xBF -> aby() & lax();
+            case 0xC0 -> imm() & cpy();
+            case 0xC1 -> izx() & cmp();
+            case 0xC2 -> imp() & skb();
+            case 0xC3 -> izx() & dcm();
+            case 0xC4 -> zp0() & cpy();
+            case 0xC5 -> zp0() & cmp();
+            case 0xC6 -> zp0() & dec();
+            case 0xC7 -> zp0() & dcm();
+            case 0xC8 -> imp() & iny();
+            case 0xC9 -> imm() & cmp();
+            case 0xCA -> imp() & dex();
+            case 0xCB -> imp() & sax();
+            case 0xCC -> abs() & cpy();
+            case 0xCD -> abs() & cmp();
+            case 0xCE -> abs() & dec();
+            case 0xCF -> abs() & dcm();
+            case 0xD0 -> rel() & bne();
+            case 0xD1 -> izy() & cmp();
+            case 0xD2 -> imp() & hlt();
+            case 0xD3 -> izy() & dcm();
+            case 0xD4 -> imp() & skb();
+            case 0xD5 -> zpx() & cmp();
+            case 0xD6 -> zpx() & dec();
+            case 0xD7 -> zpx() & dcm();
+            case 0xD8 -> imp() & cld();
+            case 0xD9 -> aby() & cmp();
+            case 0xDA -> imp() & nop();
+            case 0xDB -> aby() & dcm();
+            case 0xDC -> imp() & skw();
+            case 0xDD -> abx() & cmp();
+            case 0xDE -> abx() & dec();
+            case 0xDF -> abx() & dcm();
+            case 0xE0 -> imm() & cpx();
+            case 0xE1 -> izx() & sbc();
+            case 0xE2 -> imp() & skb();
+            case 0xE3 -> izx() & ins();
+            case 0xE4 -> zp0() & cpx();
+            case 0xE5 -> zp0() & sbc();
+            case 0xE6 -> zp0() & inc();
+            case 0xE7 -> zp0() & ins();
+            case 0xE8 -> imp() & inx();
+            case 0xE9 -> imm() & sbc();
+            case 0xEA -> imp() & nop();
+            case 0xEB -> imm() & sbc();
+            case 0xEC -> abs() & cpx();
+            case 0xED -> abs() & sbc();
+            case 0xEE -> abs() & inc();
+            case 0xEF -> abs() & ins();
+            case 0xF0 -> rel() & beq();
+            case 0xF1 -> izy() & sbc();
+            case 0xF2 -> imp() & hlt();
+            case 0xF3 -> izy() & ins();
+            case 0xF4 -> imp() & skb();
+            case 0xF5 -> zpx() & sbc();
+            case 0xF6 -> zpx() & inc();
+            case 0xF7 -> zpx() & ins();
+            case 0xF8 -> imp() & sed();
+            case 0xF9 -> aby() & sbc();
+            case 0xFA -> imp() & nop();
+            case 0xFB -> aby() & ins();
+            case 0xFC -> imp() & skw();
+            case 0xFD -> abx() & sbc();
+            case 0xFE -> abx() & inc();
+            case 0xFF -> abx() & ins();
+            default -> 0;
+        };
+    }
+
     /**
      * Reset the CPU to the default state
      */
@@ -1540,8 +1852,7 @@ public class CPU_6502 {
     }
 
     private void fetch() {
-        if (opcodes.get(opcode).addr_mode != AddressingMode.IMP)
-            fetched = read(addr_abs);
+        fetched = read(addr_abs);
     }
 
     /**
@@ -1615,7 +1926,7 @@ public class CPU_6502 {
         String line = String.format("$%04X:" + separator, addr);
         int opcode = nes.cpuRead(addr, true);
         addr = (addr + 1) & 0x1FFFF;
-        Instruction instr = opcodes.get(opcode);
+        Instruction instr = opcodes[opcode];
         if (instr.assembly != OPCode.XXX)
             line += instr.assembly + separator;
         else
@@ -1692,6 +2003,57 @@ public class CPU_6502 {
         return line + separator + instr.assembly.type;
     }
 
+    @Override
+    public int stateSize() {
+        return 12 * 4 + 8 + 1;
+    }
+
+    /**
+     * Write the registers and the state of the current instruction
+     *
+     * @param buffer the buffer to write to
+     */
+    @Override
+    public void saveState(ByteBuffer buffer) {
+        buffer.putInt(accumulator);
+        buffer.putInt(x_register);
+        buffer.putInt(y_register);
+        buffer.putInt(stack_pointer);
+        buffer.putInt(status);
+        buffer.putInt(program_counter);
+        buffer.putInt(tmp);
+        buffer.putInt(fetched);
+        buffer.putInt(opcode);
+        buffer.putInt(cycles);
+        buffer.putInt(addr_abs);
+        buffer.putInt(addr_rel);
+        buffer.putLong(cpu_clock);
+        Snapshottable.putBoolean(buffer, halted);
+    }
+
+    /**
+     * Restore the registers and the state of the current instruction
+     *
+     * @param buffer the buffer to read from
+     */
+    @Override
+    public void loadState(ByteBuffer buffer) {
+        accumulator = buffer.getInt();
+        x_register = buffer.getInt();
+        y_register = buffer.getInt();
+        stack_pointer = buffer.getInt();
+        status = buffer.getInt();
+        program_counter = buffer.getInt();
+        tmp = buffer.getInt();
+        fetched = buffer.getInt();
+        opcode = buffer.getInt();
+        cycles = buffer.getInt();
+        addr_abs = buffer.getInt();
+        addr_rel = buffer.getInt();
+        cpu_clock = buffer.getLong();
+        halted = Snapshottable.getBoolean(buffer);
+    }
+
     /**
      * @return is the current instruction complete
      */
@@ -0,0 +1,124 @@
+package core.ppu;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class hands the frames rendered by the PPU over to the display without locking or copying
+ * It holds 3 buffers: the back one written by the PPU, the front one read by the display
+ * and a middle one holding the latest complete frame, the buffers are exchanged through an atomic index swap
+ * The producer never waits and the consumer always gets the latest complete frame
+ */
+public class FrameExchange {
+
+    private static final int FRESH = 0x4;   // Set in the middle index when it holds a frame the consumer hasn't seen
+    private static final int INDEX = 0x3;
+
+    private final ByteBuffer[] buffers;
+    private final IntBuffer[] pixels;
+    private final long[] sequences;
+    private final AtomicInteger middle;
+
+    private int back;
+    private int front;
+    private long sequence = 0;
+    private volatile long dropped_frames = 0;
+    private volatile long duplicated_frames = 0;
+
+    /**
+     * Create the exchange and its 3 buffers
+     *
+     * @param width  the width of a frame in pixels
+     * @param height the height of a frame in pixels
+     */
+    FrameExchange(int width, int height) {
+        buffers = new ByteBuffer[3];
+        pixels = new IntBuffer[3];
+        sequences = new long[3];
+        for (int i = 0; i < 3; i++) {
+            buffers[i] = ByteBuffer.allocateDirect(width * height * 4).order(ByteOrder.nativeOrder());
+            //The pixels are packed as 0xRRGGBBAA, a big endian view lays them out as R, G, B, A bytes in the buffer
+            pixels[i] = buffers[i].duplicate().order(ByteOrder.BIG_ENDIAN).asIntBuffer();
+        }
+        back = 0;
+        middle = new AtomicInteger(1);
+        front = 2;
+    }
+
+    /**
+     * Producer side: return the buffer the current frame is rendered into
+     *
+     * @return the back buffer, as packed RGBA pixels
+     */
+    IntBuffer getBackBuffer() {
+        return pixels[back];
+    }
+
+    /**
+     * Producer side: publish the back buffer as the latest complete frame and take a new back buffer
+     * If the previous frame hasn't been acquired by the consumer, it is dropped
+     */
+    void publish() {
+        sequences[back] = ++sequence;
+        int previous = middle.getAndSet(back | FRESH);
+        if ((previous & FRESH) == FRESH)
+            dropped_frames++;
+        back = previous & INDEX;
+    }
+
+    /**
+     * Consumer side: take the latest complete frame if a new one has been published since the last call
+     * If not, the front buffer is left untouched and the frame will be displayed again
+     *
+     * @return has a new frame been acquired
+     */
+    public boolean acquire() {
+        if ((middle.get() & FRESH) == 0) {
+            duplicated_frames++;
+            return false;
+        }
+        front = middle.getAndSet(front) & INDEX;
+        return true;
+    }
+
+    /**
+     * Consumer side: return the last acquired frame
+     *
+     * @return the front buffer, that can be loaded into a texture
+     */
+    public ByteBuffer getFrontBuffer() {
+        return buffers[front];
+    }
+
+    /**
+     * Consumer side: return the sequence number of the last acquired frame
+     *
+     * @return the sequence number of the front frame, 0 if none has been acquired yet
+     */
+    public long getFrontSequence() {
+        return sequences[front];
+    }
+
+    /**
+     * @return the number of frames published by the PPU
+     */
+    public long getPublishedFrames() {
+        return sequence;
+    }
+
+    /**
+     * @return the number of frames overwritten before the consumer could acquire them
+     */
+    public long getDroppedFrames() {
+        return dropped_frames;
+    }
+
+    /**
+     * @return the number of times the consumer asked for a frame and had to keep the previous one
+     */
+    public long getDuplicatedFrames() {
+        return duplicated_frames;
+    }
+}
@@ -1,53 +1,54 @@
 package core.ppu;
 
+import core.Snapshottable;
 import core.cartridge.Cartridge;
 import core.ppu.registers.*;
-import gui.lwjgui.windows.Tile;
-import javafx.scene.image.WritableImage;
-import javafx.scene.paint.Color;
-import org.lwjgl.BufferUtils;
-import utils.IntegerWrapper;
 import utils.NumberUtils;
 
 import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
 
 /**
  * This class represent the PPU of the NES
  * Here we are handling all the graphics
  */
-public class PPU_2C02 {
+public class PPU_2C02 implements Snapshottable {
 
     public static final int SCREEN_WIDTH = 256;
     public static final int SCREEN_HEIGHT = 240;
 
-    private final Color[] system_palette;
-    private final ByteBuffer screen_buffer;
-    private final ByteBuffer screen_buffer_tmp;
+    private final int[] system_palette;
+    private final FrameExchange frame_exchange;
+    private IntBuffer screen_pixels_tmp;
+    private final int[] scanline_pixels;
 
     private final byte[][] nametable_memory;
+    private final byte[][] nametable_pages;
     private final byte[] palette_memory;
-    private final byte[][] patterntable_memory;
 
     private final MaskRegister mask_register;
     private final ControlRegister control_register;
     private final StatusRegister status_register;
-    private final LoopyRegister vram_addr;
-    private final LoopyRegister tram_addr;
-
-    private final ObjectAttribute[] oams;
-    private final ObjectAttribute[] visible_oams;
+    private final byte[] oam;            // 64 sprites of 4 bytes: Y, Tile ID, Attribute, X
+    private final byte[] secondary_oam;  // The 8 sprites of the next scanline, X is used as the sprite counter
+    private final ObjectAttribute[] oam_views;
 
     private final int[] sprite_shift_pattern_low;
     private final int[] sprite_shift_pattern_high;
 
     public boolean frame_complete;
     private Cartridge cartridge;
+    private Mirror mirroring;
 
     private int sprite_count;
     private int address_latch = 0x00;
     private int ppu_data_buffer = 0x00;
     private int oam_addr = 0x00;
     private int fine_x = 0x00;
+    //Loopy Registers (15bit): fine Y (14-12), nametable Y (11), nametable X (10), coarse Y (9-5), coarse X (4-0)
+    private int vram_addr = 0x0000;
+    private int tram_addr = 0x0000;
 
     private int bg_next_tile_id = 0x00;
     private int bg_next_tile_attrib = 0x00;
@@ -67,106 +68,129 @@ public class PPU_2C02 {
     private boolean odd_frame = false;
     private boolean nmi;
 
+    private boolean scanline_rendering = true;
+    private final int[] sprite_line;
+    private final int[] background_line;
+
     /**
      * Create a new PPU, instantiate its components and fill up the palettes
      */
     public PPU_2C02() {
         nametable_memory = new byte[2][1024];
-        patterntable_memory = new byte[2][4096];
+        nametable_pages = new byte[][]{nametable_memory[0], nametable_memory[0], nametable_memory[1], nametable_memory[1]};
         palette_memory = new byte[32];
-        system_palette = new Color[0x40];
-        screen_buffer = BufferUtils.createByteBuffer(SCREEN_HEIGHT * SCREEN_WIDTH * 4);
-        screen_buffer_tmp = BufferUtils.createByteBuffer(SCREEN_HEIGHT * SCREEN_WIDTH * 4);
+        system_palette = new int[0x40];
+        frame_exchange = new FrameExchange(SCREEN_WIDTH, SCREEN_HEIGHT);
+        screen_pixels_tmp = frame_exchange.getBackBuffer();
+        scanline_pixels = new int[SCREEN_WIDTH];
         frame_complete = false;
+        sprite_line = new int[SCREEN_WIDTH];
+        background_line = new int[SCREEN_WIDTH];
         scanline = 0;
         cycle = 0;
         mask_register = new MaskRegister();
         control_register = new ControlRegister();
         status_register = new StatusRegister();
-        vram_addr = new LoopyRegister();
-        tram_addr = new LoopyRegister();
-        oams = new ObjectAttribute[64];
-        for (int i = 0; i < oams.length; i++)
-            oams[i] = new ObjectAttribute();
-        visible_oams = new ObjectAttribute[8];
-        for (int i = 0; i < visible_oams.length; i++)
-            visible_oams[i] = new ObjectAttribute();
+        oam = new byte[256];
+        secondary_oam = new byte[32];
+        oam_views = new ObjectAttribute[64];
+        for (int i = 0; i < oam_views.length; i++)
+            oam_views[i] = new ObjectAttribute(oam, i);
         sprite_shift_pattern_low = new int[8];
         sprite_shift_pattern_high = new int[8];
 
         // Here is the palette table
 
-        system_palette[0x00] = new Color(84 / 255.0, 84 / 255.0, 84 / 255.0, 1);
-        system_palette[0x01] = new Color(0 / 255.0, 30 / 255.0, 116 / 255.0, 1);
-        system_palette[0x02] = new Color(8 / 255.0, 16 / 255.0, 144 / 255.0, 1);
-        system_palette[0x03] = new Color(48 / 255.0, 0 / 255.0, 136 / 255.0, 1);
-        system_palette[0x04] = new Color(68 / 255.0, 0 / 255.0, 100 / 255.0, 1);
-        system_palette[0x05] = new Color(92 / 255.0, 0 / 255.0, 48 / 255.0, 1);
-        system_palette[0x06] = new Color(84 / 255.0, 4 / 255.0, 0 / 255.0, 1);
-        system_palette[0x07] = new Color(60 / 255.0, 24 / 255.0, 0 / 255.0, 1);
-        system_palette[0x08] = new Color(32 / 255.0, 42 / 255.0, 0 / 255.0, 1);
-        system_palette[0x09] = new Color(8 / 255.0, 58 / 255.0, 0 / 255.0, 1);
-        system_palette[0x0A] = new Color(0 / 255.0, 64 / 255.0, 0 / 255.0, 1);
-        system_palette[0x0B] = new Color(0 / 255.0, 60 / 255.0, 0 / 255.0, 1);
-        system_palette[0x0C] = new Color(0 / 255.0, 50 / 255.0, 60 / 255.0, 1);
-        system_palette[0x0D] = new Color(0 / 255.0, 0 / 255.0, 0 / 255.0, 1);
-        system_palette[0x0E] = new Color(0 / 255.0, 0 / 255.0, 0 / 255.0, 1);
-        system_palette[0x0F] = new Color(0 / 255.0, 0 / 255.0, 0 / 255.0, 1);
-        system_palette[0x10] = new Color(152 / 255.0, 150 / 255.0, 152 / 255.0, 1);
-        system_palette[0x11] = new Color(8 / 255.0, 76 / 255.0, 196 / 255.0, 1);
-        system_palette[0x12] = new Color(48 / 255.0, 50 / 255.0, 236 / 255.0, 1);
-        system_palette[0x13] = new Color(92 / 255.0, 30 / 255.0, 228 / 255.0, 1);
-        system_palette[0x14] = new Color(136 / 255.0, 20 / 255.0, 176 / 255.0, 1);
-        system_palette[0x15] = new Color(160 / 255.0, 20 / 255.0, 100 / 255.0, 1);
-        system_palette[0x16] = new Color(152 / 255.0, 34 / 255.0, 32 / 255.0, 1);
-        system_palette[0x17] = new Color(120 / 255.0, 60 / 255.0, 0 / 255.0, 1);
-        system_palette[0x18] = new Color(84 / 255.0, 90 / 255.0, 0 / 255.0, 1);
-        system_palette[0x19] = new Color(40 / 255.0, 114 / 255.0, 0 / 255.0, 1);
-        system_palette[0x1A] = new Color(8 / 255.0, 124 / 255.0, 0 / 255.0, 1);
-        system_palette[0x1B] = new Color(0 / 255.0, 118 / 255.0, 40 / 255.0, 1);
-        system_palette[0x1C] = new Color(0 / 255.0, 102 / 255.0, 120 / 255.0, 1);
-        system_palette[0x1D] = new Color(0 / 255.0, 0 / 255.0, 0 / 255.0, 1);
-        system_palette[0x1E] = new Color(0 / 255.0, 0 / 255.0, 0 / 255.0, 1);
-        system_palette[0x1F] = new Color(0 / 255.0, 0 / 255.0, 0 / 255.0, 1);
-        system_palette[0x20] = new Color(236 / 255.0, 238 / 255.0, 236 / 255.0, 1);
-        system_palette[0x21] = new Color(76 / 255.0, 154 / 255.0, 236 / 255.0, 1);
-        system_palette[0x22] = new Color(120 / 255.0, 124 / 255.0, 236 / 255.0, 1);
-        system_palette[0x23] = new Color(176 / 255.0, 98 / 255.0, 236 / 255.0, 1);
-        system_palette[0x24] = new Color(228 / 255.0, 84 / 255.0, 236 / 255.0, 1);
-        system_palette[0x25] = new Color(236 / 255.0, 88 / 255.0, 180 / 255.0, 1);
-        system_palette[0x26] = new Color(236 / 255.0, 106 / 255.0, 100 / 255.0, 1);
-        system_palette[0x27] = new Color(212 / 255.0, 136 / 255.0, 32 / 255.0, 1);
-        system_palette[0x28] = new Color(160 / 255.0, 170 / 255.0, 0 / 255.0, 1);
-        system_palette[0x29] = new Color(116 / 255.0, 196 / 255.0, 0 / 255.0, 1);
-        system_palette[0x2A] = new Color(76 / 255.0, 208 / 255.0, 32 / 255.0, 1);
-        system_palette[0x2B] = new Color(56 / 255.0, 204 / 255.0, 108 / 255.0, 1);
-        system_palette[0x2C] = new Color(56 / 255.0, 180 / 255.0, 204 / 255.0, 1);
-        system_palette[0x2D] = new Color(60 / 255.0, 60 / 255.0, 60 / 255.0, 1);
-        system_palette[0x2E] = new Color(0 / 255.0, 0 / 255.0, 0 / 255.0, 1);
-        system_palette[0x2F] = new Color(0 / 255.0, 0 / 255.0, 0 / 255.0, 1);
-        system_palette[0x30] = new Color(236 / 255.0, 238 / 255.0, 236 / 255.0, 1);
-        system_palette[0x31] = new Color(168 / 255.0, 204 / 255.0, 236 / 255.0, 1);
-        system_palette[0x32] = new Color(188 / 255.0, 188 / 255.0, 236 / 255.0, 1);
-        system_palette[0x33] = new Color(212 / 255.0, 178 / 255.0, 236 / 255.0, 1);
-        system_palette[0x34] = new Color(236 / 255.0, 174 / 255.0, 236 / 255.0, 1);
-        system_palette[0x35] = new Color(236 / 255.0, 174 / 255.0, 212 / 255.0, 1);
-        system_palette[0x36] = new Color(236 / 255.0, 180 / 255.0, 176 / 255.0, 1);
-        system_palette[0x37] = new Color(228 / 255.0, 196 / 255.0, 144 / 255.0, 1);
-        system_palette[0x38] = new Color(204 / 255.0, 210 / 255.0, 120 / 255.0, 1);
-        system_palette[0x39] = new Color(180 / 255.0, 222 / 255.0, 120 / 255.0, 1);
-        system_palette[0x3A] = new Color(168 / 255.0, 226 / 255.0, 144 / 255.0, 1);
-        system_palette[0x3B] = new Color(152 / 255.0, 226 / 255.0, 180 / 255.0, 1);
-        system_palette[0x3C] = new Color(160 / 255.0, 214 / 255.0, 228 / 255.0, 1);
-        system_palette[0x3D] = new Color(160 / 255.0, 162 / 255.0, 160 / 255.0, 1);
-        system_palette[0x3E] = new Color(0 / 255.0, 0 / 255.0, 0 / 255.0, 1);
-        system_palette[0x3F] = new Color(0 / 255.0, 0 / 255.0, 0 / 255.0, 1);
+        system_palette[0x00] = packRGBA(84, 84, 84);
+        system_palette[0x01] = packRGBA(0, 30, 116);
+        system_palette[0x02] = packRGBA(8, 16, 144);
+        system_palette[0x03] = packRGBA(48, 0, 136);
+        system_palette[0x04] = packRGBA(68, 0, 100);
+        system_palette[0x05] = packRGBA(92, 0, 48);
+        system_palette[0x06] = packRGBA(84, 4, 0);
+        system_palette[0x07] = packRGBA(60, 24, 0);
+        system_palette[0x08] = packRGBA(32, 42, 0);
+        system_palette[0x09] = packRGBA(8, 58, 0);
+        system_palette[0x0A] = packRGBA(0, 64, 0);
+        system_palette[0x0B] = packRGBA(0, 60, 0);
+        system_palette[0x0C] = packRGBA(0, 50, 60);
+        system_palette[0x0D] = packRGBA(0, 0, 0);
+        system_palette[0x0E] = packRGBA(0, 0, 0);
+        system_palette[0x0F] = packRGBA(0, 0, 0);
+        system_palette[0x10] = packRGBA(152, 150, 152);
+        system_palette[0x11] = packRGBA(8, 76, 196);
+        system_palette[0x12] = packRGBA(48, 50, 236);
+        system_palette[0x13] = packRGBA(92, 30, 228);
+        system_palette[0x14] = packRGBA(136, 20, 176);
+        system_palette[0x15] = packRGBA(160, 20, 100);
+        system_palette[0x16] = packRGBA(152, 34, 32);
+        system_palette[0x17] = packRGBA(120, 60, 0);
+        system_palette[0x18] = packRGBA(84, 90, 0);
+        system_palette[0x19] = packRGBA(40, 114, 0);
+        system_palette[0x1A] = packRGBA(8, 124, 0);
+        system_palette[0x1B] = packRGBA(0, 118, 40);
+        system_palette[0x1C] = packRGBA(0, 102, 120);
+        system_palette[0x1D] = packRGBA(0, 0, 0);
+        system_palette[0x1E] = packRGBA(0, 0, 0);
+        system_palette[0x1F] = packRGBA(0, 0, 0);
+        system_palette[0x20] = packRGBA(236, 238, 236);
+        system_palette[0x21] = packRGBA(76, 154, 236);
+        system_palette[0x22] = packRGBA(120, 124, 236);
+        system_palette[0x23] = packRGBA(176, 98, 236);
+        system_palette[0x24] = packRGBA(228, 84, 236);
+        system_palette[0x25] = packRGBA(236, 88, 180);
+        system_palette[0x26] = packRGBA(236, 106, 100);
+        system_palette[0x27] = packRGBA(212, 136, 32);
+        system_palette[0x28] = packRGBA(160, 170, 0);
+        system_palette[0x29] = packRGBA(116, 196, 0);
+        system_palette[0x2A] = packRGBA(76, 208, 32);
+        system_palette[0x2B] = packRGBA(56, 204, 108);
+        system_palette[0x2C] = packRGBA(56, 180, 204);
+        system_palette[0x2D] = packRGBA(60, 60, 60);
+        system_palette[0x2E] = packRGBA(0, 0, 0);
+        system_palette[0x2F] = packRGBA(0, 0, 0);
+        system_palette[0x30] = packRGBA(236, 238, 236);
+        system_palette[0x31] = packRGBA(168, 204, 236);
+        system_palette[0x32] = packRGBA(188, 188, 236);
+        system_palette[0x33] = packRGBA(212, 178, 236);
+        system_palette[0x34] = packRGBA(236, 174, 236);
+        system_palette[0x35] = packRGBA(236, 174, 212);
+        system_palette[0x36] = packRGBA(236, 180, 176);
+        system_palette[0x37] = packRGBA(228, 196, 144);
+        system_palette[0x38] = packRGBA(204, 210, 120);
+        system_palette[0x39] = packRGBA(180, 222, 120);
+        system_palette[0x3A] = packRGBA(168, 226, 144);
+        system_palette[0x3B] = packRGBA(152, 226, 180);
+        system_palette[0x3C] = packRGBA(160, 214, 228);
+        system_palette[0x3D] = packRGBA(160, 162, 160);
+        system_palette[0x3E] = packRGBA(0, 0, 0);
+        system_palette[0x3F] = packRGBA(0, 0, 0);
     }
 
     /**
-     * @return a ByteBuffer that can be loaded into a texture to be displayed on the screen
+     * Pack a color into an int as 0xRRGGBBAA, fully opaque
+     *
+     * @param red   the red component (0 - 255)
+     * @param green the green component (0 - 255)
+     * @param blue  the blue component (0 - 255)
+     * @return the packed color
+     */
+    private static int packRGBA(int red, int green, int blue) {
+        return (red << 24) | (green << 16) | (blue << 8) | 0xFF;
+    }
+
+    /**
+     * @return the last frame acquired from the Frame Exchange, a ByteBuffer that can be loaded into a texture
      */
     public ByteBuffer getScreenBuffer() {
-        return screen_buffer;
+        return frame_exchange.getFrontBuffer();
+    }
+
+    /**
+     * @return the Frame Exchange used to hand the completed frames over to the display
+     */
+    public FrameExchange getFrameExchange() {
+        return frame_exchange;
     }
 
     /**
@@ -176,6 +200,42 @@ public class PPU_2C02 {
      */
     public void connectCartridge(Cartridge cartridge) {
         this.cartridge = cartridge;
+        this.mirroring = null;
+        mapNametables();
+    }
+
+    /**
+     * Update the nametable page table if the mirroring mode of the Cartridge has changed
+     * Each of the 4 nametables (0x2000, 0x2400, 0x2800, 0x2C00) points to 1KB of VRAM,
+     * or to the Cartridge VRAM for four screen Cartridges
+     */
+    public void mapNametables() {
+        Mirror mode = cartridge.getMirror();
+        if (mode == mirroring)
+            return;
+        mirroring = mode;
+        byte[] low = nametable_memory[0];
+        byte[] high = nametable_memory[1];
+        switch (mode) {
+            case VERTICAL -> setNametablePages(low, high, low, high);
+            case ONE_SCREEN_LOW -> setNametablePages(low, low, low, low);
+            case ONE_SCREEN_HIGH -> setNametablePages(high, high, high, high);
+            case FOUR_SCREEN -> setNametablePages(low, high, cartridge.getVRAM()[0], cartridge.getVRAM()[1]);
+            default -> setNametablePages(low, low, high, high);
+        }
+    }
+
+    /**
+     * @param page_0 the nametable mapped at 0x2000
+     * @param page_1 the nametable mapped at 0x2400
+     * @param page_2 the nametable mapped at 0x2800
+     * @param page_3 the nametable mapped at 0x2C00
+     */
+    private void setNametablePages(byte[] page_0, byte[] page_1, byte[] page_2, byte[] page_3) {
+        nametable_pages[0] = page_0;
+        nametable_pages[1] = page_1;
+        nametable_pages[2] = page_2;
+        nametable_pages[3] = page_3;
     }
 
     /**
@@ -239,14 +299,14 @@ public class PPU_2C02 {
             case 0x0007: // PPU Data
                 //Nametable reads are delayed by one cycle
                 //When reading the last fetched data is returned and the next is fetched
-                int last_addr = vram_addr.get();
+                int last_addr = vram_addr;
                 data = ppu_data_buffer;
-                ppu_data_buffer = ppuRead(vram_addr.get(), false);
+                ppu_data_buffer = ppuRead(vram_addr, false);
                 //Except palette, here their is no delay
-                if (vram_addr.get() >= 0x3F00) data = ppu_data_buffer;
+                if (vram_addr >= 0x3F00) data = ppu_data_buffer;
                 //The vram address is incremented (horizontally or vertically depending on the Control Register)
-                vram_addr.set(vram_addr.get() + (control_register.isIncrementModeSet() ? 32 : 1));
-                if ((vram_addr.get() & 0x1000) == 0x1000 && (last_addr & 0x1000) == 0)
+                vram_addr = (vram_addr + (control_register.isIncrementModeSet() ? 32 : 1)) & 0x7FFF;
+                if ((vram_addr & 0x1000) == 0x1000 && (last_addr & 0x1000) == 0)
                     cartridge.getMapper().notifyScanline();
                 break;
         }
@@ -264,8 +324,7 @@ public class PPU_2C02 {
             case 0x0000: // Control
                 control_register.set(data);
                 //When writing to the Control Register, one of the Loopy Register need to be updated (in case the nametable has changed)
-                tram_addr.setNametableX(control_register.isNametableXSet());
-                tram_addr.setNametableY(control_register.isNametableYSet());
+                tram_addr = (tram_addr & ~0x0C00) | ((data & 0x03) << 10);
                 break;
             case 0x0001: // Mask
                 mask_register.set(data);
@@ -276,16 +335,7 @@ public class PPU_2C02 {
                 oam_addr = data;
                 break;
             case 0x0004: // OAM Data
-                switch (oam_addr & 0x03) {
-                    case 0x0:
-                        oams[oam_addr >> 2].setY(data);
-                    case 0x1:
-                        oams[oam_addr >> 2].setId(data);
-                    case 0x2:
-                        oams[oam_addr >> 2].setAttribute(data);
-                    case 0x3:
-                        oams[oam_addr >> 2].setX(data);
-                }
+                oam[oam_addr] = (byte) data;
                 oam_addr++;
                 oam_addr &= 0xFF;
                 break;
@@ -294,13 +344,12 @@ public class PPU_2C02 {
                 if (address_latch == 0) {
                     //The offset is spliced into coarseX and fineX
                     fine_x = data & 0x07;
-                    tram_addr.setCoarseX(data >> 3);
+                    tram_addr = (tram_addr & ~0x001F) | (data >> 3);
                     address_latch = 1;
                     //The second write is the Y offset
                 } else {
                     //The offset is spliced into coarseY and fineY
-                    tram_addr.setFineY(data & 0x07);
-                    tram_addr.setCoarseY(data >> 3);
+                    tram_addr = (tram_addr & ~0x73E0) | ((data & 0x07) << 12) | ((data >> 3) << 5);
                     address_latch = 0;
                 }
                 break;
@@ -308,21 +357,21 @@ public class PPU_2C02 {
                 //An address is 16bit, therefor we need 2 write cycle to load a full address
                 //The first write is the 8 MSB of the address
                 if (address_latch == 0) {
-                    tram_addr.set((tram_addr.get() & 0x00FF) | ((data & 0x3F) << 8));
+                    tram_addr = (tram_addr & 0x00FF) | ((data & 0x3F) << 8);
                     address_latch = 1;
                     //The second write is the 8 LSB of the address
                 } else {
-                    tram_addr.set((tram_addr.get() & 0xFF00) | data);
+                    tram_addr = (tram_addr & 0xFF00) | data;
                     //When the address has been fully fetched, it is store into the main Loopy Register
-                    vram_addr.set(tram_addr.get());
+                    vram_addr = tram_addr;
                     address_latch = 0;
                 }
                 break;
             case 0x0007: // PPU Data
                 //The data is written to the VRAM address
-                ppuWrite(vram_addr.get(), data);
+                ppuWrite(vram_addr, data);
                 //The vram address is incremented (horizontally or vertically depending on the Control Register)
-                vram_addr.set(vram_addr.get() + (control_register.isIncrementModeSet() ? 32 : 1));
+                vram_addr = (vram_addr + (control_register.isIncrementModeSet() ? 32 : 1)) & 0x7FFF;
                 break;
         }
     }
@@ -333,45 +382,22 @@ public class PPU_2C02 {
      */
     private int ppuRead(int addr, boolean readOnly) {
         addr &= 0x3FFF;
-        //A Wrapper used to store the data gathered by the Cartridge
-        IntegerWrapper data = new IntegerWrapper();
-        //If the address is mapped by the cartridge, let it handle and return read value
-        if (!cartridge.ppuRead(addr, data)) {
-            if (addr <= 0x1FFF) { //Read from pattern table
-                data.value = patterntable_memory[(addr & 0x1000) >> 12][addr & 0x0FFF];
-            } else if (addr <= 0x3EFF) { //Read from nametable
-                addr &= 0x0FFF;
-                if (cartridge.getMirror() == Mirror.VERTICAL) {
-                    if (addr <= 0x03FF)
-                        data.value = nametable_memory[0][addr & 0x03FF];
-                    if (addr >= 0x0400 && addr <= 0x07FF)
-                        data.value = nametable_memory[1][addr & 0x03FF];
-                    if (addr >= 0x0800 && addr <= 0x0BFF)
-                        data.value = nametable_memory[0][addr & 0x03FF];
-                    if (addr >= 0x0C00)
-                        data.value = nametable_memory[1][addr & 0x03FF];
-                } else if (cartridge.getMirror() == Mirror.HORIZONTAL) {
-                    if (addr <= 0x03FF)
-                        data.value = nametable_memory[0][addr & 0x03FF];
-                    if (addr >= 0x0400 && addr <= 0x07FF)
-                        data.value = nametable_memory[0][addr & 0x03FF];
-                    if (addr >= 0x0800 && addr <= 0x0BFF)
-                        data.value = nametable_memory[1][addr & 0x03FF];
-                    if (addr >= 0x0C00)
-                        data.value = nametable_memory[1][addr & 0x03FF];
-                }
-            } else { //Read from palette memory
-                addr &= 0x1F;
-                if (addr == 0x0010) addr = 0x0000;
-                if (addr == 0x0014) addr = 0x0004;
-                if (addr == 0x0018) addr = 0x0008;
-                if (addr == 0x001C) addr = 0x000C;
-                data.value = palette_memory[addr] & (mask_register.isGrayscaleSet() ? 0x30 : 0x3F);
-            }
+        int data = 0x00;
+        if (addr <= 0x1FFF) { //Read from pattern table, directly through the Mapper CHR banks
+            data = cartridge.ppuRead(addr);
+        } else if (addr <= 0x3EFF) { //Read from nametable, through the page table set by the mirroring mode
+            data = nametable_pages[(addr >> 10) & 0x3][addr & 0x03FF];
+        } else { //Read from palette memory
+            addr &= 0x1F;
+            if (addr == 0x0010) addr = 0x0000;
+            if (addr == 0x0014) addr = 0x0004;
+            if (addr == 0x0018) addr = 0x0008;
+            if (addr == 0x001C) addr = 0x000C;
+            data = palette_memory[addr] & (mask_register.isGrayscaleSet() ? 0x30 : 0x3F);
         }
         if (!readOnly)
             cartridge.getMapper().updateLatch(addr);
-        return data.value & 0xFF;
+        return data & 0xFF;
     }
 
     /**
@@ -383,40 +409,17 @@ public class PPU_2C02 {
     private void ppuWrite(int addr, int data) {
         addr &= 0x3FFF;
         data &= 0xFF;
-        //If the address is mapped by the cartridge, let it handle and return
-        if (!cartridge.ppuWrite(addr, data)) {
-            if (addr <= 0x1FFF) { //Write to pattern table
-                patterntable_memory[(addr & 0x1000) >> 12][addr & 0x0FFF] = (byte) data;
-
-            } else if (addr <= 0x3EFF) { //Write to nametable
-                addr &= 0x0FFF;
-                if (cartridge.getMirror() == Mirror.VERTICAL) {
-                    if (addr <= 0x03FF)
-                        nametable_memory[0][addr & 0x03FF] = (byte) data;
-                    if (addr >= 0x0400 && addr <= 0x07FF)
-                        nametable_memory[1][addr & 0x03FF] = (byte) data;
-                    if (addr >= 0x0800 && addr <= 0x0BFF)
-                        nametable_memory[0][addr & 0x03FF] = (byte) data;
-                    if (addr >= 0x0C00)
-                        nametable_memory[1][addr & 0x03FF] = (byte) data;
-                } else if (cartridge.getMirror() == Mirror.HORIZONTAL) {
-                    if (addr <= 0x03FF)
-                        nametable_memory[0][addr & 0x03FF] = (byte) data;
-                    if (addr >= 0x0400 && addr <= 0x07FF)
-                        nametable_memory[0][addr & 0x03FF] = (byte) data;
-                    if (addr >= 0x0800 && addr <= 0x0BFF)
-                        nametable_memory[1][addr & 0x03FF] = (byte) data;
-                    if (addr >= 0x0C00)
-                        nametable_memory[1][addr & 0x03FF] = (byte) data;
-                }
-            } else { //Writting to palette memory
-                addr &= 0x001F;
-                if (addr == 0x0010) addr = 0x0000;
-                if (addr == 0x0014) addr = 0x0004;
-                if (addr == 0x0018) addr = 0x0008;
-                if (addr == 0x001C) addr = 0x000C;
-                palette_memory[addr] = (byte) data;
-            }
+        if (addr <= 0x1FFF) { //Write to pattern table, ignored by the Cartridge if it is ROM
+            cartridge.ppuWrite(addr, data);
+        } else if (addr <= 0x3EFF) { //Write to nametable, through the page table set by the mirroring mode
+            nametable_pages[(addr >> 10) & 0x3][addr & 0x03FF] = (byte) data;
+        } else { //Writting to palette memory
+            addr &= 0x001F;
+            if (addr == 0x0010) addr = 0x0000;
+            if (addr == 0x0014) addr = 0x0004;
+            if (addr == 0x0018) addr = 0x0008;
+            if (addr == 0x001C) addr = 0x000C;
+            palette_memory[addr] = (byte) data;
         }
     }
 
@@ -424,22 +427,41 @@ public class PPU_2C02 {
      * @return an 8bit unsigned value pointed by the current OAM address
      */
     private int getOamData() {
-        return switch (oam_addr & 0x03) {
-            case 0x0 -> oams[oam_addr >> 2].getY() & 0xFF;
-            case 0x1 -> oams[oam_addr >> 2].getId() & 0xFF;
-            case 0x2 -> oams[oam_addr >> 2].getAttribute() & 0xFF;
-            case 0x3 -> oams[oam_addr >> 2].getX() & 0xFF;
-            default -> 0x00;
-        };
+        return oam[oam_addr] & 0xFF;
+    }
+
+    /**
+     * Write a byte of the OAM, used by the DMA transfers
+     *
+     * @param addr the OAM address (0x00 - 0xFF)
+     * @param data the data to write
+     */
+    public void writeOam(int addr, int data) {
+        oam[addr & 0xFF] = (byte) data;
+    }
+
+    /**
+     * Read the system color index from Palette Memory, without going through the PPU bus
+     *
+     * @param paletteId the palette ID
+     * @param pixel     the pixel ID
+     * @return the index of the color in the system palette
+     */
+    private int getPaletteIndex(int paletteId, int pixel) {
+        int addr = ((paletteId << 2) + pixel) & 0x1F;
+        //0x3F10, 0x3F14, 0x3F18 and 0x3F1C are mirrors of 0x3F00, 0x3F04, 0x3F08 and 0x3F0C
+        if ((addr & 0x13) == 0x10)
+            addr &= 0x0F;
+        return palette_memory[addr] & (mask_register.isGrayscaleSet() ? 0x30 : 0x3F);
     }
 
     /**
      * @param paletteId the palette ID
      * @param pixel     the pixel ID
-     * @return the corresponding Color
+     * @return the corresponding color packed as 0xRRGGBBAA
      */
-    public Color getColorFromPalette(int paletteId, int pixel) {
-        return system_palette[ppuRead(0x3F00 + ((paletteId << 2) & 0x00FF) + (pixel & 0x00FF), false)];
+    public int getRGBAFromPalette(int paletteId, int pixel) {
+        return system_palette[getPaletteIndex(paletteId, pixel)];
     }
 
     /**
@@ -454,6 +476,354 @@ public class PPU_2C02 {
         return false;
     }
 
+    /**
+     * Return the number of dots to clock until the next dot that can raise an interrupt
+     * (Vertical Blank NMI or Mapper scanline notification) has been rendered,
+     * or until the end of the current scanline if none can occur before
+     * Between two visible scanlines, the next point is on the following scanline
+     * so that its visible dots can be rendered in one go
+     *
+     * @return the number of dots before the next synchronisation point
+     */
+    public int dotsUntilSync() {
+        if (scanline < 240 && cycle <= 260)
+            return 261 - cycle;
+        if (scanline >= 0 && scanline < 239)
+            return 341 - cycle + 261;
+        if (scanline == 241 && cycle <= 1)
+            return 2 - cycle;
+        return 341 - cycle;
+    }
+
+    /**
+     * Return the number of dots to clock until the dot setting the Vertical Blank flag (and raising the NMI) has been rendered
+     *
+     * @return the number of dots before the start of the next Vertical Blank
+     */
+    public int dotsUntilVerticalBlank() {
+        return dotsUntil(241, 2);
+    }
+
+    /**
+     * Return the number of dots to clock until the current frame is complete
+     *
+     * @return the number of dots before the end of the frame
+     */
+    public int dotsUntilFrameEnd() {
+        return dotsUntil(-1, 0);
+    }
+
+    /**
+     * Return the number of dots to clock until the Mapper has received a given number of scanline notifications
+     * The notifications are only sent when rendering is enabled, only the ones before the end of the frame are considered
+     *
+     * @param count the number of notifications
+     * @return the number of dots before the last notification has been sent, -1 if it won't happen in this frame
+     */
+    public int dotsUntilMapperNotification(int count) {
+        if (count <= 0 || !(mask_register.isRenderBackgroundSet() || mask_register.isRenderSpritesSet()))
+            return -1;
+        int target = (cycle <= 260 ? scanline : scanline + 1) + count - 1;
+        if (target >= 240)
+            return -1;
+        return dotsUntil(target, 261);
+    }
+
+    /**
+     * Return the number of dots to clock to reach a given dot
+     * the dot skipped at the start of odd frames when rendering is enabled is taken into account
+     *
+     * @param target_scanline the scanline to reach
+     * @param target_cycle    the cycle to reach
+     * @return the number of dots to clock, a whole frame if the dot is the current one
+     */
+    private int dotsUntil(int target_scanline, int target_cycle) {
+        int frame = 262 * 341;
+        int from = (scanline + 1) * 341 + cycle;
+        int to = (target_scanline + 1) * 341 + target_cycle;
+        if (to <= from)
+            to += frame;
+        //The first dot of the scanline 0 is skipped on odd frames, the next frame is odd if the current one isn't
+        int skip = 341;
+        boolean odd = odd_frame;
+        if (from > skip) {
+            skip += frame;
+            odd = !odd;
+        }
+        boolean rendering = mask_register.isRenderBackgroundSet() || mask_register.isRenderSpritesSet();
+        if (skip < to && odd && rendering)
+            return to - from - 1;
+        return to - from;
+    }
+
+    /**
+     * Enable or disable the scanline renderer, when disabled every dot goes through clock()
+     *
+     * @param enabled should visible scanlines be rendered in one go when possible
+     */
+    public void setScanlineRendering(boolean enabled) {
+        scanline_rendering = enabled;
+    }
+
+    /**
+     * Return whether the visible part of the current scanline (dots 0 to 256) can be rendered by renderScanline()
+     * The caller must guarantee that nothing will access the PPU or the Mapper during these dots,
+     * otherwise the scanline has to be rendered dot by dot through clock()
+     *
+     * @param dots the number of dots that can be clocked without any access
+     * @return can the scanline be rendered in one go
+     */
+    public boolean canRenderScanline(long dots) {
+        return scanline_rendering && cycle == 0 && scanline >= 0 && scanline < SCREEN_HEIGHT && dots >= 257;
+    }
+
+    /**
+     * Render the visible part of the current scanline (dots 0 to 256) in one go
+     * The result is the same as calling clock() for each dot: the same memory fetches are made in the same order,
+     * the shift registers, loopy registers and sprite counters end up in the same state
+     * and the Sprite Zero Hit flag is set if it would have been set on one of the dots
+     *
+     * @return the number of dots that have been rendered
+     */
+    public int renderScanline() {
+        boolean render_background = mask_register.isRenderBackgroundSet();
+        boolean render_sprites = mask_register.isRenderSpritesSet();
+        boolean rendering = render_background || render_sprites;
+        boolean background_left = mask_register.isRenderBackgroundLeftSet();
+        boolean sprite_left = mask_register.isRenderSpriteLeftSet();
+        int pattern_background = control_register.isPatternBackgroundSet() ? 0x1000 : 0x0000;
+        //The first dot of an odd frame is skipped when rendering
+        int start = (scanline == 0 && odd_frame && rendering) ? 1 : 0;
+
+        //The sprites don't depend on the fetches of this scanline, they are drawn to a line beforehand
+        //The lowest sprite index is drawn last, so it has priority over the others
+        if (render_sprites) {
+            Arrays.fill(sprite_line, 0);
+            for (int i = sprite_count - 1; i >= 0; i--) {
+                int x = secondary_oam[(i << 2) | 3] & 0xFF;
+                int attribute = secondary_oam[(i << 2) | 2] & 0xFF;
+                int sprite = (((attribute & 0x03) + 0x04) << 2) | ((attribute & 0x20) == 0 ? 0x20 : 0x00) | (i == 0 ? 0x40 : 0x00);
+                for (int col = 0; col < 8 && x + col < SCREEN_WIDTH; col++) {
+                    int fg_pixel = (((sprite_shift_pattern_high[i] << col) & 0x80) >> 6) | (((sprite_shift_pattern_low[i] << col) & 0x80) >> 7);
+                    if (fg_pixel != 0)
+                        sprite_line[x + col] = sprite | fg_pixel;
+                }
+                //The sprite counters are left as if they had been decremented/shifted on dots 2 to 256
+                int shifts = 255 - x;
+                if (shifts > 0) {
+                    sprite_shift_pattern_low[i] = shifts >= 8 ? 0x00 : (sprite_shift_pattern_low[i] << shifts) & 0xFF;
+                    sprite_shift_pattern_high[i] = shifts >= 8 ? 0x00 : (sprite_shift_pattern_high[i] << shifts) & 0xFF;
+                }
+                secondary_oam[(i << 2) | 3] = (byte) Math.max(x - 255, 0);
+            }
+        }
+
+        //The 2 tiles already in the shift registers are drawn from them directly
+        if (render_background) {
+            for (int pos = fine_x; pos < 16; pos++) {
+                int bit_mux = 0x8000 >> pos;
+                background_line[pos - fine_x] = ((bg_shift_pattern_high & bit_mux) > 0 ? 0x2 : 0x0) | ((bg_shift_pattern_low & bit_mux) > 0 ? 0x1 : 0x0)
+                        | ((bg_shift_attrib_high & bit_mux) > 0 ? 0x8 : 0x0) | ((bg_shift_attrib_low & bit_mux) > 0 ? 0x4 : 0x0);
+            }
+        }
+
+        //Same fetch sequence as clock(), one tile (8 dots) at a time with the loopy register kept as an int
+        //Each tile loaded in the shift registers is drawn to the background line from its decoded pixels
+        int vram = vram_addr;
+        byte[] next_tile_pixels = null;
+        int next_tile_row = 0;
+        int loaded_lsb = 0, loaded_msb = 0, loaded_attrib = 0;
+        int previous_lsb = 0, previous_msb = 0, previous_attrib = 0;
+        for (int tile = 0; tile < 32; tile++) {
+            if (tile > 0) { // Dot 8 * tile + 1, load the shift registers with the next tile and fetch the next tile ID
+                if (render_background) {
+                    int x = ((tile + 1) << 3) - fine_x;
+                    int attrib = bg_next_tile_attrib << 2;
+                    for (int col = 0; col < 8 && x + col < SCREEN_WIDTH; col++)
+                        background_line[x + col] = next_tile_pixels[next_tile_row | col] | attrib;
+                }
+                previous_lsb = loaded_lsb;
+                previous_msb = loaded_msb;
+                previous_attrib = loaded_attrib;
+                loaded_lsb = bg_next_tile_lsb;
+                loaded_msb = bg_next_tile_msb;
+                loaded_attrib = bg_next_tile_attrib;
+                bg_next_tile_id = ppuRead(0x2000 | (vram & 0x0FFF), false);
+            }
+            int coarse_x = vram & 0x1F;
+            int coarse_y = (vram >> 5) & 0x1F;
+            bg_next_tile_attrib = ppuRead(0x23C0 | (vram & 0x0C00) | ((coarse_y >> 2) << 3) | (coarse_x >> 2), false);
+            if ((coarse_y & 0x02) == 0x02)
+                bg_next_tile_attrib = (bg_next_tile_attrib >> 4) & 0xFF;
+            if ((coarse_x & 0x02) == 0x02)
+                bg_next_tile_attrib = (bg_next_tile_attrib >> 2) & 0xFF;
+            bg_next_tile_attrib &= 0x03;
+            int tile_addr = pattern_background + (bg_next_tile_id << 4);
+            //The pixels are taken with the banks used for the low bit plane, the high bit plane read may switch them (MMC2)
+            next_tile_pixels = cartridge.getTile(tile_addr & 0x1FF0);
+            next_tile_row = ((vram >> 12) & 0x7) << 3;
+            bg_next_tile_lsb = ppuRead(tile_addr + ((vram >> 12) & 0x7), false);
+            bg_next_tile_msb = ppuRead(tile_addr + ((vram >> 12) & 0x7) + 8, false);
+            if (rendering) // Increment Scroll X
+                vram = (vram & 0x1F) == 31 ? (vram & ~0x001F) ^ 0x0400 : vram + 1;
+        }
+
+        for (int x = 0; x < SCREEN_WIDTH; x++) {
+            int background = (render_background && (background_left || x >= 8)) ? background_line[x] : 0x00;
+            int sprite = (render_sprites && (sprite_left || x >= 8)) ? sprite_line[x] : 0x00;
+            int bg_pixel = background & 0x03;
+            int fg_pixel = sprite & 0x03;
+
+            int pixel = 0x00;
+            int palette = 0x00;
+            if (fg_pixel > 0 && (bg_pixel == 0 || (sprite & 0x20) == 0x20)) {
+                pixel = fg_pixel;
+                palette = (sprite >> 2) & 0x07;
+            } else if (bg_pixel > 0) {
+                pixel = bg_pixel;
+                palette = background >> 2;
+            }
+            //Same Sprite Zero Hit conditions as clock()
+            if (bg_pixel > 0 && fg_pixel > 0 && (sprite & 0x40) == 0x40 && spriteZeroHitPossible && render_background && render_sprites) {
+                if ((background_left || sprite_left) || x >= 8)
+                    status_register.setSpriteZeroHit(true);
+            }
+            scanline_pixels[x] = system_palette[getPaletteIndex(palette, pixel)];
+        }
+        screen_pixels_tmp.put(scanline * SCREEN_WIDTH, scanline_pixels);
+        if (render_sprites)
+            spriteZeroBeingRendered = (sprite_line[SCREEN_WIDTH - 1] & 0x40) == 0x40;
+
+        // Increment Scroll Y axis, as done on dot 256
+        if (rendering) {
+            if (((vram >> 12) & 0x7) < 7) {
+                vram += 0x1000;
+            } else {
+                vram &= ~0x7000;
+                int coarse_y = (vram >> 5) & 0x1F;
+                if (coarse_y == 29)
+                    vram = (vram & ~0x03E0) ^ 0x0800;
+                else if (coarse_y == 31)
+                    vram &= ~0x03E0;
+                else
+                    vram += 0x0020;
+            }
+        }
+        vram_addr = vram;
+        //The last tile has been loaded on dot 249, if the background is rendered the shift registers
+        //have been shifted on every dot, so they hold the last 2 tiles shifted 7 times
+        int attrib_low = ((loaded_attrib & 0b01) == 0b01) ? 0xFF : 0x00;
+        int attrib_high = ((loaded_attrib & 0b10) == 0b10) ? 0xFF : 0x00;
+        if (render_background) {
+            bg_shift_pattern_low = (((previous_lsb << 8) | loaded_lsb) << 7) & 0xFFFF;
+            bg_shift_pattern_high = (((previous_msb << 8) | loaded_msb) << 7) & 0xFFFF;
+            bg_shift_attrib_low = (((((previous_attrib & 0b01) == 0b01) ? 0xFF00 : 0x0000) | attrib_low) << 7) & 0xFFFF;
+            bg_shift_attrib_high = (((((previous_attrib & 0b10) == 0b10) ? 0xFF00 : 0x0000) | attrib_high) << 7) & 0xFFFF;
+        } else {
+            bg_shift_pattern_low = (bg_shift_pattern_low & 0xFF00) | loaded_lsb;
+            bg_shift_pattern_high = (bg_shift_pattern_high & 0xFF00) | loaded_msb;
+            bg_shift_attrib_low = (bg_shift_attrib_low & 0xFF00) | attrib_low;
+            bg_shift_attrib_high = (bg_shift_attrib_high & 0xFF00) | attrib_high;
+        }
+
+        cycle = SCREEN_WIDTH + 1;
+        return cycle - start;
+    }
+
+    @Override
+    public int stateSize() {
+        return 2 * 1024 + palette_memory.length + oam.length + secondary_oam.length + 2 * 8 * 4 + 3 + 17 * 4 + 5;
+    }
+
+    /**
+     * Write the VRAM, the OAM, the registers and the rendering state
+     * The frame being rendered isn't saved, it is completed by the following scanlines
+     *
+     * @param buffer the buffer to write to
+     */
+    @Override
+    public void saveState(ByteBuffer buffer) {
+        buffer.put(nametable_memory[0]);
+        buffer.put(nametable_memory[1]);
+        buffer.put(palette_memory);
+        buffer.put(oam);
+        buffer.put(secondary_oam);
+        for (int i = 0; i < 8; i++) {
+            buffer.putInt(sprite_shift_pattern_low[i]);
+            buffer.putInt(sprite_shift_pattern_high[i]);
+        }
+        buffer.put((byte) mask_register.get());
+        buffer.put((byte) control_register.get());
+        buffer.put((byte) status_register.get());
+        buffer.putInt(sprite_count);
+        buffer.putInt(address_latch);
+        buffer.putInt(ppu_data_buffer);
+        buffer.putInt(oam_addr);
+        buffer.putInt(fine_x);
+        buffer.putInt(vram_addr);
+        buffer.putInt(tram_addr);
+        buffer.putInt(bg_next_tile_id);
+        buffer.putInt(bg_next_tile_attrib);
+        buffer.putInt(bg_next_tile_lsb);
+        buffer.putInt(bg_next_tile_msb);
+        buffer.putInt(bg_shift_pattern_low);
+        buffer.putInt(bg_shift_pattern_high);
+        buffer.putInt(bg_shift_attrib_low);
+        buffer.putInt(bg_shift_attrib_high);
+        buffer.putInt(scanline);
+        buffer.putInt(cycle);
+        Snapshottable.putBoolean(buffer, frame_complete);
+        Snapshottable.putBoolean(buffer, spriteZeroHitPossible);
+        Snapshottable.putBoolean(buffer, spriteZeroBeingRendered);
+        Snapshottable.putBoolean(buffer, odd_frame);
+        Snapshottable.putBoolean(buffer, nmi);
+    }
+
+    /**
+     * Restore the VRAM, the OAM, the registers and the rendering state
+     * The nametables must be mapped again once the Mapper state is restored
+     *
+     * @param buffer the buffer to read from
+     */
+    @Override
+    public void loadState(ByteBuffer buffer) {
+        buffer.get(nametable_memory[0]);
+        buffer.get(nametable_memory[1]);
+        buffer.get(palette_memory);
+        buffer.get(oam);
+        buffer.get(secondary_oam);
+        for (int i = 0; i < 8; i++) {
+            sprite_shift_pattern_low[i] = buffer.getInt();
+            sprite_shift_pattern_high[i] = buffer.getInt();
+        }
+        mask_register.set(buffer.get() & 0xFF);
+        control_register.set(buffer.get() & 0xFF);
+        status_register.set(buffer.get() & 0xFF);
+        sprite_count = buffer.getInt();
+        address_latch = buffer.getInt();
+        ppu_data_buffer = buffer.getInt();
+        oam_addr = buffer.getInt();
+        fine_x = buffer.getInt();
+        vram_addr = buffer.getInt();
+        tram_addr = buffer.getInt();
+        bg_next_tile_id = buffer.getInt();
+        bg_next_tile_attrib = buffer.getInt();
+        bg_next_tile_lsb = buffer.getInt();
+        bg_next_tile_msb = buffer.getInt();
+        bg_shift_pattern_low = buffer.getInt();
+        bg_shift_pattern_high = buffer.getInt();
+        bg_shift_attrib_low = buffer.getInt();
+        bg_shift_attrib_high = buffer.getInt();
+        scanline = buffer.getInt();
+        cycle = buffer.getInt();
+        frame_complete = Snapshottable.getBoolean(buffer);
+        spriteZeroHitPossible = Snapshottable.getBoolean(buffer);
+        spriteZeroBeingRendered = Snapshottable.getBoolean(buffer);
+        odd_frame = Snapshottable.getBoolean(buffer);
+        nmi = Snapshottable.getBoolean(buffer);
+        mirroring = null; // The cached mirroring mode may not match the restored Mapper
+    }
+
     /**
      * Reset the PPU to its default state
      */
@@ -474,9 +844,8 @@ public class PPU_2C02 {
         status_register.set(0xA0);
         mask_register.set(0x00);
         control_register.set(0x00);
-        vram_addr.set(0x0000);
-        tram_addr.set(0x0000);
-        screen_buffer_tmp.clear();
+        vram_addr = 0x0000;
+        tram_addr = 0x0000;
     }
 
 
@@ -488,9 +857,7 @@ public class PPU_2C02 {
         if (scanline >= -1 && scanline < 240) {
             if (cycle >= 257 && cycle <= 320)
                 oam_addr = 0;
-            if (scanline == -1 && cycle == 0)
-                screen_buffer_tmp.clear();
-            //If we are on the top left, we will count the cycle and clear the screen for buffering
+            //If we are on the top left of an odd frame with rendering enabled, the first cycle is skipped
             if (scanline == 0 && cycle == 0 && odd_frame && (mask_register.isRenderBackgroundSet() || mask_register.isRenderSpritesSet())) {
                 cycle = 1;
             }
@@ -516,8 +883,8 @@ public class PPU_2C02 {
                 if (mask_register.isRenderSpritesSet() && cycle >= 1 && cycle < 258) {
                     for (int i = 0; i < sprite_count; i++) {
                         //For all visible sprites, we decrement the position by one until we need to render it.
-                        if (visible_oams[i].getX() > 0)
-                            visible_oams[i].setX(visible_oams[i].getX() - 1);
+                        if (secondary_oam[(i << 2) | 3] != 0)
+                            secondary_oam[(i << 2) | 3]--;
                         else {
                             sprite_shift_pattern_low[i] = (sprite_shift_pattern_low[i] << 1) & 0xFF;
                             sprite_shift_pattern_high[i] = (sprite_shift_pattern_high[i] << 1) & 0xFF;
@@ -535,28 +902,28 @@ public class PPU_2C02 {
                         bg_shift_pattern_high = ((bg_shift_pattern_high & 0xFF00) | bg_next_tile_msb) & 0xFFFF;
                         bg_shift_attrib_low = ((bg_shift_attrib_low & 0xFF00) | (((bg_next_tile_attrib & 0b01) == 0b01) ? 0xFF : 0x00)) & 0xFFFF;
                         bg_shift_attrib_high = ((bg_shift_attrib_high & 0xFF00) | (((bg_next_tile_attrib & 0b10) == 0b10) ? 0xFF : 0x00)) & 0xFFFF;
-                        bg_next_tile_id = ppuRead(0x2000 | (vram_addr.get() & 0x0FFF), false);
+                        bg_next_tile_id = ppuRead(0x2000 | (vram_addr & 0x0FFF), false);
                     }
                     case 2 -> {
-                        bg_next_tile_attrib = ppuRead(0x23C0 | (vram_addr.isNametableYSet() ? 0x1 << 11 : 0x0) | (vram_addr.isNametableXSet() ? 0x1 << 10 : 0x0) | ((vram_addr.getCoarseY() >> 2) << 3) | (vram_addr.getCoarseX() >> 2), false);
-                        if ((vram_addr.getCoarseY() & 0x02) == 0x02)
+                        //The attribute byte is selected by the nametable bits and the coarse X and Y divided by 4
+                        bg_next_tile_attrib = ppuRead(0x23C0 | (vram_addr & 0x0C00) | ((vram_addr >> 4) & 0x38) | ((vram_addr >> 2) & 0x07), false);
+                        if ((vram_addr & 0x0040) == 0x0040)
                             bg_next_tile_attrib = (bg_next_tile_attrib >> 4) & 0xFF;
-                        if ((vram_addr.getCoarseX() & 0x02) == 0x02)
+                        if ((vram_addr & 0x0002) == 0x0002)
                             bg_next_tile_attrib = (bg_next_tile_attrib >> 2) & 0xFF;
                         bg_next_tile_attrib &= 0x03;
                     }
-                    case 4 -> bg_next_tile_lsb = ppuRead((control_register.isPatternBackgroundSet() ? 0x1 << 12 : 0) + (bg_next_tile_id << 4) + vram_addr.getFineY(), false);
-                    case 6 -> bg_next_tile_msb = ppuRead((control_register.isPatternBackgroundSet() ? 0x1 << 12 : 0) + (bg_next_tile_id << 4) + vram_addr.getFineY() + 8, false);
+                    case 4 -> bg_next_tile_lsb = ppuRead((control_register.isPatternBackgroundSet() ? 0x1 << 12 : 0) + (bg_next_tile_id << 4) + (vram_addr >> 12), false);
+                    case 6 -> bg_next_tile_msb = ppuRead((control_register.isPatternBackgroundSet() ? 0x1 << 12 : 0) + (bg_next_tile_id << 4) + (vram_addr >> 12) + 8, false);
                     case 7 -> { // Increment Scroll X
                         //If we are rendering sprites or background
                         if (mask_register.isRenderBackgroundSet() || mask_register.isRenderSpritesSet()) {
                             //If we cross a nametable boundary we invert the nametableX bit to fetch from the other nametable
-                            if (vram_addr.getCoarseX() == 31) {
-                                vram_addr.setCoarseX(0);
-                                vram_addr.setNametableX(!vram_addr.isNametableXSet());
+                            if ((vram_addr & 0x001F) == 31) {
+                                vram_addr = (vram_addr & ~0x001F) ^ 0x0400;
                                 //Or we just continue in the same one
                             } else {
-                                vram_addr.setCoarseX(vram_addr.getCoarseX() + 1);
+                                vram_addr++;
                             }
                         }
                     }
@@ -567,22 +934,22 @@ public class PPU_2C02 {
                 //Are we are rendering sprites or background?
                 if (mask_register.isRenderBackgroundSet() || mask_register.isRenderSpritesSet()) {
                     //Are we are still in the same tile row?
-                    if (vram_addr.getFineY() < 7) {
-                        vram_addr.setFineY(vram_addr.getFineY() + 1);
+                    if ((vram_addr & 0x7000) != 0x7000) {
+                        vram_addr += 0x1000;
                         //If we have passed to the next tile row
                     } else {
                         //reset the offset inside the row to 0
-                        vram_addr.setFineY(0);
+                        vram_addr &= ~0x7000;
+                        int coarse_y = (vram_addr >> 5) & 0x1F;
                         //If we are at le last tile row, we skip the OAM and switch to the next nametable
-                        if (vram_addr.getCoarseY() == 29) {
-                            vram_addr.setCoarseY(0);
-                            vram_addr.setNametableY(!vram_addr.isNametableYSet());
+                        if (coarse_y == 29) {
+                            vram_addr = (vram_addr & ~0x03E0) ^ 0x0800;
                             //Just in case we've gone behond the nametable
-                        } else if (vram_addr.getCoarseY() == 31) {
-                            vram_addr.setCoarseY(0);
+                        } else if (coarse_y == 31) {
+                            vram_addr &= ~0x03E0;
                             //Or we simply switch to the next tile row
                         } else {
-                            vram_addr.setCoarseY(vram_addr.getCoarseY() + 1);
+                            vram_addr += 0x0020;
                         }
                     }
                 }
@@ -594,27 +961,24 @@ public class PPU_2C02 {
                 bg_shift_attrib_low = ((bg_shift_attrib_low & 0xFF00) | (((bg_next_tile_attrib & 0b01) == 0b01) ? 0xFF : 0x00)) & 0xFFFF;
                 bg_shift_attrib_high = ((bg_shift_attrib_high & 0xFF00) | (((bg_next_tile_attrib & 0b10) == 0b10) ? 0xFF : 0x00)) & 0xFFFF;
                 if (mask_register.isRenderBackgroundSet() || mask_register.isRenderSpritesSet()) {
-                    vram_addr.setNametableX(tram_addr.isNametableXSet());
-                    vram_addr.setCoarseX(tram_addr.getCoarseX());
+                    vram_addr = (vram_addr & ~0x041F) | (tram_addr & 0x041F);
                 }
             }
 
             if (cycle == 338 || cycle == 340) {
-                bg_next_tile_id = ppuRead(0x2000 | (vram_addr.get() & 0x0FFF), false);
+                bg_next_tile_id = ppuRead(0x2000 | (vram_addr & 0x0FFF), false);
             }
             //At the start of a new frame we reset the Y coordinates to the top of the screen
             if (scanline == -1 && cycle >= 280 && cycle < 305) {
                 if (mask_register.isRenderBackgroundSet() || mask_register.isRenderSpritesSet()) {
-                    vram_addr.setNametableY(tram_addr.isNametableYSet());
-                    vram_addr.setCoarseY(tram_addr.getCoarseY());
-                    vram_addr.setFineY(tram_addr.getFineY());
+                    vram_addr = (vram_addr & ~0x7BE0) | (tram_addr & 0x7BE0);
                 }
             }
 
             //At the end of a scanline, we fetch the sprite that will be visible on the next scanline
             if (cycle == 320 && scanline >= 0) {
-                //We clear all visible Object Attribute
-                for (ObjectAttribute visible_oam : visible_oams) visible_oam.clear(0xFF);
+                //We clear the secondary OAM
+                Arrays.fill(secondary_oam, (byte) 0xFF);
                 //And reset the sprite count
                 sprite_count = 0;
 
@@ -630,7 +994,7 @@ public class PPU_2C02 {
                 //We read all OAM and break if we hit the max number of sprite for one scanline
                 while (oam_entry < 64 && sprite_count <= 8) {
                     //We compute if the sprite is in the current scanline
-                    int diff = scanline - oams[oam_entry].getY();
+                    int diff = scanline - (oam[oam_entry << 2] & 0xFF);
                     if (diff >= 0 && diff < (control_register.isSpriteSizeSet() ? 16 : 8)) {
                         //If their is room left for another sprite, we add it to the rendered sprite
                         if (sprite_count < 8) {
@@ -638,8 +1002,8 @@ public class PPU_2C02 {
                             if (oam_entry == 0) {
                                 spriteZeroHitPossible = true;
                             }
-                            //Instead of instantiating new OAM, we fill it with the data of the other one
-                            visible_oams[sprite_count].set(oams[oam_entry]);
+                            //The 4 bytes of the entry are copied to the secondary OAM
+                            System.arraycopy(oam, oam_entry << 2, secondary_oam, sprite_count << 2, 4);
                         }
                         sprite_count++;
                     }
@@ -656,22 +1020,25 @@ public class PPU_2C02 {
                 for (int i = 0; i < sprite_count; i++) {
                     int sprite_pattern_low, sprite_pattern_high;
                     int sprite_pattern_addr_low, sprite_pattern_addr_high;
+                    int row = scanline - (secondary_oam[i << 2] & 0xFF);
+                    int id = secondary_oam[(i << 2) | 1] & 0xFF;
+                    int attribute = secondary_oam[(i << 2) | 2] & 0xFF;
                     if (!control_register.isSpriteSizeSet()) { //If the sprites are 8x8
-                        if (!((visible_oams[i].getAttribute() & 0x80) == 0x80)) //If the sprite normally oriented
-                            sprite_pattern_addr_low = (control_register.isPatternSpriteSet() ? 0x1 << 12 : 0x0) | (visible_oams[i].getId() << 4) | (scanline - visible_oams[i].getY());
+                        if (!((attribute & 0x80) == 0x80)) //If the sprite normally oriented
+                            sprite_pattern_addr_low = (control_register.isPatternSpriteSet() ? 0x1 << 12 : 0x0) | (id << 4) | row;
                         else //If the sprite is flipped vertically
-                            sprite_pattern_addr_low = (control_register.isPatternSpriteSet() ? 0x1 << 12 : 0x0) | (visible_oams[i].getId() << 4) | (7 - (scanline - visible_oams[i].getY()));
+                            sprite_pattern_addr_low = (control_register.isPatternSpriteSet() ? 0x1 << 12 : 0x0) | (id << 4) | (7 - row);
                     } else { //If the sprites are 8x16
-                        if (!((visible_oams[i].getAttribute() & 0x80) == 0x80)) { //If the sprite normally oriented
-                            if (scanline - visible_oams[i].getY() < 8) //Reading top half
-                                sprite_pattern_addr_low = ((visible_oams[i].getId() & 0x01) << 12) | ((visible_oams[i].getId() & 0xFE) << 4) | ((scanline - visible_oams[i].getY()) & 0x07);
+                        if (!((attribute & 0x80) == 0x80)) { //If the sprite normally oriented
+                            if (row < 8) //Reading top half
+                                sprite_pattern_addr_low = ((id & 0x01) << 12) | ((id & 0xFE) << 4) | (row & 0x07);
                             else //Reading bottom half
-                                sprite_pattern_addr_low = ((visible_oams[i].getId() & 0x01) << 12) | (((visible_oams[i].getId() & 0xFE) + 1) << 4) | ((scanline - visible_oams[i].getY()) & 0x07);
+                                sprite_pattern_addr_low = ((id & 0x01) << 12) | (((id & 0xFE) + 1) << 4) | (row & 0x07);
                         } else {  //If the sprite is flipped vertically
-                            if (scanline - visible_oams[i].getY() < 8) //Reading top half
-                                sprite_pattern_addr_low = ((visible_oams[i].getId() & 0x01) << 12) | (((visible_oams[i].getId() & 0xFE) + 1) << 4) | (7 - (scanline - visible_oams[i].getY()) & 0x07);
+                            if (row < 8) //Reading top half
+                                sprite_pattern_addr_low = ((id & 0x01) << 12) | (((id & 0xFE) + 1) << 4) | (7 - row & 0x07);
                             else //Reading bottom half
-                                sprite_pattern_addr_low = ((visible_oams[i].getId() & 0x01) << 12) | ((visible_oams[i].getId() & 0xFE) << 4) | (7 - (scanline - visible_oams[i].getY()) & 0x07);
+                                sprite_pattern_addr_low = ((id & 0x01) << 12) | ((id & 0xFE) << 4) | (7 - row & 0x07);
                         }
                     }
                     //We compute the complete address and fetch the the sprite's bitplane
@@ -680,7 +1047,7 @@ public class PPU_2C02 {
                     sprite_pattern_high = ppuRead(sprite_pattern_addr_high, false);
 
                     //If the sprite is flipped horizontally, the sprite bitplane are flipped
-                    if ((visible_oams[i].getAttribute() & 0x40) == 0x40) {
+                    if ((attribute & 0x40) == 0x40) {
                         sprite_pattern_low = NumberUtils.byteFlip(sprite_pattern_low);
                         sprite_pattern_high = NumberUtils.byteFlip(sprite_pattern_high);
                     }
@@ -732,15 +1099,15 @@ public class PPU_2C02 {
                 //For each sprite in order of priority
                 for (int i = 0; i < sprite_count; i++) {
                     //If we are at the sprite X location
-                    if (visible_oams[i].getX() == 0) {
+                    if (secondary_oam[(i << 2) | 3] == 0) {
                         //We get the foreground pixel lsb and msb
                         int fg_pixel_low = (sprite_shift_pattern_low[i] & 0x80) == 0x80 ? 0x1 : 0x0;
                         int fg_pixel_high = (sprite_shift_pattern_high[i] & 0x80) == 0x80 ? 0x1 : 0x0;
                         //We combine them into a 2bit ID
                         fg_pixel = ((fg_pixel_high << 1) | fg_pixel_low) & 0x03;
                         //We get the sprite palette and if it has priority over the background
-                        fg_palette = (visible_oams[i].getAttribute() & 0x03) + 0x04;
-                        fg_priority = (visible_oams[i].getAttribute() & 0x20) == 0;
+                        fg_palette = (secondary_oam[(i << 2) | 2] & 0x03) + 0x04;
+                        fg_priority = (secondary_oam[(i << 2) | 2] & 0x20) == 0;
 
                         //If the pixel isn't transparent and we are rendering sprite 0, we set the 0th sprite being rendered to true
                         if (fg_pixel != 0) {
@@ -792,10 +1159,10 @@ public class PPU_2C02 {
 
         //If we are in the visible area we push a pixel into the screen buffer
         if (cycle - 1 >= 0 && cycle - 1 < SCREEN_WIDTH && scanline >= 0 && scanline < SCREEN_HEIGHT) {
-            screen_buffer_tmp.put((byte) ((int) (getColorFromPalette(palette, pixel).getRed() * 255) & 0xFF));
-            screen_buffer_tmp.put((byte) ((int) (getColorFromPalette(palette, pixel).getGreen() * 255) & 0xFF));
-            screen_buffer_tmp.put((byte) ((int) (getColorFromPalette(palette, pixel).getBlue() * 255) & 0xFF));
-            screen_buffer_tmp.put((byte) ((int) (getColorFromPalette(palette, pixel).getOpacity() * 255) & 0xFF));
+            scanline_pixels[cycle - 1] = system_palette[getPaletteIndex(palette, pixel)];
+            //Once the scanline is complete, it is flushed to the screen buffer in one go
+            if (cycle == SCREEN_WIDTH)
+                screen_pixels_tmp.put(scanline * SCREEN_WIDTH, scanline_pixels);
         }
 
         if (mask_register.isRenderBackgroundSet() || mask_register.isRenderSpritesSet()) {
@@ -811,15 +1178,13 @@ public class PPU_2C02 {
             scanline++;
             //If we are a the bottom of the screen
             if (scanline >= 261) {
-                //We reset the scanline to the top, set the frameComplete flag and flip the screen buffer to prepare rendering
+                //We reset the scanline to the top, set the frameComplete flag and publish the frame to the UI
                 scanline = -1;
                 frame_complete = true;
                 odd_frame = !odd_frame;
-                //We put the content if the tmp buffer to the screen buffer that will be fetched by the UI
-                screen_buffer_tmp.flip();
-                screen_buffer.clear();
-                screen_buffer.put(screen_buffer_tmp);
-                screen_buffer.flip();
+                //The rendered buffer is swapped with the exchange, no copy is made
+                frame_exchange.publish();
+                screen_pixels_tmp = frame_exchange.getBackBuffer();
             }
         }
     }
@@ -827,39 +1192,32 @@ public class PPU_2C02 {
     // Debug Methods
 
     /**
-     * @return an array of ObjectAttribute containing all the OAM
+     * @return read-only views of the 64 OAM entries
      */
     public ObjectAttribute[] getOams() {
-        return oams;
+        return oam_views;
     }
 
     /**
      * @param i         the pattern table index
      * @param paletteId the paletteId to be used
-     * @param dest      the image where to store the patternTable
+     * @param dest      the 128x128 pixels where to store the patternTable, packed as 0xRRGGBBAA
      */
-    public void getPatternTable(int i, int paletteId, WritableImage dest) {
+    public void getPatternTable(int i, int paletteId, int[] dest) {
+        byte[] pixels = new byte[64];
         //For each row of tiles starting at the top
         for (int tileX = 0; tileX < 16; tileX++) {
             //For each tile starting at the left
             for (int tileY = 0; tileY < 16; tileY++) {
-                //We compute the tile offset inside the Pattern Memory
+                //We compute the tile offset inside the Pattern Memory and get its decoded pixels
                 int offset = tileX * 256 + tileY * 16;
+                cartridge.decodeTile(i * 0x1000 + offset, false, pixels);
                 //For each row of the tile
-                for (byte row = 0; row < 8; row++) {
-                    //We get the lsb of the pixels of the row
-                    int tile_lsb = ppuRead(i * 0x1000 + offset + row, true);
-                    //We get the msb of the pixels of the row
-                    int tile_msb = ppuRead(i * 0x1000 + offset + row + 8, true);
+                for (int row = 0; row < 8; row++) {
                     //for each pixel of the row
                     for (int col = 0; col < 8; col++) {
-                        //We compute the pixel id
-                        int pixel = ((tile_lsb & 0x01) << 1) | (tile_msb & 0x01);
-                        //We shift the tile registers to get the next pixel id
-                        tile_lsb >>= 1;
-                        tile_msb >>= 1;
                         //We populate the image by getting the right color from the palette using the palette and pixel IDs
-                        dest.getPixelWriter().setColor(((tileY << 3) | (7 - col)), ((tileX << 3) | row), getColorFromPalette(paletteId, pixel));
+                        dest[(((tileX << 3) | row) << 7) | (tileY << 3) | col] = getRGBAFromPalette(paletteId, pixels[(row << 3) | col]);
                     }
                 }
             }
@@ -868,9 +1226,10 @@ public class PPU_2C02 {
 
     /**
      * @param i    the pattern table index
-     * @param dest the image where to store the nametable
+     * @param dest the 256x240 pixels where to store the nametable, packed as 0xRRGGBBAA
      */
-    public void getNametable(int i, WritableImage dest) {
+    public void getNametable(int i, int[] dest) {
+        byte[] pixels = new byte[64];
         //For each row of tiles starting at the top
         for (int y = 0; y < 30; y++) {
             //For each tile starting at the left
@@ -891,25 +1250,17 @@ public class PPU_2C02 {
                 //We use the attribute to determinate the tile palette
                 int palette = tile_attrib & 0b11;
                 int pid;
+                //We get the decoded pixels of the tile
+                cartridge.decodeTile((control_register.isPatternBackgroundSet() ? 0x1 << 12 : 0) + (tile_id << 4), false, pixels);
                 for (int row = 0; row < 8; row++) {
-                    //We use the tile id and the current row index to get the lsb of the 8 pixel IDs of the row (low bitplane)
-                    int tile_lsb = ppuRead((control_register.isPatternBackgroundSet() ? 0x1 << 12 : 0) + (tile_id << 4) + row, true);
-                    //We use the tile id and the current row index to get the msb of the 8 pixels of the row (high bitplane)
-                    int tile_msb = ppuRead((control_register.isPatternBackgroundSet() ? 0x1 << 12 : 0) + (tile_id << 4) + row + 8, true);
                     //For each pixel of the row
                     for (int col = 0; col < 8; col++) {
-                        //We get the correct pixel ID by reading the 2 bitplanes
-                        int p0_pixel = (tile_lsb & 0x80) > 0 ? 0x1 : 0x0;
-                        int p1_pixel = (tile_msb & 0x80) > 0 ? 0x1 : 0x0;
-                        int pixel = ((p1_pixel << 1) | p0_pixel) & 0x000F;
+                        int pixel = pixels[(row << 3) | col];
                         pid = palette;
                         //If the pixel ID is 0, then it's transparent so we use pixel 0 of palette 0
                         if (pixel == 0x00) pid = 0x00;
-                        //We shift the tile registers to get the next pixel id
-                        tile_lsb = (tile_lsb << 1) & 0xFFFF;
-                        tile_msb = (tile_msb << 1) & 0xFFFF;
                         //We populate the image by getting the right color from the palette using the palette and pixel IDs
-                        dest.getPixelWriter().setColor(((x << 3) | (col)), ((y << 3) | row), getColorFromPalette(pid, pixel));
+                        dest[(((y << 3) | row) << 8) | (x << 3) | col] = getRGBAFromPalette(pid, pixel);
                     }
                 }
             }
@@ -935,27 +1286,18 @@ public class PPU_2C02 {
         dest.attribute &= 0x03;
         dest.palette = dest.attribute & 0b11;
         int pid;
+        //We get the decoded pixels of the tile
+        byte[] pixels = cartridge.decodeTile((control_register.isPatternBackgroundSet() ? 0x1 << 12 : 0) + (dest.tile << 4), false, new byte[64]);
         //For each row of the tile
         for (int row = 0; row < 8; row++) {
-            //We use the tile id and the current row index to get the lsb of the 8 pixel IDs of the row (low bitplane)
-            int tile_lsb = ppuRead((control_register.isPatternBackgroundSet() ? 0x1 << 12 : 0) + (dest.tile << 4) + row, true);
-            //We use the tile id and the current row index to get the msb of the 8 pixels of the row (high bitplane)
-            int tile_msb = ppuRead((control_register.isPatternBackgroundSet() ? 0x1 << 12 : 0) + (dest.tile << 4) + row + 8, true);
-            //We use the attribute to determinate the tile palette
             //For each pixel of the row
             for (int col = 0; col < 8; col++) {
-                //We get the correct pixel ID by reading the 2 bitplanes
-                int p0_pixel = (tile_lsb & 0x80) > 0 ? 0x1 : 0x0;
-                int p1_pixel = (tile_msb & 0x80) > 0 ? 0x1 : 0x0;
-                int pixel = ((p1_pixel << 1) | p0_pixel) & 0x000F;
+                int pixel = pixels[(row << 3) | col];
                 pid = dest.palette;
                 //If the pixel ID is 0, then it's transparent so we use pixel 0 of palette 0
                 if (pixel == 0x00) pid = 0x00;
-                //We shift the tile registers to get the next pixel id
-                tile_lsb = (tile_lsb << 1) & 0xFFFF;
-                tile_msb = (tile_msb << 1) & 0xFFFF;
                 //We populate the image by getting the right color from the palette using the palette and pixel IDs
-                dest.colors[col | (row << 3)] = getColorFromPalette(pid, pixel);
+                dest.colors[col | (row << 3)] = getRGBAFromPalette(pid, pixel);
             }
         }
         return dest;
@@ -966,21 +1308,14 @@ public class PPU_2C02 {
         int offset = y * 256 + x * 16;
         dest.tile = y | (x << 4);
         dest.addr = patterntableId * 0x1000 + offset;
+        //We get the decoded pixels of the tile
+        byte[] pixels = cartridge.decodeTile(dest.addr, false, new byte[64]);
         //For each row of the tile
-        for (byte row = 0; row < 8; row++) {
-            //We get the lsb of the pixels of the row
-            int tile_lsb = ppuRead(dest.addr + row, true);
-            //We get the msb of the pixels of the row
-            int tile_msb = ppuRead(dest.addr + row + 8, true);
+        for (int row = 0; row < 8; row++) {
             //for each pixel of the row
             for (int col = 0; col < 8; col++) {
-                //We compute the pixel id
-                int pixel = ((tile_lsb & 0x01) << 1) | (tile_msb & 0x01);
-                //We shift the tile registers to get the next pixel id
-                tile_lsb >>= 1;
-                tile_msb >>= 1;
                 //We populate the image by getting the right color from the palette using the palette and pixel IDs
-                dest.colors[(7 - col) | (row << 3)] = getColorFromPalette(paletteId, pixel);
+                dest.colors[col | (row << 3)] = getRGBAFromPalette(paletteId, pixels[(row << 3) | col]);
             }
         }
         return dest;
@@ -989,42 +1324,23 @@ public class PPU_2C02 {
     public Tile getOamTile8x8(int oamId) {
         if (oamId < 64) {
             Tile tile = new Tile(false);
-            ObjectAttribute entry = oams[oamId];
+            ObjectAttribute entry = oam_views[oamId];
+            tile.addr = (control_register.isPatternSpriteSet() ? 1 << 12 : 0) | (entry.getId() << 4);
+            tile.x = entry.getX();
+            tile.y = entry.getY();
+            tile.tile = entry.getId() >> 1;
+            tile.palette = (entry.getAttribute() & 0x3) + 4;
+            tile.attribute = entry.getAttribute() & 0xE0;
+            //We get the decoded pixels of the tile, flipped if the sprite is flipped horizontally
+            byte[] pixels = cartridge.decodeTile(tile.addr, (entry.getAttribute() & 0x40) == 0x40, new byte[64]);
             for (int row = 0; row < 8; row++) {
-                tile.addr = (control_register.isPatternSpriteSet() ? 1 << 12 : 0) | (entry.getId() << 4);
-                tile.x = entry.getX();
-                tile.y = entry.getY();
-                tile.tile = entry.getId() >> 1;
-                tile.palette = (entry.getAttribute() & 0x3) + 4;
-                tile.attribute = entry.getAttribute() & 0xE0;
-                int sprite_pattern_low, sprite_pattern_high;
-                int sprite_pattern_addr_low, sprite_pattern_addr_high;
-                //We retrieve the low bit plane address of the current sprite row
-                if ((entry.getAttribute() & 0x80) != 0x80) // Sprite normally oriented
-                    sprite_pattern_addr_low = tile.addr | row;
-                else //Sprite flipped vertically
-                    sprite_pattern_addr_low = tile.addr | (7 - row);
-
-                //The high bit plane one is offset by 8 from the low bit plane
-                sprite_pattern_addr_high = (sprite_pattern_addr_low + 8) & 0xFFFF;
-                //We read the 2 bit planes
-                sprite_pattern_low = ppuRead(sprite_pattern_addr_low, true);
-                sprite_pattern_high = ppuRead(sprite_pattern_addr_high, true);
-
-                //If the sprite is flipped horizontally
-                if ((entry.getAttribute() & 0x40) == 0x40) {
-                    sprite_pattern_low = NumberUtils.byteFlip(sprite_pattern_low);
-                    sprite_pattern_high = NumberUtils.byteFlip(sprite_pattern_high);
-                }
+                //We retrieve the row of the tile, reversed if the sprite is flipped vertically
+                int tile_row = (entry.getAttribute() & 0x80) != 0x80 ? row : 7 - row;
                 //For each pixel of the row
                 for (int col = 0; col < 8; col++) {
-                    //We compute the pixel and palette id
-                    int px = ((sprite_pattern_low & 0x80) == 0x80 ? 0x1 : 0x0) | ((((sprite_pattern_high & 0x80) == 0x80 ? 0x1 : 0x0)) << 1);
+                    int px = pixels[(tile_row << 3) | col];
                     //We draw the pixel
-                    tile.colors[col | (row << 3)] = getColorFromPalette(px == 0 ? 0 : tile.palette, px);
-                    //We shift the bit planes for the next pixel
-                    sprite_pattern_high <<= 1;
-                    sprite_pattern_low <<= 1;
+                    tile.colors[col | (row << 3)] = getRGBAFromPalette(px == 0 ? 0 : tile.palette, px);
                 }
             }
             return tile;
@@ -1034,47 +1350,28 @@ public class PPU_2C02 {
 
     public Tile getOamTile8x16(int oamId) {
         Tile tile = new Tile(true);
-        ObjectAttribute entry = oams[oamId];
+        ObjectAttribute entry = oam_views[oamId];
+        tile.addr = entry.getId();
+        tile.x = entry.getX();
+        tile.y = entry.getY();
+        tile.tile = entry.getId() >> 1;
+        tile.palette = (entry.getAttribute() & 0x3) + 4;
+        boolean flip_horizontal = (entry.getAttribute() & 0x40) == 0x40;
+        byte[] pixels = new byte[64];
         for (int row = 0; row < 16; row++) {
-            int sprite_pattern_low, sprite_pattern_high;
-            int sprite_pattern_addr_low, sprite_pattern_addr_high;
-            if ((entry.getAttribute() & 0x80) != 0x80) {
-                if (row < 8)
-                    sprite_pattern_addr_low = ((entry.getId() & 0x1) << 12) | ((entry.getId() & 0xFE) << 4) | row;
-                else
-                    sprite_pattern_addr_low = ((entry.getId() & 0x1) << 12) | (((entry.getId() & 0xFE) + 1) << 4) | (row - 8);
-            } else {
-                if (row < 8)
-                    sprite_pattern_addr_low = ((entry.getId() & 0x1) << 12) | (((entry.getId() & 0xFE) + 1) << 4) | (7 - row);
-                else
-                    sprite_pattern_addr_low = ((entry.getId() & 0x1) << 12) | ((entry.getId() & 0xFE) << 4) | (7 - row + 8);
-            }
-            sprite_pattern_addr_high = (sprite_pattern_addr_low + 8) & 0xFFFF;
-            sprite_pattern_low = ppuRead(sprite_pattern_addr_low, true);
-            sprite_pattern_high = ppuRead(sprite_pattern_addr_high, true);
-
-            if ((entry.getAttribute() & 0x40) == 0x40) {
-                sprite_pattern_low = NumberUtils.byteFlip(sprite_pattern_low);
-                sprite_pattern_high = NumberUtils.byteFlip(sprite_pattern_high);
-            }
-            tile.addr = entry.getId();
-            tile.x = entry.getX();
-            tile.y = entry.getY();
-            tile.tile = entry.getId() >> 1;
-            tile.palette = (entry.getAttribute() & 0x3) + 4;
+            //The sprite is made of 2 tiles, if it is flipped vertically the bottom tile is drawn first and its rows are reversed
+            int sprite_row = (entry.getAttribute() & 0x80) != 0x80 ? row : 15 - row;
+            int tile_addr = ((entry.getId() & 0x1) << 12) | (((entry.getId() & 0xFE) + (sprite_row >> 3)) << 4);
+            cartridge.decodeTile(tile_addr, flip_horizontal, pixels);
             for (int col = 0; col < 8; col++) {
-                int px = ((sprite_pattern_low & 0x80) == 0x80 ? 0x1 : 0x0) | ((((sprite_pattern_high & 0x80) == 0x80 ? 0x1 : 0x0)) << 1);
-
-                tile.colors[col | (row << 3)] = getColorFromPalette(px == 0 ? 0 : tile.palette, px);
-
-                sprite_pattern_high <<= 1;
-                sprite_pattern_low <<= 1;
+                int px = pixels[((sprite_row & 0x7) << 3) | col];
+                tile.colors[col | (row << 3)] = getRGBAFromPalette(px == 0 ? 0 : tile.palette, px);
             }
         }
         return tile;
     }
     public ByteBuffer getFrameBuffer() {
-        return screen_buffer; // Returns the ByteBuffer, giving the current frame
+        return frame_exchange.getFrontBuffer(); // Returns the ByteBuffer, giving the last acquired frame
     }
     
 }
@@ -1,10 +1,11 @@
-package gui.lwjgui.windows;
-
-import javafx.scene.paint.Color;
+package core.ppu;
 
+/**
+ * A tile decoded by the PPU debug methods, the colors are packed as 0xRRGGBBAA, row by row
+ */
 public class Tile {
 
-    public final Color[] colors;
+    public final int[] colors;
     public int tile = 0x00;
     public int addr = 0x0000;
     public int x = 0x00;
@@ -14,8 +15,8 @@ public class Tile {
 
     public Tile(boolean doubleHeight) {
         if (doubleHeight)
-            colors = new Color[128];
+            colors = new int[128];
         else
-            colors = new Color[64];
+            colors = new int[64];
     }
 }
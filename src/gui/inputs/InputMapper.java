@@ -429,7 +429,42 @@ public class InputMapper {
      */
     public void handleWebSocketInput(String input, int player, boolean pressed) {
         NESInputs nesInput = NESInputs.valueOf(input);
-        nes.updateControllerState(player, nesInput, pressed); // Update NES controller state
+        nes.updateControllerState(player, getButtonMask(nesInput), pressed); // Update NES controller state
+    }
+
+    /**
+     * @param input the input
+     * @return the bit of the input in the controller state
+     */
+    private static int getButtonMask(NESInputs input) {
+        switch (input) {
+            case CONTROLLER_1_A:
+            case CONTROLLER_2_A:
+                return 0x80;
+            case CONTROLLER_1_B:
+            case CONTROLLER_2_B:
+                return 0x40;
+            case CONTROLLER_1_SELECT:
+            case CONTROLLER_2_SELECT:
+                return 0x20;
+            case CONTROLLER_1_START:
+            case CONTROLLER_2_START:
+                return 0x10;
+            case CONTROLLER_1_UP:
+            case CONTROLLER_2_UP:
+                return 0x08;
+            case CONTROLLER_1_DOWN:
+            case CONTROLLER_2_DOWN:
+                return 0x04;
+            case CONTROLLER_1_LEFT:
+            case CONTROLLER_2_LEFT:
+                return 0x02;
+            case CONTROLLER_1_RIGHT:
+            case CONTROLLER_2_RIGHT:
+                return 0x01;
+            default:
+                throw new IllegalArgumentException("Unknown NESInput: " + input);
+        }
     }
 }
 
@@ -0,0 +1,270 @@
+package gui.lwjgui;
+
+import core.AudioSink;
+import gui.lwjgui.windows.AudioOutput;
+import gui.lwjgui.windows.AudioSettings;
+import net.beadsproject.beads.core.AudioContext;
+import net.beadsproject.beads.core.UGen;
+import net.beadsproject.beads.core.io.JavaSoundAudioIO;
+import net.beadsproject.beads.ugens.Function;
+import net.beadsproject.beads.ugens.WaveShaper;
+import utils.AudioRing;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.Mixer;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class AudioEngine implements AudioSink {
+
+    private static final int AUDIO_RING_SIZE = 4096; // About 90ms of audio, the emulation keeps it half full
+    private static final int PROBE_TIMEOUT = 200; // Time in milliseconds an output has to start calling back
+    private static final String OUTPUT_FILE = "audio_output.xml"; // Where the last output known to work is saved
+
+    private final AudioContext ac; // Encapsulation: Manages audio processing context
+    private final JavaSoundAudioIO jsaIO; // Encapsulation: Handles audio I/O interface
+    private final List<AudioOutput> validOutputs; // Encapsulation: List of valid audio outputs
+    private final AudioRing audioRing; // Encapsulation: Samples pushed by the emulation thread, waiting to be played
+    private final long probingTime; // Encapsulation: Time spent finding an output at startup, in milliseconds
+    private AudioOutput selectedOutput; // Encapsulation: Currently selected audio output
+    private boolean outputsProbed = false; // Encapsulation: Have all the outputs been probed
+
+    public AudioEngine(NEmuSContext emulatorContext) {
+        jsaIO = new JavaSoundAudioIO(); // Encapsulation: Initialize audio I/O
+        validOutputs = new ArrayList<>(); // Encapsulation: Initialize list of valid outputs
+        audioRing = new AudioRing(AUDIO_RING_SIZE); // Encapsulation: Initialize the sample ring
+
+        long start = System.nanoTime();
+        AudioOutput output = findStartupOutput(); // Factory Method Pattern: Finds a valid audio output
+        probingTime = (System.nanoTime() - start) / 1000000;
+        AudioSettings.linkSoundIO(this); // Observer Pattern: Link the audio settings with the audio engine
+        if (output == null) {
+            ac = null; // No audio device, the emulator falls back to another sink
+            return;
+        }
+
+        selectIO(output); // Strategy Pattern: Selects the output
+        ac = new AudioContext(jsaIO); // Encapsulation: Initialize the audio context
+
+        // Anonymous Inner Class: Copy a whole buffer of samples from the ring filled by the emulation thread
+        UGen audioProcessor = new UGen(ac, 1) {
+            public void calculateBuffer() {
+                if (emulatorContext.emulation_running)
+                    audioRing.read(bufOut[0], 0, bufferSize);
+                else
+                    Arrays.fill(bufOut[0], 0);
+            }
+        };
+        ac.out.addInput(audioProcessor); // Decorator Pattern: Add functionality to audio context output
+    }
+
+    /**
+     * Return whether or not an audio device has been found
+     *
+     * @return can the engine play audio
+     */
+    public boolean isAvailable() {
+        return ac != null;
+    }
+
+    @Override
+    public int getSampleRate() {
+        return (int) ac.getSampleRate(); // Bridge Pattern: The emulation produces samples at the device rate
+    }
+
+    @Override
+    public boolean isRealTime() {
+        return true;
+    }
+
+    @Override
+    public double getFillRatio() {
+        return audioRing.getFillRatio();
+    }
+
+    @Override
+    public void write(float[] samples, int offset, int count) {
+        audioRing.write(samples, offset, count); // Lock-free: Only copied, played by the audio callback
+    }
+
+    /**
+     * Return the ring buffering the samples, to monitor its fill level, underruns and overruns
+     *
+     * @return the audio ring
+     */
+    public AudioRing getAudioRing() {
+        return audioRing;
+    }
+
+    /**
+     * Find an output to play to at startup
+     * The last output known to work is probed alone first, all the outputs are probed only if it fails
+     *
+     * @return the output to use, null if none works
+     */
+    private AudioOutput findStartupOutput() {
+        String lastOutput = loadLastOutput();
+        Mixer.Info[] mixers = AudioSystem.getMixerInfo();
+        for (int index = 0; index < mixers.length; index++)
+            if (mixers[index].getName().equals(lastOutput) && probe(index))
+                return new AudioOutput(index, mixers[index]);
+        List<AudioOutput> outputs = getValidOutputs();
+        return outputs.isEmpty() ? null : outputs.get(0);
+    }
+
+    /**
+     * Probe all the Mixers concurrently and keep those able to play audio
+     * The selected output is playing and can't be probed, it is known to be valid
+     */
+    private void verifyValidOutputs() {
+        Mixer.Info[] mixers = AudioSystem.getMixerInfo();
+        ExecutorService prober = Executors.newCachedThreadPool();
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int index = 0; index < mixers.length; index++) {
+            final int mixer = index;
+            if (selectedOutput != null && selectedOutput.getId() == mixer)
+                results.add(CompletableFuture.completedFuture(true));
+            else
+                results.add(prober.submit(() -> probe(mixer)));
+        }
+        // Factory Method Pattern: For each Mixer, if it's a valid output add it to the list
+        for (int index = 0; index < mixers.length; index++) {
+            try {
+                if (results.get(index).get())
+                    validOutputs.add(selectedOutput != null && selectedOutput.getId() == index ? selectedOutput : new AudioOutput(index, mixers[index]));
+            } catch (InterruptedException | ExecutionException ignored) {}
+        }
+        prober.shutdown();
+    }
+
+    /**
+     * Check whether or not a Mixer can play audio, by waiting for the first audio callback
+     *
+     * @param index the index of the Mixer
+     * @return is the Mixer a valid output
+     */
+    private static boolean probe(int index) {
+        JavaSoundAudioIO io = new JavaSoundAudioIO(); // Each probe has its own I/O so they can run concurrently
+        io.selectMixer(index);
+        AudioContext checker = new AudioContext(io); // Encapsulation: Temporary audio context for checking
+        CountDownLatch called = new CountDownLatch(1);
+        // Anonymous Inner Class: Function to check if the mixer is valid
+        Function check = new Function(new WaveShaper(checker)) {
+            public float calculate() {
+                called.countDown();
+                return 0;
+            }
+        };
+        checker.out.addInput(check);
+        try {
+            checker.start();
+            return called.await(PROBE_TIMEOUT, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            return false;
+        } finally {
+            checker.stop();
+        }
+    }
+
+    /**
+     * Load the name of the last output that worked
+     *
+     * @return the name of the output, null if unknown
+     */
+    private static String loadLastOutput() {
+        try {
+            Document xml = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new File(OUTPUT_FILE));
+            Element output = (Element) xml.getElementsByTagName("output").item(0);
+            return output == null ? null : output.getTextContent();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Save the name of the output in use, so it is tried first on the next startup
+     *
+     * @param name the name of the output
+     */
+    private static void saveLastOutput(String name) {
+        try {
+            Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+            Element rootNode = document.createElement("audio");
+            Element outputNode = document.createElement("output");
+            outputNode.setTextContent(name);
+            rootNode.appendChild(outputNode);
+            document.appendChild(rootNode);
+
+            Transformer transformer = TransformerFactory.newInstance().newTransformer();
+            transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+            transformer.transform(new DOMSource(document), new StreamResult(new File(OUTPUT_FILE)));
+        } catch (TransformerException | ParserConfigurationException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Return the outputs able to play audio, they are probed on the first call
+     *
+     * @return the valid outputs
+     */
+    public synchronized List<AudioOutput> getValidOutputs() {
+        if (!outputsProbed) {
+            verifyValidOutputs(); // Lazy Initialization: Only probe every Mixer when the list is needed
+            outputsProbed = true;
+        }
+        return validOutputs; // Encapsulation: Provides access to the list of valid outputs
+    }
+
+    /**
+     * Return the time spent finding an output at startup
+     *
+     * @return the probing time in milliseconds
+     */
+    public long getProbingTime() {
+        return probingTime;
+    }
+
+    @Override
+    public void start() {
+        if (ac != null)
+            ac.start(); // Facade Pattern: Simplified method to start audio processing
+    }
+
+    @Override
+    public void stop() {
+        if (ac != null)
+            ac.stop(); // Facade Pattern: Simplified method to stop audio processing
+    }
+
+    public AudioOutput getSelectedOutput() {
+        return selectedOutput; // Encapsulation: Accessor for the selected output
+    }
+
+    public void selectIO(AudioOutput io) {
+        selectedOutput = io; // Encapsulation: Set the selected audio output
+        jsaIO.selectMixer(io.getId()); // Strategy Pattern: Select the mixer based on the chosen output
+        if (!io.getInfo().getName().equals(loadLastOutput()))
+            saveLastOutput(io.getInfo().getName()); // Memento Pattern: Remember the output for the next startup
+    }
+}
@@ -0,0 +1,109 @@
+package gui.lwjgui;
+
+import core.AudioSink;
+import core.FrameGovernor;
+import core.NES;
+import gui.lwjgui.windows.APUViewer;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This class runs the emulation on its own thread, one frame at a time, at the speed of the NES
+ * The audio samples of each frame are sent to the audio sink, a real time sink only copies them from its buffer,
+ * so a slow frame doesn't stall the audio output and the audio block size doesn't dictate the emulation cadence
+ * Frames are paced by a FrameGovernor, with a real time sink the resampling ratio is also nudged so its buffer
+ * stays half full, absorbing the drift between the NES and the audio clocks
+ * Before each frame the context takes a rewind snapshot, or restores the previous one while rewinding
+ */
+class EmulationThread extends Thread {
+
+    private static final double MAX_RATE_ADJUSTMENT = 0.005; // Maximum deviation of the resampling ratio (0.5%)
+    private static final double LOW_FILL_RATIO = 0.25; // Under this fill level, frames are run without waiting until the buffer is half full
+    private static final int AUDIO_BLOCK_SIZE = 1024;
+
+    private final NEmuSContext context;
+    private final AudioSink audio_sink;
+    private final FrameGovernor governor;
+    private final float[] audio_block;
+
+    private volatile boolean running = true;
+    private boolean refilling = true;
+
+    /**
+     * Create the emulation thread of a context
+     *
+     * @param context    the context to run the emulation of
+     * @param audio_sink the sink the audio samples are sent to
+     */
+    EmulationThread(NEmuSContext context, AudioSink audio_sink) {
+        super("Emulation Thread");
+        this.context = context;
+        this.audio_sink = audio_sink;
+        this.governor = new FrameGovernor(FrameGovernor.NTSC_FRAME_TIME);
+        this.audio_block = new float[AUDIO_BLOCK_SIZE];
+        setDaemon(true);
+    }
+
+    /**
+     * Return the governor pacing the emulation
+     *
+     * @return the frame governor
+     */
+    FrameGovernor getGovernor() {
+        return governor;
+    }
+
+    /**
+     * Stop the thread and wait for the end of the current frame
+     */
+    void shutdown() {
+        running = false;
+        try {
+            join();
+        } catch (InterruptedException ignored) {}
+    }
+
+    @Override
+    public void run() {
+        NES nes = context.nes;
+        while (running) {
+            boolean ran = false;
+            if (context.emulation_running) {
+                synchronized (nes) {
+                    //The frame isn't run when there is nothing left to rewind
+                    if (context.emulation_running && context.prepareFrame()) {
+                        nes.runFrame(APUViewer.hasInstance());
+                        pushAudio(nes);
+                        ran = true;
+                    }
+                }
+            }
+            if (!ran) {
+                LockSupport.parkNanos(FrameGovernor.NTSC_FRAME_TIME);
+                governor.reset();
+                continue;
+            }
+            //With a real time sink running dry, the next frame starts right away
+            if (audio_sink.isRealTime())
+                refilling = audio_sink.getFillRatio() < (refilling ? 0.5 : LOW_FILL_RATIO);
+            governor.waitNextFrame(refilling && audio_sink.isRealTime());
+        }
+    }
+
+    /**
+     * Move the samples of the last frame from the APU to the audio sink
+     * and adjust the resampling ratio according to the fill level of the sink buffer
+     *
+     * @param nes the NES to take the samples from
+     */
+    private void pushAudio(NES nes) {
+        int count;
+        while ((count = nes.getApu().renderSamples(audio_block, 0, AUDIO_BLOCK_SIZE)) > 0)
+            audio_sink.write(audio_block, 0, count);
+        //Above half full we produce slightly less samples, below slightly more
+        if (audio_sink.isRealTime()) {
+            double error = audio_sink.getFillRatio() - 0.5;
+            nes.getApu().setRateRatio(1.0 - 2 * error * MAX_RATE_ADJUSTMENT);
+        }
+    }
+}
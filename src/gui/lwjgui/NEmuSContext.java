@@ -1,7 +1,10 @@
 package gui.lwjgui;
 
-import core.AudioEngine;
+import core.AudioSink;
+import core.FileAudioSink;
 import core.NES;
+import core.NullAudioSink;
+import core.RewindBuffer;
 import core.cartridge.Cartridge;
 import core.ppu.PPU_2C02;
 import exceptions.InvalidFileException;
@@ -27,7 +30,11 @@ import utils.Dialogs;
 import javax.sound.sampled.AudioSystem;
 import javax.sound.sampled.Mixer;
 import java.io.EOFException;
+import java.nio.file.Paths;
 
+import static org.lwjgl.glfw.GLFW.GLFW_KEY_BACKSPACE;
+import static org.lwjgl.glfw.GLFW.GLFW_PRESS;
+import static org.lwjgl.glfw.GLFW.glfwGetKey;
 import static org.lwjgl.opengl.GL11.*;
 
 /**
@@ -36,21 +43,29 @@ import static org.lwjgl.opengl.GL11.*;
  */
 public class NEmuSContext implements Renderer {
 
+    private static final int DEFAULT_SAMPLE_RATE = 44100; // Sample rate used when there is no audio device
+
     public final NES nes;
     private final InputMapper inputMapper;
     private final Fbo fbo;
     private final Texture screen_texture;
     private final Quad screen_quad;
     private final AudioEngine audioEngine;
+    private final AudioSink audio_sink;
+    private final EmulationThread emulation_thread;
+    private final long window_handle;
+    private final int rewind_budget;
 
     private ShaderProgram default_shader;
     private Pipeline pipeline;
     private String requested_rom;
     private boolean load_rom_requested = false;
     private boolean reset_requested = false;
-    public boolean emulation_running = false;
+    public volatile boolean emulation_running = false;
     private boolean redraw = false;
     private boolean started = false;
+    private RewindBuffer rewind_buffer;
+    private volatile boolean rewinding = false;
 
     /**
      * Create a new emulator context
@@ -59,8 +74,16 @@ public class NEmuSContext implements Renderer {
      */
     NEmuSContext(long windowHandle) {
         nes = new NES();
+        window_handle = windowHandle;
+        //Memory used by the rewind snapshots in MB, 0 disables rewinding (-Dnemus.rewind=64)
+        rewind_budget = Math.max(0, Math.min(Integer.getInteger("nemus.rewind", RewindBuffer.DEFAULT_BUDGET >> 20), 1024)) << 20;
         inputMapper = new InputMapper(windowHandle, nes);
         audioEngine = new AudioEngine(this);
+        audio_sink = createAudioSink();
+        nes.setSampleFreq(audio_sink.getSampleRate());
+        emulation_thread = new EmulationThread(this, audio_sink);
+        //Without a real time audio output, the emulation can run as fast as possible (-Dnemus.throttle=false)
+        emulation_thread.getGovernor().setThrottled(!"false".equals(System.getProperty("nemus.throttle")));
 
         // enable texture and create the quad, fbo and texture used to render
         glEnable(GL_TEXTURE_2D);
@@ -78,8 +101,31 @@ public class NEmuSContext implements Renderer {
             System.exit(-1);
         }
 
-        //We start the Audio Engine
-        audioEngine.start();
+        //We start the Audio Output and the Emulation
+        audio_sink.start();
+        emulation_thread.start();
+    }
+
+    /**
+     * Choose where the audio samples go, given by -Dnemus.audio:
+     * "null" discards them, "file:path.wav" (or "file:path.raw") records them,
+     * by default the audio device is used if there is one, or the samples are discarded
+     *
+     * @return the audio sink to use
+     */
+    private AudioSink createAudioSink() {
+        String audio = System.getProperty("nemus.audio", "device");
+        if (audio.equals("null"))
+            return new NullAudioSink(DEFAULT_SAMPLE_RATE);
+        if (audio.startsWith("file:")) {
+            String file = audio.substring("file:".length());
+            return new FileAudioSink(Paths.get(file), DEFAULT_SAMPLE_RATE, !file.endsWith(".raw"));
+        }
+        if (!audioEngine.isAvailable()) {
+            Platform.runLater(() -> Dialogs.showError("No suitable Audio Output found", "NEmuS was unable to find a suitable Audio Output, the emulation will run without sound"));
+            return new NullAudioSink(DEFAULT_SAMPLE_RATE);
+        }
+        return audioEngine;
     }
 
     /**
@@ -90,18 +136,29 @@ public class NEmuSContext implements Renderer {
         default_shader.cleanUp();
         screen_texture.cleanUp();
         fbo.cleanUp();
-        audioEngine.stop();
+        emulation_thread.shutdown();
+        audio_sink.stop();
+        if (nes.getCartridge() != null)
+            nes.getCartridge().close();
     }
 
     /**
      * Create an instance of a NES and load the game
      */
     private void initEmulator(String rom) throws UnsupportedMapperException, EOFException, InvalidFileException {
+        //The previous game is saved before its save file can be loaded again
+        if (nes.getCartridge() != null)
+            nes.getCartridge().close();
         Cartridge cart = new Cartridge(rom);
+        cart.setSaveErrorHandler(e -> Platform.runLater(() -> Dialogs.showException("ROM Save Error", "An error occurred during ROM Saving", e)));
         //Load the game into the NES
         nes.insertCartridge(cart);
         //Reset the CPU to its default state
         nes.startup();
+        //The size of the snapshots depends on the Cartridge, the rewind buffer is created for each game
+        rewind_buffer = null;
+        if (rewind_budget > 0)
+            rewind_buffer = new RewindBuffer(nes, rewind_budget, 1);
     }
 
     /**
@@ -164,16 +221,17 @@ public class NEmuSContext implements Renderer {
         //If a Reset has been requested
         if (reset_requested) {
             reset_requested = false;
-            boolean running = emulation_running;
-            emulation_running = false;
-            nes.reset();
-            emulation_running = running;
+            synchronized (nes) {
+                nes.reset();
+            }
         }
 
 
-        //If we need to render the screen
-        if ((emulation_running && nes.getPpu().frame_complete) || redraw) {
-            nes.getPpu().frame_complete = false;
+        //The game goes back in time while the rewind key is held
+        rewinding = started && glfwGetKey(window_handle, GLFW_KEY_BACKSPACE) == GLFW_PRESS;
+
+        //If we need to render the screen, the latest complete frame is taken from the PPU without waiting for it
+        if ((emulation_running || redraw) && (nes.getPpu().getFrameExchange().acquire() || redraw)) {
             glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
             InputHandling();
             screen_texture.load(nes.getPpu().getScreenBuffer());
@@ -234,18 +292,54 @@ public class NEmuSContext implements Renderer {
         }
     }
 
+    /**
+     * Called by the emulation thread before each frame, while holding the NES lock
+     * A snapshot is taken for the rewind buffer, or if the rewind key is held, the previous one is restored
+     *
+     * @return false if the frame must not be run, when there is nothing left to rewind
+     */
+    boolean prepareFrame() {
+        if (rewind_buffer == null)
+            return true;
+        if (rewinding)
+            return rewind_buffer.rewind();
+        rewind_buffer.capture();
+        return true;
+    }
+
     /**
      * Advance the emulation by one frame
      */
     public void frameStepEvent() {
         if (!emulation_running && started) {
-            do {
-                nes.clock(false);
-            } while (!nes.getPpu().frame_complete);
-            do {
-                nes.clock(false);
-            } while (nes.getCpu().complete());
-            nes.getPpu().frame_complete = false;
+            synchronized (nes) {
+                if (rewind_buffer != null)
+                    rewind_buffer.capture();
+                do {
+                    nes.clock(false);
+                } while (!nes.getPpu().frame_complete);
+                do {
+                    nes.clock(false);
+                } while (nes.getCpu().complete());
+                nes.getPpu().frame_complete = false;
+            }
+            redraw = true;
+        }
+    }
+
+    /**
+     * Go back by one frame, the previous frame is restored and run again so it can be displayed
+     */
+    public void rewindStepEvent() {
+        if (!emulation_running && started && rewind_buffer != null) {
+            synchronized (nes) {
+                //The last snapshot was taken before the frame on screen, the one before it is the frame to show
+                if (rewind_buffer.rewind()) {
+                    rewind_buffer.rewind();
+                    rewind_buffer.capture();
+                    nes.runFrame(false);
+                }
+            }
             redraw = true;
         }
     }
@@ -255,14 +349,16 @@ public class NEmuSContext implements Renderer {
      */
     public void cpuStepEvent() {
         if (!emulation_running && started) {
-            do {
-                nes.clock(false);
-            } while (!nes.getCpu().complete());
-            do {
-                nes.clock(false);
-            } while (nes.getCpu().complete());
-            if (nes.getPpu().frame_complete) {
-                nes.getPpu().frame_complete = false;
+            synchronized (nes) {
+                do {
+                    nes.clock(false);
+                } while (!nes.getCpu().complete());
+                do {
+                    nes.clock(false);
+                } while (nes.getCpu().complete());
+                if (nes.getPpu().frame_complete) {
+                    nes.getPpu().frame_complete = false;
+                }
             }
         }
         redraw = true;
@@ -363,6 +459,15 @@ public class NEmuSContext implements Renderer {
         nes.getApu().setLinear(linear);
     }
 
+    /**
+     * Return the audio engine, used to play to an audio device
+     *
+     * @return the audio engine
+     */
+    public AudioEngine getAudioEngine() {
+        return audioEngine;
+    }
+
     /**
      * Return the current NES of the emulator
      *
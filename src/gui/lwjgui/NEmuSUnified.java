@@ -25,6 +25,7 @@ import static org.lwjgl.glfw.GLFW.glfwSetWindowAspectRatio;
 public class NEmuSUnified extends LWJGUIApplication {
 
     private static NEmuSUnified instance;
+    private static long launch_time;
 
     private String currentDirectory;
     private Window window;
@@ -32,6 +33,7 @@ public class NEmuSUnified extends LWJGUIApplication {
     private MenuBar menu;
 
     public static void main(String[] args) {
+        launch_time = System.nanoTime();
         ModernOpenGL = false;
         //Just to initialize JavaFX
         new JFXPanel();
@@ -49,6 +51,7 @@ public class NEmuSUnified extends LWJGUIApplication {
         //We initialize the emulator context
         this.window = window;
         emulator = new NEmuSContext(window.getContext().getWindowHandle());
+        System.out.println("NEmuS started in " + (System.nanoTime() - launch_time) / 1000000 + "ms (audio output probing: " + emulator.getAudioEngine().getProbingTime() + "ms)");
 
 
         //We initialize the Menu and its behaviour
@@ -12,11 +12,10 @@ import javafx.scene.canvas.Canvas;
 import javafx.scene.paint.Color;
 import javafx.stage.Stage;
 import javafx.stage.StageStyle;
-import utils.AudioSampleCollection;
+import utils.AudioSampleRing;
 import utils.Dialogs;
 
 import java.net.URL;
-import java.util.Queue;
 import java.util.ResourceBundle;
 
 /**
@@ -24,9 +23,12 @@ import java.util.ResourceBundle;
  */
 public class APUViewer extends Application implements Initializable {
 
+    private static final int DISPLAYED_SAMPLES = 256;
+
     private static APUViewer instance;
 
     private final NEmuSContext emulator;
+    private final float[][] samples;
     private Stage stage;
 
     @FXML
@@ -47,6 +49,7 @@ public class APUViewer extends Application implements Initializable {
      */
     public APUViewer() {
         this.emulator = NEmuSUnified.getInstance().getEmulator();
+        this.samples = new float[AudioSampleRing.LANES][DISPLAYED_SAMPLES];
     }
 
     /**
@@ -101,7 +104,7 @@ public class APUViewer extends Application implements Initializable {
         while(instance != null) {
             if (emulator.isEmulationRunning()) {
                 Platform.runLater(() -> {
-                    Queue<AudioSampleCollection> samples = emulator.getNes().getApu().getAudioVisualizerQueue();
+                    int count = emulator.getNes().getApu().getVisualizerRing().snapshot(samples, DISPLAYED_SAMPLES);
                     pulse_1_canvas.getGraphicsContext2D().fillRect(0, 0, 512, 100);
                     pulse_2_canvas.getGraphicsContext2D().fillRect(0, 0, 512, 100);
                     triangle_canvas.getGraphicsContext2D().fillRect(0, 0, 512, 100);
@@ -114,19 +117,19 @@ public class APUViewer extends Application implements Initializable {
                     noise_canvas.getGraphicsContext2D().setStroke(Color.WHITE);
                     dmc_canvas.getGraphicsContext2D().setStroke(Color.WHITE);
                     mixer_canvas.getGraphicsContext2D().setStroke(Color.WHITE);
-                    int index = 0;
-                    AudioSampleCollection last = samples.poll();
-                    for (AudioSampleCollection sample : samples) {
-                        if (last != null) {
-                            pulse_1_canvas.getGraphicsContext2D().strokeLine(index, 90 - last.pulse1 * 110, index + 2, 90 - sample.pulse1 * 110);
-                            pulse_2_canvas.getGraphicsContext2D().strokeLine(index, 90 - last.pulse2 * 110, index + 2, 90 - sample.pulse2 * 110);
-                            triangle_canvas.getGraphicsContext2D().strokeLine(index, 90 - last.triangle * 110, index + 2, 90 - sample.triangle * 110);
-                            noise_canvas.getGraphicsContext2D().strokeLine(index, 90 - last.noise * 110, index + 2, 90 - sample.noise * 110);
-                            dmc_canvas.getGraphicsContext2D().strokeLine(index, 90 - last.dmc * 110, index + 2, 90 - sample.dmc * 110);
-                            mixer_canvas.getGraphicsContext2D().strokeLine(index, 90 - last.mixer * 110, index + 2, 90 - sample.mixer * 110);
-                        }
-                        index += 2;
-                        last = sample;
+                    float[] pulse_1 = samples[AudioSampleRing.PULSE_1];
+                    float[] pulse_2 = samples[AudioSampleRing.PULSE_2];
+                    float[] triangle = samples[AudioSampleRing.TRIANGLE];
+                    float[] noise = samples[AudioSampleRing.NOISE];
+                    float[] dmc = samples[AudioSampleRing.DMC];
+                    float[] mixer = samples[AudioSampleRing.MIXER];
+                    for (int i = 1, index = 0; i < count; i++, index += 2) {
+                        pulse_1_canvas.getGraphicsContext2D().strokeLine(index, 90 - pulse_1[i - 1] * 110, index + 2, 90 - pulse_1[i] * 110);
+                        pulse_2_canvas.getGraphicsContext2D().strokeLine(index, 90 - pulse_2[i - 1] * 110, index + 2, 90 - pulse_2[i] * 110);
+                        triangle_canvas.getGraphicsContext2D().strokeLine(index, 90 - triangle[i - 1] * 110, index + 2, 90 - triangle[i] * 110);
+                        noise_canvas.getGraphicsContext2D().strokeLine(index, 90 - noise[i - 1] * 110, index + 2, 90 - noise[i] * 110);
+                        dmc_canvas.getGraphicsContext2D().strokeLine(index, 90 - dmc[i - 1] * 110, index + 2, 90 - dmc[i] * 110);
+                        mixer_canvas.getGraphicsContext2D().strokeLine(index, 90 - mixer[i - 1] * 110, index + 2, 90 - mixer[i] * 110);
                     }
                 });
             }
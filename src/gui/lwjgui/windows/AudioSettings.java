@@ -1,8 +1,7 @@
 package gui.lwjgui.windows;
 
-import core.AudioEngine;
 import core.apu.APU_2A03;
-import core.apu.channels.components.pulse.Oscillator;
+import gui.lwjgui.AudioEngine;
 import gui.lwjgui.NEmuSUnified;
 import gui.lwjgui.NEmuSContext;
 import javafx.application.Application;
@@ -41,10 +40,6 @@ public class AudioSettings extends Application implements Initializable {
     @FXML
     private Slider volumeSlider;
     @FXML
-    private Slider soundQualitySlider;
-    @FXML
-    private Slider audioSampleSkipSlider;
-    @FXML
     private CheckBox audioRenderingCheck;
     @FXML
     private CheckBox rawAudioCheck;
@@ -98,11 +93,7 @@ public class AudioSettings extends Application implements Initializable {
     public void initialize(URL url, ResourceBundle resourceBundle) {
         instance = this;
         volumeSlider.valueProperty().addListener((observableValue, oldValue, newValue) -> APU_2A03.setVolume(newValue.intValue() / 100.0));
-        soundQualitySlider.valueProperty().addListener((observableValue, oldValue, newValue) -> Oscillator.setHarmonics(newValue.intValue() + 5));
-        audioSampleSkipSlider.valueProperty().addListener((observableValue, oldValue, newValue) -> APU_2A03.setSampleSkip(newValue.intValue()));
         volumeSlider.setValue(APU_2A03.getVolume() * 100);
-        soundQualitySlider.setValue(Oscillator.getHarmonics() - 5);
-        audioSampleSkipSlider.setValue(0);
         audioRenderingCheck.setSelected(emulator.isAudioRenderingEnabled());
         rawAudioCheck.setSelected(emulator.isRAWAudioEnabled());
         pulse1Checkbox.setSelected(emulator.isPulse1Rendered());
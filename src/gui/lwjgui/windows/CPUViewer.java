@@ -267,6 +267,15 @@ public class CPUViewer extends Application implements Initializable {
         redraw = true;
     }
 
+    /**
+     * Will trigger a frame rewind event to the Emulator
+     */
+    @FXML
+    public void rewindStepEvent() {
+        emulator.rewindStepEvent();
+        redraw = true;
+    }
+
     /**
      * Trigger a redraw of the window
      */
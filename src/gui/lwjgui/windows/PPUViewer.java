@@ -1,6 +1,7 @@
 package gui.lwjgui.windows;
 
 import core.NES;
+import core.ppu.Tile;
 import core.ppu.registers.ObjectAttribute;
 import gui.lwjgui.NEmuSUnified;
 import gui.lwjgui.NEmuSContext;
@@ -14,6 +15,7 @@ import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.*;
 import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
 import javafx.scene.image.WritableImage;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.HBox;
@@ -41,6 +43,7 @@ public class PPUViewer extends Application implements Initializable {
     private final Image nametable4_render_target;
     private final Image patterntable1_render_target;
     private final Image patterntable2_render_target;
+    private final int[] pixels;
     private int selected_palette = 0x00;
 
     @FXML
@@ -99,6 +102,7 @@ public class PPUViewer extends Application implements Initializable {
         nametable2_render_target = new WritableImage(256, 240);
         nametable3_render_target = new WritableImage(256, 240);
         nametable4_render_target = new WritableImage(256, 240);
+        pixels = new int[256 * 240];
     }
 
     /**
@@ -178,8 +182,8 @@ public class PPUViewer extends Application implements Initializable {
                     );
                     tooltip_canvas.setHeight(64);
                     int x = 0, y = 0;
-                    for (Color c : tile.colors) {
-                        tooltip_canvas.getGraphicsContext2D().setFill(c);
+                    for (int c : tile.colors) {
+                        tooltip_canvas.getGraphicsContext2D().setFill(toColor(c));
                         tooltip_canvas.getGraphicsContext2D().fillRect(x * 8, y * 8, 8, 8);
                         x++;
                         if (x >= 8) {
@@ -208,8 +212,8 @@ public class PPUViewer extends Application implements Initializable {
                     );
                     tooltip_canvas.setHeight(64);
                     int x = 0, y = 0;
-                    for (Color c : tile.colors) {
-                        tooltip_canvas.getGraphicsContext2D().setFill(c);
+                    for (int c : tile.colors) {
+                        tooltip_canvas.getGraphicsContext2D().setFill(toColor(c));
                         tooltip_canvas.getGraphicsContext2D().fillRect(x * 8, y * 8, 8, 8);
                         x++;
                         if (x >= 8) {
@@ -247,8 +251,8 @@ public class PPUViewer extends Application implements Initializable {
                     );
                     int x = 0, y = 0;
                     tooltip_canvas.setHeight((nes.getPpu().cpuRead(0, true) & 0x20) == 0x20 ? 128 : 64);
-                    for (Color c : tile.colors) {
-                        tooltip_canvas.getGraphicsContext2D().setFill(c);
+                    for (int c : tile.colors) {
+                        tooltip_canvas.getGraphicsContext2D().setFill(toColor(c));
                         tooltip_canvas.getGraphicsContext2D().fillRect(x * 8, y * 8, 8, 8);
                         x++;
                         if (x >= 8) {
@@ -289,10 +293,14 @@ public class PPUViewer extends Application implements Initializable {
                     //If the current tab is the nametables one
                     if (nt_tab.isSelected()) {
                         //We retrieve the nametables and draw them
-                        nes.getPpu().getNametable(0, (WritableImage) nametable1_render_target);
-                        nes.getPpu().getNametable(1, (WritableImage) nametable2_render_target);
-                        nes.getPpu().getNametable(2, (WritableImage) nametable3_render_target);
-                        nes.getPpu().getNametable(3, (WritableImage) nametable4_render_target);
+                        nes.getPpu().getNametable(0, pixels);
+                        drawPixels(nametable1_render_target, 256, 240);
+                        nes.getPpu().getNametable(1, pixels);
+                        drawPixels(nametable2_render_target, 256, 240);
+                        nes.getPpu().getNametable(2, pixels);
+                        drawPixels(nametable3_render_target, 256, 240);
+                        nes.getPpu().getNametable(3, pixels);
+                        drawPixels(nametable4_render_target, 256, 240);
                         nt_1_canvas.getGraphicsContext2D().drawImage(nametable1_render_target, 0, 0);
                         nt_2_canvas.getGraphicsContext2D().drawImage(nametable2_render_target, 0, 0);
                         nt_3_canvas.getGraphicsContext2D().drawImage(nametable3_render_target, 0, 0);
@@ -300,8 +308,10 @@ public class PPUViewer extends Application implements Initializable {
                         //If the selected tab is the pattern tables one
                     } else if (pt_tab.isSelected()) {
                         //We retrieve the pattern tables and draw them
-                        nes.getPpu().getPatternTable(0, selected_palette, (WritableImage) patterntable1_render_target);
-                        nes.getPpu().getPatternTable(1, selected_palette, (WritableImage) patterntable2_render_target);
+                        nes.getPpu().getPatternTable(0, selected_palette, pixels);
+                        drawPixels(patterntable1_render_target, 128, 128);
+                        nes.getPpu().getPatternTable(1, selected_palette, pixels);
+                        drawPixels(patterntable2_render_target, 128, 128);
                         pt_1_canvas.getGraphicsContext2D().drawImage(patterntable1_render_target, 0, 0, 256, 256);
                         pt_2_canvas.getGraphicsContext2D().drawImage(patterntable2_render_target, 0, 0, 256, 256);
 
@@ -311,7 +321,7 @@ public class PPUViewer extends Application implements Initializable {
                             GraphicsContext g = palette_images[i].getGraphicsContext2D();
                             //We draw each color
                             for (int j = 0; j < 4; j++) {
-                                g.setFill(nes.getPpu().getColorFromPalette(i, j));
+                                g.setFill(toColor(nes.getPpu().getRGBAFromPalette(i, j)));
                                 g.fillRect((j & 1) == 0 ? 0 : palette_images[i].getWidth()/2, (j & 2) == 0 ? 0 : palette_images[i].getHeight()/2, palette_images[i].getWidth()/2, palette_images[i].getHeight()/2);
                             }
                             //If this is the selected palette, we highlight it
@@ -349,9 +359,9 @@ public class PPUViewer extends Application implements Initializable {
 
                                     for (int row = 0; row < 8; row++) {
                                         for (int col = 0; col < 8; col++) {
-                                            g.setFill(tile.colors[col | (row << 3)]);
+                                            g.setFill(toColor(tile.colors[col | (row << 3)]));
                                             g.fillRect(((i & 0x7) << 5) | (col << 2), ((i >> 3) << 5) | (row << 2), 4, 4);
-                                            preview.setFill(tile.colors[col | (row << 3)]);
+                                            preview.setFill(toColor(tile.colors[col | (row << 3)]));
                                             preview.fillRect(entry.getX() + col, entry.getY() + row, 1, 1);
                                         }
                                     }
@@ -383,9 +393,9 @@ public class PPUViewer extends Application implements Initializable {
                                     Tile tile = nes.getPpu().getOamTile8x16(i);
                                     for (int row = 0; row < 16; row++) {
                                         for (int col = 0; col < 8; col++) {
-                                            g.setFill(tile.colors[col | (row << 3)]);
+                                            g.setFill(toColor(tile.colors[col | (row << 3)]));
                                             g.fillRect(((i & 0x7) << 5) | (col << 2), ((i >> 3) << 6) | (row << 2), 4, 4);
-                                            preview.setFill(tile.colors[col | (row << 3)]);
+                                            preview.setFill(toColor(tile.colors[col | (row << 3)]));
                                             preview.fillRect(entry.getX() + col, entry.getY() + row, 1, 1);
                                         }
                                     }
@@ -418,4 +428,26 @@ public class PPUViewer extends Application implements Initializable {
             }
         }
     }
+
+    /**
+     * Copy the pixels computed by the PPU to an image
+     *
+     * @param dest   the image to draw to
+     * @param width  the width of the image
+     * @param height the height of the image
+     */
+    private void drawPixels(Image dest, int width, int height) {
+        //The PPU packs the pixels as 0xRRGGBBAA, the image expects 0xAARRGGBB
+        for (int i = 0; i < width * height; i++)
+            pixels[i] = Integer.rotateRight(pixels[i], 8);
+        ((WritableImage) dest).getPixelWriter().setPixels(0, 0, width, height, PixelFormat.getIntArgbInstance(), pixels, 0, width);
+    }
+
+    /**
+     * @param rgba a color packed as 0xRRGGBBAA
+     * @return the corresponding Color
+     */
+    private static Color toColor(int rgba) {
+        return Color.rgb(rgba >>> 24, (rgba >> 16) & 0xFF, (rgba >> 8) & 0xFF);
+    }
 }
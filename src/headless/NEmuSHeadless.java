@@ -0,0 +1,234 @@
+package headless;
+
+import core.AudioSink;
+import core.FileAudioSink;
+import core.NES;
+import core.NullAudioSink;
+import core.cartridge.Cartridge;
+import core.cpu.CPU_6502;
+import core.ppu.PPU_2C02;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class runs the emulator without any window or audio device
+ * It loads a ROM, runs a number of frames with inputs read from a script,
+ * and prints a hash of the final state, the last frame and the audio can be written to files
+ *
+ * Usage: NEmuSHeadless rom.nes [-frames N] [-input script.txt] [-screenshot frame.png|frame.ppm] [-audio out.wav|out.raw]
+ *
+ * The input script has one line per change of the controllers: the frame at which it occurs,
+ * then the buttons held by player 1 and optionally player 2, joined by '+' ('-' for none), '#' starts a comment
+ * 0    -        -
+ * 120  START
+ * 130  A+RIGHT  B
+ */
+public class NEmuSHeadless {
+
+    private static final int DEFAULT_FRAMES = 600;
+    private static final int SAMPLE_RATE = 44100;
+    private static final int AUDIO_BLOCK_SIZE = 1024;
+    private static final String[] BUTTONS = {"RIGHT", "LEFT", "DOWN", "UP", "START", "SELECT", "B", "A"};
+
+    public static void main(String[] args) {
+        String rom = null;
+        int frames = DEFAULT_FRAMES;
+        Path input = null;
+        Path screenshot = null;
+        Path audio = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "-frames" -> frames = Integer.parseInt(args[++i]);
+                    case "-input" -> input = Paths.get(args[++i]);
+                    case "-screenshot" -> screenshot = Paths.get(args[++i]);
+                    case "-audio" -> audio = Paths.get(args[++i]);
+                    default -> {
+                        if (rom != null || args[i].startsWith("-"))
+                            throw new IllegalArgumentException("Unknown argument " + args[i]);
+                        rom = args[i];
+                    }
+                }
+            }
+            if (rom == null)
+                throw new IllegalArgumentException("No ROM given");
+        } catch (ArrayIndexOutOfBoundsException e) {
+            usage("Missing value for " + args[args.length - 1]);
+            return;
+        } catch (IllegalArgumentException e) {
+            usage(e.getMessage());
+            return;
+        }
+
+        try {
+            List<int[]> script = input == null ? new ArrayList<>() : readScript(input);
+            AudioSink sink = audio == null ? new NullAudioSink(SAMPLE_RATE) : new FileAudioSink(audio, SAMPLE_RATE, !audio.toString().endsWith(".raw"));
+
+            NES nes = new NES();
+            nes.setSampleFreq(sink.getSampleRate());
+            nes.enableSoundRendering(audio != null); // The audio isn't mixed if it isn't recorded
+            Cartridge cartridge = new Cartridge(rom);
+            nes.insertCartridge(cartridge);
+            nes.startup();
+
+            long start = System.nanoTime();
+            float[] block = new float[AUDIO_BLOCK_SIZE];
+            int next_input = 0;
+            sink.start();
+            for (int frame = 0; frame < frames; frame++) {
+                //The inputs of a frame are applied before it starts
+                while (next_input < script.size() && script.get(next_input)[0] <= frame) {
+                    int[] entry = script.get(next_input++);
+                    nes.controller[0] = entry[1];
+                    nes.controller[1] = entry[2];
+                }
+                nes.runFrame(false);
+                int count;
+                while ((count = nes.getApu().renderSamples(block, 0, AUDIO_BLOCK_SIZE)) > 0)
+                    sink.write(block, 0, count);
+            }
+            sink.stop();
+            long elapsed = System.nanoTime() - start;
+            cartridge.close();
+
+            nes.getPpu().getFrameExchange().acquire();
+            ByteBuffer frame = nes.getPpu().getScreenBuffer().duplicate();
+            if (screenshot != null)
+                writeScreenshot(frame, screenshot);
+            System.out.println("frames " + frames + " in " + elapsed / 1000000 + "ms");
+            System.out.println("hash " + hashState(nes, frame));
+        } catch (Exception e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Print an error and the usage, and exit
+     *
+     * @param error the error to print
+     */
+    private static void usage(String error) {
+        System.err.println(error);
+        System.err.println("Usage: NEmuSHeadless rom.nes [-frames N] [-input script.txt] [-screenshot frame.png|frame.ppm] [-audio out.wav|out.raw]");
+        System.exit(2);
+    }
+
+    /**
+     * Read an input script
+     *
+     * @param path the script to read
+     * @return the controller states ordered by frame, as {frame, player 1 state, player 2 state}
+     * @throws IOException if the script can't be read or is malformed
+     */
+    private static List<int[]> readScript(Path path) throws IOException {
+        List<int[]> script = new ArrayList<>();
+        int line_number = 0;
+        int last_frame = -1;
+        for (String line : Files.readAllLines(path)) {
+            line_number++;
+            int comment = line.indexOf('#');
+            if (comment >= 0)
+                line = line.substring(0, comment);
+            line = line.trim();
+            if (line.isEmpty())
+                continue;
+            String[] fields = line.split("\\s+");
+            try {
+                int frame = Integer.parseInt(fields[0]);
+                if (frame < last_frame || fields.length > 3)
+                    throw new IllegalArgumentException();
+                last_frame = frame;
+                script.add(new int[]{frame, fields.length > 1 ? parseButtons(fields[1]) : 0, fields.length > 2 ? parseButtons(fields[2]) : 0});
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Invalid input script line " + line_number + ": " + line);
+            }
+        }
+        return script;
+    }
+
+    /**
+     * Convert a list of buttons to a controller state
+     *
+     * @param buttons the buttons joined by '+', '-' for none
+     * @return the controller state (A = 0x80 ... Right = 0x01)
+     */
+    private static int parseButtons(String buttons) {
+        if (buttons.equals("-"))
+            return 0;
+        int state = 0;
+        for (String button : buttons.toUpperCase().split("\\+")) {
+            int bit = List.of(BUTTONS).indexOf(button);
+            if (bit < 0)
+                throw new IllegalArgumentException();
+            state |= 1 << bit;
+        }
+        return state;
+    }
+
+    /**
+     * Write a frame to an image file, PPM if the name ends with .ppm, PNG otherwise
+     *
+     * @param frame the frame, as R, G, B, A bytes
+     * @param path  the file to write to
+     * @throws IOException if the file can't be written
+     */
+    private static void writeScreenshot(ByteBuffer frame, Path path) throws IOException {
+        int width = PPU_2C02.SCREEN_WIDTH;
+        int height = PPU_2C02.SCREEN_HEIGHT;
+        if (path.toString().endsWith(".ppm")) {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(path))) {
+                out.write(("P6\n" + width + " " + height + "\n255\n").getBytes());
+                for (int i = 0; i < width * height; i++) {
+                    out.write(frame.get(i * 4));
+                    out.write(frame.get(i * 4 + 1));
+                    out.write(frame.get(i * 4 + 2));
+                }
+            }
+            return;
+        }
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int i = 0; i < width * height; i++)
+            image.setRGB(i % width, i / width, (frame.get(i * 4) & 0xFF) << 16 | (frame.get(i * 4 + 1) & 0xFF) << 8 | (frame.get(i * 4 + 2) & 0xFF));
+        ImageIO.write(image, "png", path.toFile());
+    }
+
+    /**
+     * Compute a SHA-256 hash of the visible state of the console:
+     * the last frame, the CPU registers, the system RAM and the Cartridge RAM
+     *
+     * @param nes   the console
+     * @param frame the last frame
+     * @return the hash as an hexadecimal string
+     */
+    private static String hashState(NES nes, ByteBuffer frame) throws NoSuchAlgorithmException {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        digest.update(frame.duplicate().rewind());
+        CPU_6502 cpu = nes.getCpu();
+        digest.update(new byte[]{
+                (byte) (cpu.getProgramCounter() >> 8), (byte) cpu.getProgramCounter(), (byte) cpu.getAccumulator(),
+                (byte) cpu.getXRegister(), (byte) cpu.getYRegister(), (byte) cpu.getStackPointer(), (byte) cpu.getStatus()
+        });
+        for (int addr = 0x0000; addr < 0x0800; addr++)
+            digest.update((byte) nes.cpuRead(addr, true));
+        byte[] ram = nes.getCartridge().getMapper().getRAM();
+        if (ram != null)
+            digest.update(ram);
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest())
+            hex.append(String.format("%02x", b));
+        return hex.toString();
+    }
+}
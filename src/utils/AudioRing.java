@@ -0,0 +1,119 @@
+package utils;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class is a single producer / single consumer ring of audio samples
+ * The emulation writes the samples of each frame to it and the audio callback reads them, without any lock
+ * When the ring is full the extra samples are dropped (overrun), when it is empty silence is read (underrun)
+ */
+public class AudioRing {
+
+    private final float[] samples;
+    private final int mask;
+    private final AtomicLong write_index = new AtomicLong(0);
+    private final AtomicLong read_index = new AtomicLong(0);
+
+    private volatile long underruns = 0;
+    private volatile long overruns = 0;
+
+    /**
+     * Create a new ring
+     *
+     * @param capacity the number of samples the ring can hold (power of 2)
+     */
+    public AudioRing(int capacity) {
+        if (Integer.bitCount(capacity) != 1)
+            throw new IllegalArgumentException("The capacity must be a power of 2");
+        samples = new float[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Producer side: write samples to the ring, the samples that don't fit are dropped
+     *
+     * @param src    the array to read the samples from
+     * @param offset the index of the first sample
+     * @param count  the number of samples to write
+     * @return the number of samples written
+     */
+    public int write(float[] src, int offset, int count) {
+        long write = write_index.get();
+        int written = (int) Math.min(count, samples.length - (write - read_index.get()));
+        int slot = (int) write & mask;
+        int first = Math.min(written, samples.length - slot);
+        System.arraycopy(src, offset, samples, slot, first);
+        System.arraycopy(src, offset + first, samples, 0, written - first);
+        write_index.lazySet(write + written);
+        if (written < count)
+            overruns++;
+        return written;
+    }
+
+    /**
+     * Consumer side: read samples from the ring, if not enough are available the rest is filled with silence
+     *
+     * @param dst    the array to write the samples to
+     * @param offset the index of the first sample
+     * @param count  the number of samples to read
+     * @return the number of samples actually read from the ring
+     */
+    public int read(float[] dst, int offset, int count) {
+        long read = read_index.get();
+        int available = (int) Math.min(count, write_index.get() - read);
+        int slot = (int) read & mask;
+        int first = Math.min(available, samples.length - slot);
+        System.arraycopy(samples, slot, dst, offset, first);
+        System.arraycopy(samples, 0, dst, offset + first, available - first);
+        read_index.lazySet(read + available);
+        if (available < count) {
+            Arrays.fill(dst, offset + available, offset + count, 0);
+            underruns++;
+        }
+        return available;
+    }
+
+    /**
+     * Drop all the samples waiting in the ring
+     * Must be called from the consumer side
+     */
+    public void clear() {
+        read_index.lazySet(write_index.get());
+    }
+
+    /**
+     * @return the number of samples waiting to be read
+     */
+    public int getFillLevel() {
+        return (int) (write_index.get() - read_index.get());
+    }
+
+    /**
+     * @return the fraction of the ring filled with samples waiting to be read (0 - 1)
+     */
+    public double getFillRatio() {
+        return getFillLevel() / (double) samples.length;
+    }
+
+    /**
+     * @return the number of samples the ring can hold
+     */
+    public int getCapacity() {
+        return samples.length;
+    }
+
+    /**
+     * @return the number of reads that couldn't be fully served
+     */
+    public long getUnderruns() {
+        return underruns;
+    }
+
+    /**
+     * @return the number of writes that couldn't be fully stored
+     */
+    public long getOverruns() {
+        return overruns;
+    }
+}
@@ -1,11 +0,0 @@
-package utils;
-
-public class AudioSampleCollection {
-
-    public double pulse1;
-    public double pulse2;
-    public double triangle;
-    public double noise;
-    public double dmc;
-    public double mixer;
-}
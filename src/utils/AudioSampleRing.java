@@ -0,0 +1,88 @@
+package utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class is a single producer / single consumer ring of audio samples used to feed the APU visualizer
+ * Each sample is stored as one float per lane (the 5 channels and the Mixer output), nothing is allocated when pushing
+ * The producer never waits, when the ring is full the oldest samples are overwritten
+ * The consumer takes a snapshot of the latest samples in bulk
+ */
+public class AudioSampleRing {
+
+    public static final int PULSE_1 = 0;
+    public static final int PULSE_2 = 1;
+    public static final int TRIANGLE = 2;
+    public static final int NOISE = 3;
+    public static final int DMC = 4;
+    public static final int MIXER = 5;
+    public static final int LANES = 6;
+
+    private final float[][] lanes;
+    private final int mask;
+    private final AtomicLong write_index = new AtomicLong(0);
+
+    /**
+     * Create a new ring
+     *
+     * @param capacity the number of samples the ring can hold (power of 2)
+     */
+    public AudioSampleRing(int capacity) {
+        if (Integer.bitCount(capacity) != 1)
+            throw new IllegalArgumentException("The capacity must be a power of 2");
+        lanes = new float[LANES][capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Producer side: push a sample to the ring
+     *
+     * @param pulse_1  the output of the first pulse channel
+     * @param pulse_2  the output of the second pulse channel
+     * @param triangle the output of the triangle channel
+     * @param noise    the output of the noise channel
+     * @param dmc      the output of the DMC channel
+     * @param mixer    the output of the Mixer
+     */
+    public void push(float pulse_1, float pulse_2, float triangle, float noise, float dmc, float mixer) {
+        long index = write_index.get();
+        int slot = (int) index & mask;
+        lanes[PULSE_1][slot] = pulse_1;
+        lanes[PULSE_2][slot] = pulse_2;
+        lanes[TRIANGLE][slot] = triangle;
+        lanes[NOISE][slot] = noise;
+        lanes[DMC][slot] = dmc;
+        lanes[MIXER][slot] = mixer;
+        //The sample is published once fully written
+        write_index.lazySet(index + 1);
+    }
+
+    /**
+     * Consumer side: copy the latest samples of each lane, from the oldest to the newest
+     * Samples overwritten by the producer during the copy are discarded
+     *
+     * @param out   the arrays to copy the samples to, indexed by lane, each one at least count long
+     * @param count the maximum number of samples to copy
+     * @return the number of samples copied in each lane
+     */
+    public int snapshot(float[][] out, int count) {
+        long end = write_index.get();
+        int copied = (int) Math.min(Math.min(count, end), mask + 1);
+        long start = end - copied;
+        for (int lane = 0; lane < LANES; lane++) {
+            int slot = (int) start & mask;
+            int first = Math.min(copied, mask + 1 - slot);
+            System.arraycopy(lanes[lane], slot, out[lane], 0, first);
+            System.arraycopy(lanes[lane], 0, out[lane], first, copied - first);
+        }
+        //Drop the oldest samples if the producer has wrapped around them (or is writing over one) while copying
+        long overwritten = write_index.get() + 1 - (mask + 1) - start;
+        if (overwritten > 0) {
+            int torn = (int) Math.min(overwritten, copied);
+            copied -= torn;
+            for (int lane = 0; lane < LANES; lane++)
+                System.arraycopy(out[lane], torn, out[lane], 0, copied);
+        }
+        return copied;
+    }
+}